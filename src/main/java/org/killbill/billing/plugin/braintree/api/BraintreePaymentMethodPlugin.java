@@ -16,24 +16,36 @@
 
 package org.killbill.billing.plugin.braintree.api;
 
+import com.google.common.collect.ImmutableSet;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.plugin.api.PluginProperties;
 import org.killbill.billing.plugin.api.payment.PluginPaymentMethodPlugin;
+import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
 import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 
 public class BraintreePaymentMethodPlugin extends PluginPaymentMethodPlugin {
 
     public static BraintreePaymentMethodPlugin build(BraintreePaymentMethodsRecord braintreePaymentMethodsRecord){
+        return build(braintreePaymentMethodsRecord, ImmutableSet.<String>of());
+    }
+
+    /**
+     * @param fields properties returned (all stored properties when empty), rows stored before the field profile was set may carry more
+     */
+    public static BraintreePaymentMethodPlugin build(final BraintreePaymentMethodsRecord braintreePaymentMethodsRecord, final Set<String> fields) {
         final String externalPaymentMethodId = braintreePaymentMethodsRecord.getBraintreeId();
+        final Map<String, Object> additionalDataMap = BraintreeDao.mapFromAdditionalDataString(braintreePaymentMethodsRecord.getAdditionalData());
         return new BraintreePaymentMethodPlugin(UUID.fromString(braintreePaymentMethodsRecord.getKbPaymentMethodId()),
                 externalPaymentMethodId,
                 braintreePaymentMethodsRecord.getIsDefault() == BraintreeDao.TRUE,
-                PluginProperties.buildPluginProperties(BraintreeDao.mapFromAdditionalDataString(braintreePaymentMethodsRecord.getAdditionalData())));
+                PluginProperties.buildPluginProperties(BraintreePluginProperties.filterAdditionalDataMap(additionalDataMap, fields)));
     }
 
     public BraintreePaymentMethodPlugin(final UUID kbPaymentMethodId,
@@ -21,17 +21,18 @@ package org.killbill.billing.plugin.braintree.api;
 import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-import com.braintreegateway.BraintreeGateway;
-import com.braintreegateway.Environment;
 import com.braintreegateway.PaymentMethod;
 import com.braintreegateway.Result;
 import com.braintreegateway.Transaction;
 import com.braintreegateway.exceptions.BraintreeException;
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
+import org.joda.time.Period;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.catalog.api.Currency;
@@ -50,9 +51,12 @@ import org.killbill.billing.plugin.braintree.client.BraintreeClientImpl;
 import org.killbill.billing.plugin.braintree.core.BraintreeActivator;
 import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
 import org.killbill.billing.plugin.braintree.core.BraintreeConfigPropertiesConfigurationHandler;
+import org.killbill.billing.plugin.braintree.core.BraintreeGateways;
 import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
-import org.killbill.billing.plugin.braintree.core.resources.ExpiredPaymentPolicy;
+import org.killbill.billing.plugin.braintree.core.resources.RefreshPaymentPolicy;
 import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.BraintreeReadReplicaDataSource.ReplicaReads;
+import org.killbill.billing.plugin.braintree.dao.BraintreeUnitOfWorkDataSource.UnitOfWork;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
@@ -72,15 +76,30 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
     private static final Logger logger = LoggerFactory.getLogger(BraintreePaymentPluginApi.class);
     private final BraintreeDao dao;
     private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeGateways gateways;
+    // Payment methods found during a sync, handed over to addPaymentMethod (re-entered through Kill Bill) to avoid fetching them again
+    private final Cache<String, PaymentMethod> discoveredPaymentMethods = CacheBuilder.newBuilder()
+                                                                                     .expireAfterWrite(5, TimeUnit.MINUTES)
+                                                                                     .build();
 
     public BraintreePaymentPluginApi(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
                                      final OSGIKillbillAPI killbillAPI,
                                      final OSGIConfigPropertiesService configProperties,
                                      final Clock clock,
                                      final BraintreeDao dao) {
+        this(braintreeConfigPropertiesConfigurationHandler, killbillAPI, configProperties, clock, dao, new BraintreeGateways());
+    }
+
+    public BraintreePaymentPluginApi(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                     final OSGIKillbillAPI killbillAPI,
+                                     final OSGIConfigPropertiesService configProperties,
+                                     final Clock clock,
+                                     final BraintreeDao dao,
+                                     final BraintreeGateways gateways) {
         super(killbillAPI, configProperties, clock, dao);
         this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
         this.dao = dao;
+        this.gateways = gateways;
     }
 
     @Override
@@ -197,50 +216,33 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
     @Override
     public List<PaymentTransactionInfoPlugin> getPaymentInfo(UUID kbAccountId, UUID kbPaymentId,
                                                              Iterable<PluginProperty> properties, TenantContext context) throws PaymentPluginApiException {
-        final List<PaymentTransactionInfoPlugin> transactions = super.getPaymentInfo(kbAccountId, kbPaymentId, properties, context);
+        final List<PaymentTransactionInfoPlugin> transactions;
+        try (final ReplicaReads ignored = dao.beginReplicaReads(kbAccountId, context.getTenantId())) {
+            transactions = super.getPaymentInfo(kbAccountId, kbPaymentId, properties, context);
+        }
         if (transactions.isEmpty()) {
             // We don't know about this payment (maybe it was aborted in a control plugin)
             return transactions;
         }
 
-        // Check if a payment needs to be canceled
-        final ExpiredPaymentPolicy expiredPaymentPolicy = new ExpiredPaymentPolicy(clock, braintreeConfigPropertiesConfigurationHandler.getConfigurable(context.getTenantId()));
-        final BraintreePaymentTransactionInfoPlugin transactionToExpire = expiredPaymentPolicy.isExpired(transactions);
-        if (transactionToExpire != null) {
-            logger.info("Canceling expired Braintree transaction {} (created {})", transactionToExpire.getBraintreeResponsesRecord().getBraintreeId(), transactionToExpire.getBraintreeResponsesRecord().getCreatedDate());
-            final Map additionalMetadata = ImmutableMap.builder()
-                                                       .put(BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS,
-                                                            PaymentPluginStatus.CANCELED.toString())
-                                                       .put("message",
-                                                            "Payment Expired - Cancelled by Janitor")
-                                                       .build();
-            try {
-                dao.updateResponse(transactionToExpire.getBraintreeResponsesRecord(), additionalMetadata);
-            } catch (final SQLException e) {
-                throw new PaymentPluginApiException("Unable to update expired payment", e);
-            }
-
-            // Reload payment
-            return super.getPaymentInfo(kbAccountId, kbPaymentId, properties, context);
-        }
-
         final BraintreeClient braintreeClient = buildBraintreeClient(context);
+        final RefreshPaymentPolicy refreshPaymentPolicy = new RefreshPaymentPolicy(clock, braintreeConfigPropertiesConfigurationHandler.getConfigurable(context.getTenantId()));
+        final Period maxStaleness = getMaxStaleness(properties);
 
         // Refresh, if needed
         boolean wasRefreshed = false;
         for (final PaymentTransactionInfoPlugin transaction : transactions) {
-            String braintreeStatus = PluginProperties.getValue(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS,
-                                                               BraintreePluginProperties.PROPERTY_FALLBACK_VALUE,
-                                                               transaction.getProperties());
-
-            if (transaction.getStatus() == PaymentPluginStatus.PENDING || transaction.getStatus() == PaymentPluginStatus.UNDEFINED
-                || (transaction.getStatus() == PaymentPluginStatus.PROCESSED && !BraintreePaymentTransactionInfoPlugin.isDoneProcessingInBraintree(braintreeStatus))) {
+            // Pending, undefined, or processed but not yet settled or voided (see braintree_responses.is_open)
+            if (BraintreeDao.isOpen(((BraintreePaymentTransactionInfoPlugin) transaction).getBraintreeResponsesRecord())
+                && refreshPaymentPolicy.shouldRefresh((BraintreePaymentTransactionInfoPlugin) transaction, maxStaleness)) {
                 String braintreeTransactionId = ((BraintreePaymentTransactionInfoPlugin) transaction).getBraintreeResponsesRecord().getBraintreeId();
                 logger.info("Refreshing kbTransaction: {}, btTransaction {}", transaction.getKbPaymentId(), braintreeTransactionId);
                 try{
                     String updatedStatus = braintreeClient.getTransactionStatus(braintreeTransactionId).toString();
                     Iterable<PluginProperty> updatedProperties = ImmutableList.of(
-                            new PluginProperty(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, updatedStatus, true)
+                            new PluginProperty(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, updatedStatus, true),
+                            new PluginProperty(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, clock.getUTCNow().toString(), true),
+                            new PluginProperty(BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, String.valueOf(refreshPaymentPolicy.getRefreshCount((BraintreePaymentTransactionInfoPlugin) transaction) + 1), true)
                                                                                  );
                     dao.updateResponse(transaction.getKbTransactionPaymentId(), updatedProperties, context.getTenantId());
                     wasRefreshed = true;
@@ -302,10 +304,17 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
             }
         } else {
             // Otherwise, payment method was created in Braintree (sync use-case), in which case the external payment method id is the token
-            braintreePaymentMethod = braintreeClient.getPaymentMethod(paymentMethodProps.getExternalPaymentMethodId());
+            final String discoveredPaymentMethodKey = discoveredPaymentMethodKey(paymentMethodProps.getExternalPaymentMethodId(), context.getTenantId());
+            final PaymentMethod discoveredPaymentMethod = discoveredPaymentMethods.getIfPresent(discoveredPaymentMethodKey);
+            if (discoveredPaymentMethod != null) {
+                discoveredPaymentMethods.invalidate(discoveredPaymentMethodKey);
+                braintreePaymentMethod = discoveredPaymentMethod;
+            } else {
+                braintreePaymentMethod = braintreeClient.getPaymentMethod(paymentMethodProps.getExternalPaymentMethodId());
+            }
         }
 
-        final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(braintreePaymentMethod);
+        final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(braintreePaymentMethod, getPaymentMethodFields(context.getTenantId()));
 
         final DateTime utcNow = clock.getUTCNow();
         try {
@@ -335,14 +344,27 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
             throw new PaymentPluginApiException("Could not delete payment method in Braintree", e);
         }
 
-        super.deletePaymentMethod(kbAccountId, kbPaymentMethodId, properties, context);
+        try (final UnitOfWork ignored = dao.beginUnitOfWork()) {
+            super.deletePaymentMethod(kbAccountId, kbPaymentMethodId, properties, context);
+            dao.recordAccountWrite(kbAccountId, context.getTenantId());
+            dao.invalidatePaymentMethod(kbPaymentMethodId, context.getTenantId());
+        }
+    }
+
+    @Override
+    public void setDefaultPaymentMethod(final UUID kbAccountId, final UUID kbPaymentMethodId, final Iterable<PluginProperty> properties, final CallContext context) throws PaymentPluginApiException {
+        try (final UnitOfWork ignored = dao.beginUnitOfWork()) {
+            super.setDefaultPaymentMethod(kbAccountId, kbPaymentMethodId, properties, context);
+            // The previous default payment method changed as well
+            dao.invalidatePaymentMethods(kbAccountId, context.getTenantId());
+        }
     }
 
     @Override
     public PaymentMethodPlugin getPaymentMethodDetail(UUID kbAccountId, UUID kbPaymentMethodId,
                                                       Iterable<PluginProperty> properties, TenantContext context) throws PaymentPluginApiException {
         final BraintreePaymentMethodsRecord record;
-        try {
+        try (final ReplicaReads ignored = dao.beginReplicaReads(kbAccountId, context.getTenantId())) {
             record = dao.getPaymentMethod(kbPaymentMethodId, context.getTenantId());
         } catch (final SQLException e) {
             throw new PaymentPluginApiException("Unable to retrieve payment method for kbPaymentMethodId " + kbPaymentMethodId, e);
@@ -367,8 +389,12 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
         // To retrieve all payment methods in Braintree, retrieve the Braintree customer id (custom field on the account)
         final String braintreeCustomerId = getCustomerIdCustomField(kbAccountId, context);
         // If refreshFromGateway isn't set or there is no customer id yet, simply read our tables
-        if (!refreshFromGateway || braintreeCustomerId == null) {
-            return super.getPaymentMethods(kbAccountId, refreshFromGateway, properties, context);
+        if (!refreshFromGateway) {
+            try (final ReplicaReads ignored = dao.beginReplicaReads(kbAccountId, context.getTenantId())) {
+                return super.getPaymentMethods(kbAccountId, false, properties, context);
+            }
+        } else if (braintreeCustomerId == null) {
+            return super.getPaymentMethods(kbAccountId, true, properties, context);
         }
 
         // Retrieve our currently known payment methods
@@ -395,13 +421,17 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
             throw new PaymentPluginApiException("Error creating payment method", e);
         }
 
-        for (final BraintreePaymentMethodsRecord braintreePaymentMethodsRecord : existingPaymentMethodByToken.values()) {
-            logger.info("Deactivating local Braintree payment method {} - not found in Braintree", braintreePaymentMethodsRecord.getBraintreeId());
-            super.deletePaymentMethod(kbAccountId, UUID.fromString(braintreePaymentMethodsRecord.getKbPaymentMethodId()), properties, context);
-        }
+        try (final UnitOfWork ignored = dao.beginUnitOfWork()) {
+            for (final BraintreePaymentMethodsRecord braintreePaymentMethodsRecord : existingPaymentMethodByToken.values()) {
+                logger.info("Deactivating local Braintree payment method {} - not found in Braintree", braintreePaymentMethodsRecord.getBraintreeId());
+                super.deletePaymentMethod(kbAccountId, UUID.fromString(braintreePaymentMethodsRecord.getKbPaymentMethodId()), properties, context);
+                dao.recordAccountWrite(kbAccountId, context.getTenantId());
+                dao.invalidatePaymentMethod(UUID.fromString(braintreePaymentMethodsRecord.getKbPaymentMethodId()), context.getTenantId());
+            }
 
-        // Refresh the state
-        return super.getPaymentMethods(kbAccountId, false, properties, context);
+            // Refresh the state
+            return super.getPaymentMethods(kbAccountId, false, properties, context);
+        }
     }
 
     @Override
@@ -425,7 +455,7 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
 
     @Override
     protected PaymentMethodPlugin buildPaymentMethodPlugin(BraintreePaymentMethodsRecord record) {
-        return BraintreePaymentMethodPlugin.build(record);
+        return BraintreePaymentMethodPlugin.build(record, getPaymentMethodFields(UUID.fromString(record.getKbTenantId())));
     }
 
     @Override
@@ -452,6 +482,20 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
         }
     }
 
+    @Nullable
+    private Period getMaxStaleness(final Iterable<PluginProperty> properties) throws PaymentPluginApiException {
+        final String maxStaleness = PluginProperties.findPluginPropertyValue(BraintreePluginProperties.PROPERTY_BT_MAX_STALENESS, properties);
+        if (maxStaleness == null) {
+            return null;
+        }
+
+        try {
+            return Period.parse(maxStaleness);
+        } catch (final IllegalArgumentException e) {
+            throw new PaymentPluginApiException("USER", "Invalid " + BraintreePluginProperties.PROPERTY_BT_MAX_STALENESS + " " + maxStaleness + ": expected an ISO-8601 period such as PT30S");
+        }
+    }
+
     private void updateResponseWithAdditionalProperties(final UUID kbTransactionId, final Iterable<PluginProperty> properties, final UUID tenantId) throws PaymentPluginApiException {
         try {
             dao.updateResponse(kbTransactionId, properties, tenantId);
@@ -547,10 +591,12 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
                                                                     final Iterable<PluginProperty> properties,
                                                                     final TenantContext context) throws PaymentPluginApiException {
         final Account account = getAccount(kbAccountId, context);
-        final BraintreePaymentMethodsRecord nonNullPaymentMethodsRecord = getBraintreePaymentMethodsRecord(kbPaymentMethodId, context);
 
+        // Look up both rows with a single connection, released before calling Braintree
+        final BraintreePaymentMethodsRecord nonNullPaymentMethodsRecord;
         final BraintreeResponsesRecord previousResponse;
-        try {
+        try (final UnitOfWork ignored = dao.beginUnitOfWork()) {
+            nonNullPaymentMethodsRecord = getBraintreePaymentMethodsRecord(kbPaymentMethodId, context);
             previousResponse = dao.getSuccessfulAuthorizationResponse(kbPaymentId, context.getTenantId());
             if (previousResponse == null) {
                 throw new PaymentPluginApiException(null, "Unable to retrieve previous payment response for kbTransactionId " + kbTransactionId);
@@ -580,40 +626,105 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
                                     final Iterable<? extends PaymentMethod> braintreePaymentMethods,
                                     final Map<String, BraintreePaymentMethodsRecord> existingPaymentMethodByToken,
                                     final CallContext context) throws PaymentApiException, SQLException {
+        int unchanged = 0;
+        // Rows stored with another field profile are updated
+        final Set<String> paymentMethodFields = getPaymentMethodFields(context.getTenantId());
+        final List<PaymentMethod> newPaymentMethods = new LinkedList<>();
+        final Map<BraintreePaymentMethodsRecord, Map<String, Object>> updatedPaymentMethods = new LinkedHashMap<>();
         for (final PaymentMethod paymentMethod : braintreePaymentMethods) {
-            final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(paymentMethod);
-
             // We remove it here to build the list of local payment methods to delete
             final BraintreePaymentMethodsRecord existingPaymentMethodRecord = existingPaymentMethodByToken.remove(paymentMethod.getToken());
             if (existingPaymentMethodRecord == null) {
                 // We don't know about it yet, create it
-                logger.info("Creating new local Braintree payment method {}", paymentMethod.getToken());
-                final List<PluginProperty> properties = PluginProperties.buildPluginProperties(additionalDataMap);
-                final PaymentMethodPlugin paymentMethodInfo = new BraintreePaymentMethodPlugin(null,
-                                                                                               paymentMethod.getToken(),
-                                                                                               paymentMethod.isDefault(),
-                                                                                               properties);
-                try {
-                    killbillAPI.getPaymentApi().addPaymentMethod(getAccount(kbAccountId, context),
-                                                                 paymentMethod.getToken(),
-                                                                 BraintreeActivator.PLUGIN_NAME,
-                                                                 paymentMethod.isDefault(),
-                                                                 paymentMethodInfo,
-                                                                 properties,
-                                                                 context);
-                } catch (final PaymentApiException e) {
-                    // In case of errors, opportunistically continue
-                    logger.warn("Unable to create new local Braintree payment method {}", paymentMethod.getToken(), e.getCause());
-                }
+                newPaymentMethods.add(paymentMethod);
+                continue;
+            }
+
+            final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(paymentMethod, paymentMethodFields);
+            if (dao.hasAdditionalData(existingPaymentMethodRecord, additionalDataMap)) {
+                unchanged++;
             } else {
                 logger.info("Updating existing local Braintree payment method {}", existingPaymentMethodRecord.getKbPaymentMethodId());
-                dao.updatePaymentMethod(UUID.fromString(existingPaymentMethodRecord.getKbPaymentMethodId()),
-                                        additionalDataMap,
-                                        paymentMethod.getToken(),
-                                        clock.getUTCNow(),
-                                        context.getTenantId());
+                updatedPaymentMethods.put(existingPaymentMethodRecord, additionalDataMap);
+            }
+        }
+
+        dao.updatePaymentMethods(updatedPaymentMethods, clock.getUTCNow(), context.getTenantId());
+        final int created = createPaymentMethods(kbAccountId, newPaymentMethods, context);
+        logger.info("Synced Braintree payment methods for kbAccountId {}: created={}, updated={}, unchanged={}",
+                    kbAccountId, created, updatedPaymentMethods.size(), unchanged);
+    }
+
+    /**
+     * Adds the Braintree payment methods of a customer which are not known yet to the Kill Bill account (vault import)
+     *
+     * @return the number of payment methods created
+     */
+    public int importPaymentMethods(final Account account, final List<? extends PaymentMethod> braintreePaymentMethods, final CallContext context) throws PaymentApiException, SQLException {
+        final Set<String> existingTokens = new HashSet<>();
+        for (final BraintreePaymentMethodsRecord existingPaymentMethodRecord : dao.getPaymentMethods(account.getId(), context.getTenantId())) {
+            existingTokens.add(existingPaymentMethodRecord.getBraintreeId());
+        }
+
+        final List<PaymentMethod> newPaymentMethods = new LinkedList<>();
+        for (final PaymentMethod paymentMethod : braintreePaymentMethods) {
+            if (!existingTokens.contains(paymentMethod.getToken())) {
+                newPaymentMethods.add(paymentMethod);
             }
         }
+        return createPaymentMethods(account, newPaymentMethods, context);
+    }
+
+    private int createPaymentMethods(final UUID kbAccountId, final List<PaymentMethod> paymentMethods, final CallContext context) throws PaymentApiException {
+        if (paymentMethods.isEmpty()) {
+            return 0;
+        }
+        return createPaymentMethods(getAccount(kbAccountId, context), paymentMethods, context);
+    }
+
+    // Kill Bill locks the account when adding a payment method: the payment methods of an account are created sequentially
+    private int createPaymentMethods(final Account account, final List<PaymentMethod> paymentMethods, final CallContext context) {
+        int created = 0;
+        for (final PaymentMethod paymentMethod : paymentMethods) {
+            created += createPaymentMethod(account, paymentMethod, context) ? 1 : 0;
+        }
+        return created;
+    }
+
+    private boolean createPaymentMethod(final Account account, final PaymentMethod paymentMethod, final CallContext context) {
+        logger.info("Creating new local Braintree payment method {}", paymentMethod.getToken());
+        final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(paymentMethod, getPaymentMethodFields(context.getTenantId()));
+        final List<PluginProperty> properties = PluginProperties.buildPluginProperties(additionalDataMap);
+        final PaymentMethodPlugin paymentMethodInfo = new BraintreePaymentMethodPlugin(null,
+                                                                                       paymentMethod.getToken(),
+                                                                                       paymentMethod.isDefault(),
+                                                                                       properties);
+        final String discoveredPaymentMethodKey = discoveredPaymentMethodKey(paymentMethod.getToken(), context.getTenantId());
+        discoveredPaymentMethods.put(discoveredPaymentMethodKey, paymentMethod);
+        try {
+            killbillAPI.getPaymentApi().addPaymentMethod(account,
+                                                         paymentMethod.getToken(),
+                                                         BraintreeActivator.PLUGIN_NAME,
+                                                         paymentMethod.isDefault(),
+                                                         paymentMethodInfo,
+                                                         properties,
+                                                         context);
+            return true;
+        } catch (final PaymentApiException e) {
+            // In case of errors, opportunistically continue
+            logger.warn("Unable to create new local Braintree payment method {}", paymentMethod.getToken(), e.getCause());
+            return false;
+        } finally {
+            discoveredPaymentMethods.invalidate(discoveredPaymentMethodKey);
+        }
+    }
+
+    private Set<String> getPaymentMethodFields(final UUID kbTenantId) {
+        return braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId).getPaymentMethodFields();
+    }
+
+    private static String discoveredPaymentMethodKey(final String braintreePaymentMethodToken, final UUID kbTenantId) {
+        return kbTenantId + "/" + braintreePaymentMethodToken;
     }
 
     private void setCustomerIdCustomField(String braintreeCustomerId, UUID kbAccountId, CallContext context) throws PaymentPluginApiException{
@@ -669,14 +780,8 @@ public class BraintreePaymentPluginApi extends PluginPaymentPluginApi<BraintreeR
         return record;
     }
 
-    private BraintreeClient buildBraintreeClient(final TenantContext tenantContext) {
+    protected BraintreeClient buildBraintreeClient(final TenantContext tenantContext) {
         final BraintreeConfigProperties config = braintreeConfigPropertiesConfigurationHandler.getConfigurable(tenantContext.getTenantId());
-        final BraintreeGateway braintreeGateway = new BraintreeGateway(
-                Environment.parseEnvironment(config.getBtEnvironment()),
-                config.getBtMerchantId(),
-                config.getBtPublicKey(),
-                config.getBtPrivateKey()
-        );
-        return new BraintreeClientImpl(braintreeGateway);
+        return new BraintreeClientImpl(gateways.getGateway(config));
     }
 }
@@ -19,11 +19,10 @@ package org.killbill.billing.plugin.braintree.api;
 import java.math.BigDecimal;
 import java.time.ZoneOffset;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
-import com.braintreegateway.Transaction;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.killbill.billing.catalog.api.Currency;
@@ -34,6 +33,7 @@ import org.killbill.billing.plugin.api.PluginProperties;
 import org.killbill.billing.plugin.api.payment.PluginPaymentTransactionInfoPlugin;
 import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
 import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.BraintreeTransactionData;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
 
 import javax.annotation.Nullable;
@@ -44,9 +44,15 @@ public class BraintreePaymentTransactionInfoPlugin extends PluginPaymentTransact
     private static final int ERROR_CODE_MAX_LENGTH = 32;
 
     private final BraintreeResponsesRecord braintreeResponsesRecord;
+    private final String paymentInstrumentType;
+    private final String braintreeTransactionStatus;
+    private final String lastRefreshedDate;
+    private final String refreshCount;
+    // Materialized on first access: Kill Bill mostly needs the status and reference ids only
+    private volatile List<PluginProperty> properties;
 
     public static BraintreePaymentTransactionInfoPlugin build(final BraintreeResponsesRecord braintreeResponsesRecord) {
-        final Map additionalData = BraintreeDao.mapFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData());
+        final BraintreeTransactionData transactionData = BraintreeDao.transactionSummaryFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData());
 
         final DateTime responseDate = new DateTime(braintreeResponsesRecord.getCreatedDate()
                 .atZone(ZoneOffset.UTC)
@@ -58,14 +64,18 @@ public class BraintreePaymentTransactionInfoPlugin extends PluginPaymentTransact
                 TransactionType.valueOf(braintreeResponsesRecord.getTransactionType()),
                 braintreeResponsesRecord.getAmount(),
                 Strings.isNullOrEmpty(braintreeResponsesRecord.getCurrency()) ? null : Currency.valueOf(braintreeResponsesRecord.getCurrency()),
-                getPaymentPluginStatus(additionalData),
-                getGatewayError(additionalData),
-                truncate(getGatewayErrorCode(additionalData)),
-                getFirstPaymentReferenceID(additionalData),
-                getSecondPaymentReferenceID(additionalData),
+                transactionData.getPaymentPluginStatus(),
+                transactionData.getGatewayErrorMessage(),
+                truncate(transactionData.getGatewayErrorCode()),
+                transactionData.getFirstPaymentReferenceId(),
+                transactionData.getSecondPaymentReferenceId(),
                 responseDate,
                 responseDate,
-                PluginProperties.buildPluginProperties(additionalData));
+                transactionData.getPaymentInstrumentType(),
+                transactionData.getTransactionStatus(),
+                transactionData.getLastRefreshedDate(),
+                transactionData.getRefreshCount(),
+                null);
     }
 
     public BraintreePaymentTransactionInfoPlugin(final BraintreeResponsesRecord braintreeResponsesRecord,
@@ -74,63 +84,76 @@ public class BraintreePaymentTransactionInfoPlugin extends PluginPaymentTransact
                                                  final PaymentPluginStatus pluginStatus, final String gatewayError, final String gatewayErrorCode,
                                                  final String firstPaymentReferenceId, final String secondPaymentReferenceId, final DateTime createdDate,
                                                  final DateTime effectiveDate, final List<PluginProperty> properties) {
+        this(braintreeResponsesRecord, kbPaymentId, kbTransactionPaymentPaymentId, transactionType, amount, currency, pluginStatus, gatewayError,
+             gatewayErrorCode, firstPaymentReferenceId, secondPaymentReferenceId, createdDate, effectiveDate,
+             PluginProperties.findPluginPropertyValue(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, properties),
+             PluginProperties.findPluginPropertyValue(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, properties),
+             PluginProperties.findPluginPropertyValue(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, properties),
+             PluginProperties.findPluginPropertyValue(BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, properties),
+             properties);
+    }
+
+    private BraintreePaymentTransactionInfoPlugin(final BraintreeResponsesRecord braintreeResponsesRecord,
+                                                  final UUID kbPaymentId, final UUID kbTransactionPaymentPaymentId,
+                                                  final TransactionType transactionType, final BigDecimal amount, final Currency currency,
+                                                  final PaymentPluginStatus pluginStatus, final String gatewayError, final String gatewayErrorCode,
+                                                  final String firstPaymentReferenceId, final String secondPaymentReferenceId, final DateTime createdDate,
+                                                  final DateTime effectiveDate, @Nullable final String paymentInstrumentType,
+                                                  @Nullable final String braintreeTransactionStatus, @Nullable final String lastRefreshedDate,
+                                                  @Nullable final String refreshCount, @Nullable final List<PluginProperty> properties) {
         super(kbPaymentId, kbTransactionPaymentPaymentId, transactionType, amount, currency, pluginStatus, gatewayError,
-                gatewayErrorCode, firstPaymentReferenceId, secondPaymentReferenceId, createdDate, effectiveDate, properties);
+                gatewayErrorCode, firstPaymentReferenceId, secondPaymentReferenceId, createdDate, effectiveDate, ImmutableList.<PluginProperty>of());
         this.braintreeResponsesRecord = braintreeResponsesRecord;
+        this.paymentInstrumentType = paymentInstrumentType;
+        this.braintreeTransactionStatus = braintreeTransactionStatus;
+        this.lastRefreshedDate = lastRefreshedDate;
+        this.refreshCount = refreshCount;
+        this.properties = properties;
     }
 
     public BraintreeResponsesRecord getBraintreeResponsesRecord() {
         return braintreeResponsesRecord;
     }
 
-    public static PaymentPluginStatus getPaymentPluginStatus(final String braintreeStatus){
-        if(Transaction.Status.SETTLED.toString().equals(braintreeStatus)
-                || Transaction.Status.AUTHORIZING.toString().equals(braintreeStatus)
-                || Transaction.Status.AUTHORIZED.toString().equals(braintreeStatus)
-                || Transaction.Status.SETTLING.toString().equals(braintreeStatus)
-                || Transaction.Status.SETTLEMENT_CONFIRMED.toString().equals(braintreeStatus)
-                || Transaction.Status.SUBMITTED_FOR_SETTLEMENT.toString().equals(braintreeStatus)
-                || Transaction.Status.VOIDED.toString().equals(braintreeStatus)){
-            return PaymentPluginStatus.PROCESSED;
-        }
-        else if(Transaction.Status.SETTLEMENT_PENDING.toString().equals(braintreeStatus)){
-            return PaymentPluginStatus.PENDING;
-        }
-        else if(Transaction.Status.FAILED.toString().equals(braintreeStatus)
-                || Transaction.Status.SETTLEMENT_DECLINED.toString().equals(braintreeStatus)
-                || Transaction.Status.AUTHORIZATION_EXPIRED.toString().equals(braintreeStatus)
-                || Transaction.Status.PROCESSOR_DECLINED.toString().equals(braintreeStatus)
-                || Transaction.Status.GATEWAY_REJECTED.toString().equals(braintreeStatus)){
-            return PaymentPluginStatus.ERROR;
-        }
-
-        return PaymentPluginStatus.UNDEFINED;
+    @Nullable
+    public String getPaymentInstrumentType() {
+        return paymentInstrumentType;
     }
 
-    public static boolean isDoneProcessingInBraintree(final String braintreeTransactionStatus){
-        return braintreeTransactionStatus.equals(Transaction.Status.SETTLED.toString())
-                || braintreeTransactionStatus.equals(Transaction.Status.VOIDED.toString());
+    // The refresh state below doesn't require the plugin properties to be materialized
+
+    @Nullable
+    public String getBraintreeTransactionStatus() {
+        return braintreeTransactionStatus;
     }
 
-    private static PaymentPluginStatus getPaymentPluginStatus(final Map additionalData) {
-        final String braintreeStatus = (String) additionalData.get(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS);
-        return getPaymentPluginStatus(braintreeStatus);
+    @Nullable
+    public String getLastRefreshedDate() {
+        return lastRefreshedDate;
     }
 
-    private static String getGatewayError(final Map additionalData) {
-        return (String) additionalData.get(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_MESSAGE);
+    @Nullable
+    public String getRefreshCount() {
+        return refreshCount;
     }
 
-    private static String getGatewayErrorCode(final Map additionalData) {
-        return (String) additionalData.get(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE);
+    @Override
+    public List<PluginProperty> getProperties() {
+        List<PluginProperty> properties = this.properties;
+        if (properties == null) {
+            // Concurrent callers may both parse, the result is the same
+            properties = BraintreeDao.transactionDataFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData()).toPluginProperties();
+            this.properties = properties;
+        }
+        return properties;
     }
 
-    private static String getFirstPaymentReferenceID(final Map additionalData){
-        return (String) additionalData.get(BraintreePluginProperties.PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID);
+    public static PaymentPluginStatus getPaymentPluginStatus(final String braintreeStatus){
+        return BraintreePluginProperties.toPaymentPluginStatus(braintreeStatus);
     }
 
-    private static String getSecondPaymentReferenceID(final Map additionalData){
-        return (String) additionalData.get(BraintreePluginProperties.PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID);
+    public static boolean isDoneProcessingInBraintree(final String braintreeTransactionStatus){
+        return BraintreePluginProperties.isDoneProcessingInBraintree(braintreeTransactionStatus);
     }
 
     private static String truncate(@Nullable final String string) {
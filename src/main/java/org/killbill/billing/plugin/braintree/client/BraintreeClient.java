@@ -18,6 +18,7 @@
 
 package org.killbill.billing.plugin.braintree.client;
 
+import com.braintreegateway.Customer;
 import com.braintreegateway.PaymentMethod;
 import com.braintreegateway.Result;
 import com.braintreegateway.Transaction;
@@ -28,6 +29,7 @@ import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties.Paym
 import javax.annotation.Nullable;
 
 import java.math.BigDecimal;
+import java.util.Calendar;
 import java.util.List;
 
 public interface BraintreeClient {
@@ -57,6 +59,12 @@ public interface BraintreeClient {
 
     Transaction.Status getTransactionStatus(String braintreeTransactionId);
 
+    List<String> searchCustomerIds(Calendar createdFrom, Calendar createdTo) throws BraintreeException;
+
+    List<Customer> getCustomers(List<String> braintreeCustomerIds) throws BraintreeException;
+
+    Customer findOrCreateCustomer(String braintreeCustomerId, @Nullable String firstName, @Nullable String lastName, @Nullable String email, @Nullable String company) throws BraintreeException;
+
     static Transaction getTransactionInstance(final Result<Transaction> result) {
         return result.getTransaction() == null ? result.getTarget() : result.getTransaction();
     }
@@ -25,6 +25,8 @@ import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties.Paym
 
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 public class BraintreeClientImpl implements BraintreeClient {
@@ -251,5 +253,60 @@ public class BraintreeClientImpl implements BraintreeClient {
         return transactionStatus;
     }
 
-}
+    @Override
+    public List<String> searchCustomerIds(Calendar createdFrom, Calendar createdTo) throws BraintreeException {
+        List<String> braintreeCustomerIds;
+        try{
+            CustomerSearchRequest request = new CustomerSearchRequest().createdAt().between(createdFrom, createdTo);
+            braintreeCustomerIds = gateway.customer().search(request).getIds();
+        }
+        catch(Throwable t){
+            throw new BraintreeException("Could not search Braintree customers", t);
+        }
+        return braintreeCustomerIds;
+    }
+
+    @Override
+    public List<Customer> getCustomers(List<String> braintreeCustomerIds) throws BraintreeException {
+        List<Customer> customers = new ArrayList<Customer>(braintreeCustomerIds.size());
+        try{
+            CustomerSearchRequest request = new CustomerSearchRequest().ids().in(braintreeCustomerIds);
+            for (Customer customer : gateway.customer().search(request)) {
+                customers.add(customer);
+            }
+        }
+        catch(Throwable t){
+            throw new BraintreeException("Could not fetch Braintree customers", t);
+        }
+        return customers;
+    }
 
+    @Override
+    public Customer findOrCreateCustomer(String braintreeCustomerId, @Nullable String firstName, @Nullable String lastName, @Nullable String email, @Nullable String company) throws BraintreeException {
+        try{
+            return gateway.customer().find(braintreeCustomerId);
+        }
+        catch (NotFoundException e){
+            // Not provisioned yet
+        }
+        catch(Throwable t){
+            throw new BraintreeException("Could not fetch Braintree customer " + braintreeCustomerId, t);
+        }
+
+        Result<Customer> result;
+        try{
+            CustomerRequest request = new CustomerRequest()
+                    .id(braintreeCustomerId)
+                    .firstName(firstName)
+                    .lastName(lastName)
+                    .email(email)
+                    .company(company);
+            result = gateway.customer().create(request);
+        }
+        catch(Throwable t){
+            throw new BraintreeException("Could not create Braintree customer " + braintreeCustomerId, t);
+        }
+        if(!result.isSuccess()) throw new BraintreeException("Could not create Braintree customer " + braintreeCustomerId + ": " + result.getMessage());
+        return result.getTarget();
+    }
+}
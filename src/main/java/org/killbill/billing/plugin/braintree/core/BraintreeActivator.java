@@ -18,11 +18,16 @@ package org.killbill.billing.plugin.braintree.core;
 
 import java.sql.SQLException;
 import java.util.Hashtable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.servlet.Servlet;
 import javax.servlet.http.HttpServlet;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.flywaydb.core.Flyway;
+import org.joda.time.Period;
 import org.killbill.billing.osgi.api.Healthcheck;
 import org.killbill.billing.osgi.api.OSGIPluginProperties;
 import org.killbill.billing.osgi.libs.killbill.KillbillActivatorBase;
@@ -31,6 +36,8 @@ import org.killbill.billing.plugin.api.notification.PluginConfigurationEventHand
 import org.killbill.billing.plugin.braintree.api.BraintreePaymentPluginApi;
 import org.killbill.billing.plugin.braintree.core.resources.BraintreeHealthcheckServlet;
 import org.killbill.billing.plugin.braintree.core.resources.BraintreeTokenServlet;
+import org.killbill.billing.plugin.braintree.core.resources.BraintreeVaultImportServlet;
+import org.killbill.billing.plugin.braintree.dao.BraintreeAdditionalDataFormat;
 import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
 import org.killbill.billing.plugin.core.config.PluginEnvironmentConfig;
 import org.killbill.billing.plugin.core.resources.jooby.PluginApp;
@@ -46,7 +53,22 @@ public class BraintreeActivator extends KillbillActivatorBase {
 	private static final Logger logger = LoggerFactory.getLogger(BraintreePaymentPluginApi.class);
 	public static final String PLUGIN_NAME = "killbill-braintree";
 
+	private static final int ADDITIONAL_DATA_CONVERSION_BATCH_SIZE = 500;
+	private static final int RESPONSE_ARCHIVE_BATCH_SIZE = 500;
+
 	private BraintreeConfigPropertiesConfigurationHandler braintreeConfigurationHandler;
+	private ExpiredPaymentSweeper expiredPaymentSweeper;
+	private BraintreeCacheInvalidationPoller cacheInvalidationPoller;
+	private BraintreeAdditionalDataConverter additionalDataConverter;
+	private BraintreeResponseArchiver responseArchiver;
+	private BraintreeVaultImporter vaultImporter;
+	private BraintreeClientTokenService clientTokenService;
+	private BraintreeHealthcheck healthcheck;
+	private BraintreeWarmUp warmUp;
+	private BraintreeCustomerProvisioner customerProvisioner;
+	private BraintreeEventExecutor eventExecutor;
+	private HikariDataSource readReplicaDataSource;
+	private ExecutorService paymentMethodSyncExecutor;
 
 	@Override
 	public void start(final BundleContext context) throws Exception {
@@ -63,29 +85,145 @@ public class BraintreeActivator extends KillbillActivatorBase {
 				.createConfigurable(configProperties.getProperties());
 		braintreeConfigurationHandler.setDefaultConfigurable(globalConfiguration);
 
-		final BraintreeDao braintreeDao = new BraintreeDao(dataSource.getDataSource());
-		final PaymentPluginApi paymentPluginApi = new BraintreePaymentPluginApi(braintreeConfigurationHandler,
-				killbillAPI, configProperties, clock.getClock(), braintreeDao);
+		final BraintreeGateways gateways = new BraintreeGateways();
+		// Optional replica for the read-only plugin calls
+		if (globalConfiguration.getReadReplicaUrl() != null) {
+			final HikariConfig readReplicaConfig = new HikariConfig();
+			readReplicaConfig.setPoolName("braintree-read-replica");
+			readReplicaConfig.setJdbcUrl(globalConfiguration.getReadReplicaUrl());
+			readReplicaConfig.setUsername(globalConfiguration.getReadReplicaUser());
+			readReplicaConfig.setPassword(globalConfiguration.getReadReplicaPassword());
+			readReplicaConfig.setMaximumPoolSize(globalConfiguration.getReadReplicaPoolSize());
+			readReplicaConfig.setReadOnly(true);
+			readReplicaDataSource = new HikariDataSource(readReplicaConfig);
+		}
+		final BraintreeDao braintreeDao = new BraintreeDao(dataSource.getDataSource(), readReplicaDataSource, globalConfiguration, clock.getClock());
+		BraintreeCacheMetrics.register(metricRegistry, "payment_methods", braintreeDao.getPaymentMethodsCache().getCache());
+		BraintreeCacheMetrics.register(metricRegistry, "authorization_responses", braintreeDao.getAuthorizationResponsesCache());
+
+		// Apply the cache invalidations published by the other nodes
+		cacheInvalidationPoller = new BraintreeCacheInvalidationPoller(braintreeDao, clock.getClock(),
+				globalConfiguration.getCacheInvalidationRetention());
+		cacheInvalidationPoller.start(globalConfiguration.getCacheInvalidationPollInterval());
+
+		// Pre-generate client tokens for the checkout page
+		clientTokenService = new BraintreeClientTokenService(braintreeConfigurationHandler, gateways, clock.getClock(),
+				globalConfiguration.getClientTokenPoolSize(), globalConfiguration.getClientTokenRefreshInterval(),
+				globalConfiguration.getCustomerClientTokenTtl());
+		clientTokenService.start();
+
+		// Open gateway connections and load caches before taking traffic
+		if (globalConfiguration.isWarmUpEnabled()) {
+			warmUp = new BraintreeWarmUp(braintreeConfigurationHandler, clientTokenService, braintreeDao, clock.getClock(),
+					globalConfiguration.getWarmUpPaymentMethodsPerTenant(), globalConfiguration.getWarmUpTimeBudget());
+			warmUp.registerMetrics(metricRegistry);
+			warmUp.start();
+			braintreeConfigurationHandler.setConfigurationListener(warmUp::warmUpAsync);
+		}
+
+		// Bounds the accounts imported in parallel by all the vault imports
+		if (globalConfiguration.getPaymentMethodSyncThreads() > 1) {
+			paymentMethodSyncExecutor = Executors.newFixedThreadPool(globalConfiguration.getPaymentMethodSyncThreads(), runnable -> {
+				final Thread thread = new Thread(runnable, "braintree-payment-method-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		final BraintreePaymentPluginApi paymentPluginApi = new BraintreePaymentPluginApi(braintreeConfigurationHandler,
+				killbillAPI, configProperties, clock.getClock(), braintreeDao, gateways);
 		registerPaymentPluginApi(context, paymentPluginApi);
 
+		// Admin-triggered import of an existing Braintree vault
+		vaultImporter = new BraintreeVaultImporter(killbillAPI, braintreeConfigurationHandler, gateways, paymentPluginApi, braintreeDao,
+				clock.getClock(), globalConfiguration.getVaultImportWindow(), paymentMethodSyncExecutor);
+
+		// Cancel expired pending payments in the background
+		expiredPaymentSweeper = new ExpiredPaymentSweeper(braintreeConfigurationHandler, braintreeDao, clock.getClock(),
+				globalConfiguration.getExpiredPaymentSweepBatchSize());
+		expiredPaymentSweeper.start(globalConfiguration.getExpiredPaymentSweepInterval());
+
+		// Convert the existing additional data once the compact format is enabled
+		if (BraintreeAdditionalDataFormat.DEFLATE.equals(globalConfiguration.getAdditionalDataFormat())) {
+			additionalDataConverter = new BraintreeAdditionalDataConverter(braintreeDao, ADDITIONAL_DATA_CONVERSION_BATCH_SIZE);
+			additionalDataConverter.start(globalConfiguration.getAdditionalDataConversionInterval());
+		}
+
+		// Keep braintree_responses small by archiving old finalized payments
+		if (!Period.ZERO.equals(globalConfiguration.getResponseArchiveAge())) {
+			responseArchiver = new BraintreeResponseArchiver(braintreeDao, clock.getClock(), globalConfiguration.getResponseArchiveAge(),
+					RESPONSE_ARCHIVE_BATCH_SIZE);
+			responseArchiver.start(globalConfiguration.getResponseArchiveInterval());
+		}
+
 		// Expose a healthcheck, so other plugins can check on the plugin status
-		final Healthcheck healthcheck = new BraintreeHealthcheck(braintreeConfigurationHandler);
+		healthcheck = new BraintreeHealthcheck(braintreeConfigurationHandler, gateways, clock.getClock(),
+				globalConfiguration.getHealthcheckProbeInterval());
+		healthcheck.start();
 		registerHealthcheck(context, healthcheck);
 
 		// Register a servlet
 		final PluginApp pluginApp = new PluginAppBuilder(PLUGIN_NAME, killbillAPI, dataSource, super.clock, configProperties)
 						.withRouteClass(BraintreeTokenServlet.class)
 						.withRouteClass(BraintreeHealthcheckServlet.class).withService(healthcheck)
+						.withRouteClass(BraintreeVaultImportServlet.class).withService(vaultImporter)
 						.withService(braintreeConfigurationHandler)
+						.withService(clientTokenService)
 						.build();
 		final HttpServlet httpServlet = PluginApp.createServlet(pluginApp);
 		registerServlet(context, httpServlet);
 
+		// Create Braintree customers ahead of the first checkout
+		if (globalConfiguration.isCustomerProvisioningEnabled()) {
+			customerProvisioner = new BraintreeCustomerProvisioner(killbillAPI, braintreeConfigurationHandler, gateways, clock.getClock(),
+					globalConfiguration.getCustomerProvisioningQueueSize(), globalConfiguration.getCustomerProvisioningMaxRetries(),
+					globalConfiguration.getCustomerProvisioningRetryDelay());
+			// Bus events are processed off the bus thread
+			eventExecutor = new BraintreeEventExecutor(globalConfiguration.getEventThreads(), globalConfiguration.getEventQueueSize());
+			eventExecutor.registerMetrics(metricRegistry);
+		}
+
 		registerHandlers();
 	}
 
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		if (warmUp != null) {
+			warmUp.stop();
+		}
+		if (expiredPaymentSweeper != null) {
+			expiredPaymentSweeper.stop();
+		}
+		if (cacheInvalidationPoller != null) {
+			cacheInvalidationPoller.stop();
+		}
+		if (additionalDataConverter != null) {
+			additionalDataConverter.stop();
+		}
+		if (responseArchiver != null) {
+			responseArchiver.stop();
+		}
+		if (vaultImporter != null) {
+			vaultImporter.stop();
+		}
+		if (clientTokenService != null) {
+			clientTokenService.stop();
+		}
+		if (healthcheck != null) {
+			healthcheck.stop();
+		}
+		if (eventExecutor != null) {
+			eventExecutor.stop();
+		}
+		if (customerProvisioner != null) {
+			customerProvisioner.stop();
+		}
+		if (paymentMethodSyncExecutor != null) {
+			paymentMethodSyncExecutor.shutdownNow();
+		}
+		if (readReplicaDataSource != null) {
+			readReplicaDataSource.close();
+		}
 		super.stop(context);
 	}
 
@@ -93,7 +231,11 @@ public class BraintreeActivator extends KillbillActivatorBase {
 		final PluginConfigurationEventHandler configHandler = new PluginConfigurationEventHandler(
 				braintreeConfigurationHandler);
 
-		dispatcher.registerEventHandlers(configHandler);
+		if (customerProvisioner != null) {
+			dispatcher.registerEventHandlers(configHandler, new BraintreeListener(killbillAPI, customerProvisioner, eventExecutor));
+		} else {
+			dispatcher.registerEventHandlers(configHandler);
+		}
 	}
 
 	private void registerServlet(final BundleContext context, final Servlet servlet) {
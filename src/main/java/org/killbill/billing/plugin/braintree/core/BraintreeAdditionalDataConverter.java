@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Iterables;
+import org.joda.time.Period;
+import org.jooq.types.ULong;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the JSON additional_data values (written before the deflate format was enabled, or by nodes not yet configured)
+ * in the configured format. Each run resumes after the last converted row, so only new rows are scanned once the backlog is done.
+ */
+public class BraintreeAdditionalDataConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeAdditionalDataConverter.class);
+
+    private final BraintreeDao dao;
+    private final int batchSize;
+
+    private ULong lastResponseRecordId = ULong.valueOf(0);
+    private ULong lastPaymentMethodRecordId = ULong.valueOf(0);
+    private ScheduledExecutorService executor;
+
+    public BraintreeAdditionalDataConverter(final BraintreeDao dao, final int batchSize) {
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void start(final Period interval) {
+        final long intervalMillis = interval.toStandardDuration().getMillis();
+        if (intervalMillis <= 0) {
+            logger.info("Additional data converter is disabled");
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-additional-data-converter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                final int converted = convert();
+                if (converted > 0) {
+                    logger.info("Converted the additional data of {} rows", converted);
+                }
+            } catch (final SQLException | RuntimeException e) {
+                logger.warn("Unable to convert additional data", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized int convert() throws SQLException {
+        int converted = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            final List<BraintreeResponsesRecord> responses = dao.getResponsesWithJsonAdditionalData(lastResponseRecordId, batchSize);
+            if (responses.isEmpty()) {
+                break;
+            }
+            converted += dao.convertResponsesAdditionalData(responses);
+            lastResponseRecordId = Iterables.getLast(responses).getRecordId();
+        }
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final List<BraintreePaymentMethodsRecord> paymentMethods = dao.getPaymentMethodsWithJsonAdditionalData(lastPaymentMethodRecordId, batchSize);
+            if (paymentMethods.isEmpty()) {
+                break;
+            }
+            converted += dao.convertPaymentMethodsAdditionalData(paymentMethods);
+            lastPaymentMethodRecordId = Iterables.getLast(paymentMethods).getRecordId();
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Iterables;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+import org.jooq.types.ULong;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeCacheInvalidationsRecord;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the cache invalidations published by the other nodes (braintree_cache_invalidations) and prunes the old ones.
+ * Record ids aren't committed in order, so each poll reads again the rows created within an overlap window before the previous poll,
+ * skipping the ones already applied. Best effort: missed invalidations are still bounded by the cache TTLs.
+ */
+public class BraintreeCacheInvalidationPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeCacheInvalidationPoller.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Longer than the publishing transactions, plus some clock skew between the nodes
+    private static final long OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final BraintreeDao dao;
+    private final Clock clock;
+    private final Period retention;
+
+    private ScheduledExecutorService executor;
+    private DateTime lastPollDate;
+    // Invalidations of the current overlap window already applied
+    private Set<ULong> appliedRecordIds = new HashSet<ULong>();
+    private long lastPruneMillis;
+
+    public BraintreeCacheInvalidationPoller(final BraintreeDao dao, final Clock clock, final Period retention) {
+        this.dao = dao;
+        this.clock = clock;
+        this.retention = retention;
+    }
+
+    public synchronized void start(final Period interval) throws SQLException {
+        final long intervalMillis = interval.toStandardDuration().getMillis();
+        if (intervalMillis <= 0) {
+            logger.info("Cross-node cache invalidation is disabled");
+            return;
+        }
+
+        // Local caches are empty, older invalidations don't matter
+        lastPollDate = clock.getUTCNow();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-cache-invalidation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (final SQLException | RuntimeException e) {
+                logger.warn("Unable to poll cache invalidations", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized int poll() throws SQLException {
+        final DateTime now = clock.getUTCNow();
+        final DateTime createdSince = (lastPollDate == null ? now : lastPollDate).minus(OVERLAP_MILLIS);
+
+        // The next window starts after this one: only its record ids need to be remembered
+        final Set<ULong> windowRecordIds = new HashSet<ULong>();
+        int applied = 0;
+        ULong afterRecordId = ULong.valueOf(0);
+        while (true) {
+            final List<BraintreeCacheInvalidationsRecord> cacheInvalidations = dao.getCacheInvalidations(createdSince, afterRecordId, BATCH_SIZE);
+            for (final BraintreeCacheInvalidationsRecord cacheInvalidation : cacheInvalidations) {
+                windowRecordIds.add(cacheInvalidation.getRecordId());
+                if (!appliedRecordIds.contains(cacheInvalidation.getRecordId())) {
+                    dao.applyCacheInvalidation(cacheInvalidation);
+                    applied++;
+                }
+            }
+
+            if (cacheInvalidations.size() < BATCH_SIZE) {
+                break;
+            }
+            afterRecordId = Iterables.getLast(cacheInvalidations).getRecordId();
+        }
+        appliedRecordIds = windowRecordIds;
+        lastPollDate = now;
+
+        if (now.getMillis() - lastPruneMillis >= PRUNE_INTERVAL_MILLIS) {
+            lastPruneMillis = now.getMillis();
+            dao.deleteCacheInvalidationsCreatedBefore(now.minus(retention));
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import com.google.common.cache.Cache;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
+
+/**
+ * Exposes the Guava cache statistics as Kill Bill gauges (killbill-braintree.cache.&lt;name&gt;.*)
+ */
+public abstract class BraintreeCacheMetrics {
+
+    private static final String PREFIX = BraintreeActivator.PLUGIN_NAME + ".cache.";
+
+    public static void register(final MetricRegistry metricRegistry, final String name, final Cache<?, ?> cache) {
+        if (metricRegistry == null) {
+            return;
+        }
+
+        metricRegistry.gauge(PREFIX + name + ".size", (Gauge<Long>) cache::size);
+        metricRegistry.gauge(PREFIX + name + ".hitCount", (Gauge<Long>) () -> cache.stats().hitCount());
+        metricRegistry.gauge(PREFIX + name + ".missCount", (Gauge<Long>) () -> cache.stats().missCount());
+        metricRegistry.gauge(PREFIX + name + ".hitRate", (Gauge<Double>) () -> cache.stats().hitRate());
+        metricRegistry.gauge(PREFIX + name + ".evictionCount", (Gauge<Long>) () -> cache.stats().evictionCount());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.braintreegateway.ClientTokenRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.joda.time.Period;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves Braintree client tokens without a gateway round trip on the request path:
+ * generic tokens come from a per-tenant pool which is regenerated in the background before the tokens expire,
+ * customer-specific tokens are cached for a short period.
+ */
+public class BraintreeClientTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeClientTokenService.class);
+
+    private static final long REFRESH_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeGateways gateways;
+    private final Clock clock;
+    private final int poolSize;
+    private final long refreshIntervalMillis;
+    private final Map<String, TokenPool> pools = new ConcurrentHashMap<String, TokenPool>();
+    @Nullable
+    private final Cache<String, String> customerTokens;
+
+    private ScheduledExecutorService executor;
+
+    public BraintreeClientTokenService(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                       final BraintreeGateways gateways,
+                                       final Clock clock,
+                                       final int poolSize,
+                                       final Period refreshInterval,
+                                       final Period customerTokenTtl) {
+        this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.gateways = gateways;
+        this.clock = clock;
+        this.poolSize = poolSize;
+        this.refreshIntervalMillis = refreshInterval.toStandardDuration().getMillis();
+
+        final long customerTokenTtlMillis = customerTokenTtl.toStandardDuration().getMillis();
+        this.customerTokens = customerTokenTtlMillis <= 0 ? null : CacheBuilder.newBuilder()
+                                                                               .expireAfterWrite(customerTokenTtlMillis, TimeUnit.MILLISECONDS)
+                                                                               .build();
+    }
+
+    public synchronized void start() {
+        if (poolSize <= 0) {
+            logger.info("Client token pool is disabled");
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-client-token-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                refreshPools();
+            } catch (final RuntimeException e) {
+                logger.warn("Unable to refresh client tokens", e);
+            }
+        }, REFRESH_CHECK_INTERVAL_MILLIS, REFRESH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        pools.clear();
+    }
+
+    public String getClientToken(@Nullable final UUID kbTenantId) {
+        final BraintreeConfigProperties config = braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId);
+        if (poolSize <= 0) {
+            return generate(config, null);
+        }
+
+        final TokenPool pool = pools.get(String.valueOf(kbTenantId));
+        // Tenant configuration changes invalidate the pool
+        if (pool != null && pool.config == config) {
+            return pool.next();
+        }
+
+        // First request for this tenant: serve a fresh token and fill the pool in the background
+        final String token = generate(config, null);
+        pools.put(String.valueOf(kbTenantId), new TokenPool(kbTenantId, config, ImmutableList.of(token), clock.getUTCNow().getMillis()));
+        submitRefresh(kbTenantId);
+        return token;
+    }
+
+    public String getClientToken(@Nullable final UUID kbTenantId, final String customerId) {
+        final BraintreeConfigProperties config = braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId);
+        if (customerTokens == null) {
+            return generate(config, customerId);
+        }
+
+        try {
+            return customerTokens.get(kbTenantId + "/" + customerId, () -> generate(config, customerId));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    void refreshPools() {
+        final long now = clock.getUTCNow().getMillis();
+        for (final TokenPool pool : pools.values()) {
+            if (pool.tokens.size() < poolSize || now - pool.generatedMillis >= refreshIntervalMillis) {
+                refresh(pool.kbTenantId);
+            }
+        }
+    }
+
+    private synchronized void submitRefresh(@Nullable final UUID kbTenantId) {
+        if (executor != null) {
+            executor.submit(() -> refresh(kbTenantId));
+        }
+    }
+
+    private void refresh(@Nullable final UUID kbTenantId) {
+        try {
+            final BraintreeConfigProperties config = braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId);
+            final ImmutableList.Builder<String> tokens = ImmutableList.builder();
+            for (int i = 0; i < poolSize; i++) {
+                tokens.add(generate(config, null));
+            }
+            pools.put(String.valueOf(kbTenantId), new TokenPool(kbTenantId, config, tokens.build(), clock.getUTCNow().getMillis()));
+        } catch (final RuntimeException e) {
+            // Keep serving the current tokens, the next check will retry
+            logger.warn("Unable to generate client tokens for tenant {}", kbTenantId, e);
+        }
+    }
+
+    private String generate(final BraintreeConfigProperties config, @Nullable final String customerId) {
+        if (customerId == null) {
+            return gateways.getGateway(config).clientToken().generate();
+        } else {
+            return gateways.getGateway(config).clientToken().generate(new ClientTokenRequest().customerId(customerId));
+        }
+    }
+
+    private static final class TokenPool {
+
+        private final UUID kbTenantId;
+        private final BraintreeConfigProperties config;
+        private final List<String> tokens;
+        private final long generatedMillis;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private TokenPool(@Nullable final UUID kbTenantId, final BraintreeConfigProperties config, final List<String> tokens, final long generatedMillis) {
+            this.kbTenantId = kbTenantId;
+            this.config = config;
+            this.tokens = tokens;
+            this.generatedMillis = generatedMillis;
+        }
+
+        private String next() {
+            return tokens.get(Math.floorMod(next.getAndIncrement(), tokens.size()));
+        }
+    }
+}
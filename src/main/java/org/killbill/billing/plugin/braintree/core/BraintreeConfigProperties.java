@@ -16,17 +16,27 @@
 
 package org.killbill.billing.plugin.braintree.core;
 
+import com.braintreegateway.Environment;
 import com.google.common.base.Ascii;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.joda.time.Period;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
+/**
+ * Immutable snapshot of the plugin configuration: everything is resolved (environment variables included)
+ * and parsed once, when the configuration is loaded, so the request path only reads final fields.
+ */
 public class BraintreeConfigProperties {
 	
 	private static final String PROPERTY_PREFIX = "org.killbill.billing.plugin.braintree.";
@@ -37,38 +47,152 @@ public class BraintreeConfigProperties {
 	public static final String BRAINTREE_PRIVATE_KEY = "BRAINTREE_PRIVATE_KEY";
 
 	public static final String DEFAULT_PENDING_PAYMENT_EXPIRATION_PERIOD = "P3d";
+	public static final String DEFAULT_MIN_REFRESH_INTERVAL = "PT0S";
 
 	private static final String ENTRY_DELIMITER = "|";
 	private static final String KEY_VALUE_DELIMITER = "#";
+	private static final String LIST_DELIMITER = ",";
 	private static final String DEFAULT_CONNECTION_TIMEOUT = "30000";
 	private static final String DEFAULT_READ_TIMEOUT = "60000";
 	private static final String DEFAULT_RUN_MIGRATIONS = "true";
+	private static final String DEFAULT_EXPIRED_PAYMENT_SWEEP_INTERVAL = "PT5M";
+	private static final String DEFAULT_EXPIRED_PAYMENT_SWEEP_BATCH_SIZE = "100";
+	private static final String DEFAULT_PAYMENT_METHOD_CACHE_MAX_SIZE = "10000";
+	private static final String DEFAULT_PAYMENT_METHOD_CACHE_TTL = "PT10M";
+	private static final String DEFAULT_AUTHORIZATION_CACHE_MAX_SIZE = "10000";
+	private static final String DEFAULT_AUTHORIZATION_CACHE_TTL = "PT5M";
+	private static final String DEFAULT_CLIENT_TOKEN_POOL_SIZE = "5";
+	// Braintree client tokens are valid for 24 hours
+	private static final String DEFAULT_CLIENT_TOKEN_REFRESH_INTERVAL = "PT12H";
+	private static final String DEFAULT_CUSTOMER_CLIENT_TOKEN_TTL = "PT5M";
+	private static final String DEFAULT_HEALTHCHECK_PROBE_INTERVAL = "PT30S";
+	private static final String DEFAULT_WARM_UP_ENABLED = "false";
+	private static final String DEFAULT_WARM_UP_TIME_BUDGET = "PT30S";
+	private static final String DEFAULT_WARM_UP_PAYMENT_METHODS_PER_TENANT = "1000";
+	private static final String DEFAULT_CUSTOMER_PROVISIONING_ENABLED = "false";
+	private static final String DEFAULT_CUSTOMER_PROVISIONING_QUEUE_SIZE = "1000";
+	private static final String DEFAULT_CUSTOMER_PROVISIONING_MAX_RETRIES = "3";
+	private static final String DEFAULT_CUSTOMER_PROVISIONING_RETRY_DELAY = "PT10S";
+	private static final String DEFAULT_EVENT_THREADS = "4";
+	private static final String DEFAULT_EVENT_QUEUE_SIZE = "10000";
+	private static final String DEFAULT_CACHE_INVALIDATION_POLL_INTERVAL = "PT5S";
+	private static final String DEFAULT_CACHE_INVALIDATION_RETENTION = "PT1H";
+	private static final String DEFAULT_PAYMENT_METHOD_SYNC_THREADS = "4";
+	private static final String DEFAULT_VAULT_IMPORT_WINDOW = "P7D";
+	private static final String DEFAULT_ADDITIONAL_DATA_FORMAT = "json";
+	private static final String DEFAULT_ADDITIONAL_DATA_CONVERSION_INTERVAL = "PT1M";
+	private static final String DEFAULT_RESPONSE_ARCHIVE_AGE = "P0D";
+	private static final String DEFAULT_RESPONSE_ARCHIVE_INTERVAL = "PT1H";
+	private static final String DEFAULT_READ_REPLICA_POOL_SIZE = "10";
+	private static final String DEFAULT_READ_REPLICA_MAX_LAG = "PT5S";
 
 	private final String region;
-    private final String btEnvironment;
-    private final String btMerchantId;
-    private final String btPublicKey;
-    private final String btPrivateKey;
+	private final String btEnvironment;
+	private final Environment environment;
+	private final String btMerchantId;
+	private final String btPublicKey;
+	private final String btPrivateKey;
 	private final String connectionTimeout;
 	private final String readTimeout;
 	private final Period pendingPaymentExpirationPeriod;
-	private final Map<String, Period> paymentMethodToExpirationPeriod = new LinkedHashMap<String, Period>();
+	private final Map<String, Period> paymentMethodToExpirationPeriod;
+	private final Period minRefreshInterval;
+	private final Map<String, Period> paymentMethodToMinRefreshInterval;
+	private final List<Period> pendingPaymentPollingSchedule;
+	private final Map<String, List<Period>> paymentMethodToPollingSchedule;
 	private final String chargeDescription;
 	private final String chargeStatementDescriptor;
 	private final boolean runMigrations;
+	private final Period expiredPaymentSweepInterval;
+	private final int expiredPaymentSweepBatchSize;
+	private final int paymentMethodCacheMaxSize;
+	private final Period paymentMethodCacheTtl;
+	private final int authorizationCacheMaxSize;
+	private final Period authorizationCacheTtl;
+	private final int clientTokenPoolSize;
+	private final Period clientTokenRefreshInterval;
+	private final Period customerClientTokenTtl;
+	private final Period healthcheckProbeInterval;
+	private final boolean warmUpEnabled;
+	private final Period warmUpTimeBudget;
+	private final int warmUpPaymentMethodsPerTenant;
+	private final boolean customerProvisioningEnabled;
+	private final int customerProvisioningQueueSize;
+	private final int customerProvisioningMaxRetries;
+	private final Period customerProvisioningRetryDelay;
+	private final int eventThreads;
+	private final int eventQueueSize;
+	private final Period cacheInvalidationPollInterval;
+	private final Period cacheInvalidationRetention;
+	private final int paymentMethodSyncThreads;
+	private final Period vaultImportWindow;
+	private final String additionalDataFormat;
+	private final Period additionalDataConversionInterval;
+	private final Period responseArchiveAge;
+	private final Period responseArchiveInterval;
+	private final String readReplicaUrl;
+	private final String readReplicaUser;
+	private final String readReplicaPassword;
+	private final int readReplicaPoolSize;
+	private final Period readReplicaMaxLag;
+	private final Set<String> paymentMethodFields;
 
 	public BraintreeConfigProperties(final Properties properties, final String region) {
 		this.region = region;
-		this.btEnvironment = properties.getProperty(PROPERTY_PREFIX + "btEnvironment", "sandbox");
-		this.btMerchantId = properties.getProperty(PROPERTY_PREFIX + "btMerchantId");
-		this.btPublicKey = properties.getProperty(PROPERTY_PREFIX + "btPublicKey");
-		this.btPrivateKey = properties.getProperty(PROPERTY_PREFIX + "btPrivateKey");
+		this.btEnvironment = resolve(properties.getProperty(PROPERTY_PREFIX + "btEnvironment", "sandbox"), BRAINTREE_ENVIRONMENT_KEY);
+		this.environment = parseEnvironment(btEnvironment);
+		this.btMerchantId = resolve(properties.getProperty(PROPERTY_PREFIX + "btMerchantId"), BRAINTREE_MERCHANT_ID_KEY);
+		this.btPublicKey = resolve(properties.getProperty(PROPERTY_PREFIX + "btPublicKey"), BRAINTREE_PUBLIC_KEY);
+		this.btPrivateKey = resolve(properties.getProperty(PROPERTY_PREFIX + "btPrivateKey"), BRAINTREE_PRIVATE_KEY);
 		this.connectionTimeout = properties.getProperty(PROPERTY_PREFIX + "connectionTimeout", DEFAULT_CONNECTION_TIMEOUT);
 		this.readTimeout = properties.getProperty(PROPERTY_PREFIX + "readTimeout", DEFAULT_READ_TIMEOUT);
-		this.pendingPaymentExpirationPeriod = readPendingExpirationProperty(properties);
+
+		final Map<String, Period> expirationPeriodOverrides = new LinkedHashMap<String, Period>();
+		this.pendingPaymentExpirationPeriod = readPerPaymentMethodPeriodProperty(properties, "pendingPaymentExpirationPeriod", DEFAULT_PENDING_PAYMENT_EXPIRATION_PERIOD, expirationPeriodOverrides);
+		this.paymentMethodToExpirationPeriod = ImmutableMap.copyOf(expirationPeriodOverrides);
+		final Map<String, Period> minRefreshIntervalOverrides = new LinkedHashMap<String, Period>();
+		this.minRefreshInterval = readPerPaymentMethodPeriodProperty(properties, "minRefreshInterval", DEFAULT_MIN_REFRESH_INTERVAL, minRefreshIntervalOverrides);
+		this.paymentMethodToMinRefreshInterval = ImmutableMap.copyOf(minRefreshIntervalOverrides);
+		final Map<String, List<Period>> pollingScheduleOverrides = new LinkedHashMap<String, List<Period>>();
+		this.pendingPaymentPollingSchedule = readPollingScheduleProperty(properties, pollingScheduleOverrides);
+		this.paymentMethodToPollingSchedule = ImmutableMap.copyOf(pollingScheduleOverrides);
+
 		this.chargeDescription = Ascii.truncate(MoreObjects.firstNonNull(properties.getProperty(PROPERTY_PREFIX + "chargeDescription"), "Kill Bill charge"), 22, "...");
 		this.chargeStatementDescriptor = Ascii.truncate(MoreObjects.firstNonNull(properties.getProperty(PROPERTY_PREFIX + "chargeStatementDescriptor"), "Kill Bill charge"), 22, "...");
 		this.runMigrations = Boolean.parseBoolean(properties.getProperty(PROPERTY_PREFIX + "runMigrations", DEFAULT_RUN_MIGRATIONS));
+		this.expiredPaymentSweepInterval = readPeriodProperty(properties, "expiredPaymentSweepInterval", DEFAULT_EXPIRED_PAYMENT_SWEEP_INTERVAL);
+		this.expiredPaymentSweepBatchSize = readIntProperty(properties, "expiredPaymentSweepBatchSize", DEFAULT_EXPIRED_PAYMENT_SWEEP_BATCH_SIZE);
+		this.paymentMethodCacheMaxSize = readIntProperty(properties, "paymentMethodCacheMaxSize", DEFAULT_PAYMENT_METHOD_CACHE_MAX_SIZE);
+		this.paymentMethodCacheTtl = readPeriodProperty(properties, "paymentMethodCacheTtl", DEFAULT_PAYMENT_METHOD_CACHE_TTL);
+		this.authorizationCacheMaxSize = readIntProperty(properties, "authorizationCacheMaxSize", DEFAULT_AUTHORIZATION_CACHE_MAX_SIZE);
+		this.authorizationCacheTtl = readPeriodProperty(properties, "authorizationCacheTtl", DEFAULT_AUTHORIZATION_CACHE_TTL);
+		this.clientTokenPoolSize = readIntProperty(properties, "clientTokenPoolSize", DEFAULT_CLIENT_TOKEN_POOL_SIZE);
+		this.clientTokenRefreshInterval = readPeriodProperty(properties, "clientTokenRefreshInterval", DEFAULT_CLIENT_TOKEN_REFRESH_INTERVAL);
+		this.customerClientTokenTtl = readPeriodProperty(properties, "customerClientTokenTtl", DEFAULT_CUSTOMER_CLIENT_TOKEN_TTL);
+		this.healthcheckProbeInterval = readPeriodProperty(properties, "healthcheckProbeInterval", DEFAULT_HEALTHCHECK_PROBE_INTERVAL);
+		this.warmUpEnabled = Boolean.parseBoolean(properties.getProperty(PROPERTY_PREFIX + "warmUpEnabled", DEFAULT_WARM_UP_ENABLED));
+		this.warmUpTimeBudget = readPeriodProperty(properties, "warmUpTimeBudget", DEFAULT_WARM_UP_TIME_BUDGET);
+		this.warmUpPaymentMethodsPerTenant = readIntProperty(properties, "warmUpPaymentMethodsPerTenant", DEFAULT_WARM_UP_PAYMENT_METHODS_PER_TENANT);
+		this.customerProvisioningEnabled = Boolean.parseBoolean(properties.getProperty(PROPERTY_PREFIX + "customerProvisioningEnabled", DEFAULT_CUSTOMER_PROVISIONING_ENABLED));
+		this.customerProvisioningQueueSize = readIntProperty(properties, "customerProvisioningQueueSize", DEFAULT_CUSTOMER_PROVISIONING_QUEUE_SIZE);
+		this.customerProvisioningMaxRetries = readIntProperty(properties, "customerProvisioningMaxRetries", DEFAULT_CUSTOMER_PROVISIONING_MAX_RETRIES);
+		this.customerProvisioningRetryDelay = readPeriodProperty(properties, "customerProvisioningRetryDelay", DEFAULT_CUSTOMER_PROVISIONING_RETRY_DELAY);
+		this.eventThreads = readIntProperty(properties, "eventThreads", DEFAULT_EVENT_THREADS);
+		this.eventQueueSize = readIntProperty(properties, "eventQueueSize", DEFAULT_EVENT_QUEUE_SIZE);
+		this.cacheInvalidationPollInterval = readPeriodProperty(properties, "cacheInvalidationPollInterval", DEFAULT_CACHE_INVALIDATION_POLL_INTERVAL);
+		this.cacheInvalidationRetention = readPeriodProperty(properties, "cacheInvalidationRetention", DEFAULT_CACHE_INVALIDATION_RETENTION);
+		this.paymentMethodSyncThreads = readIntProperty(properties, "paymentMethodSyncThreads", DEFAULT_PAYMENT_METHOD_SYNC_THREADS);
+		this.vaultImportWindow = readPeriodProperty(properties, "vaultImportWindow", DEFAULT_VAULT_IMPORT_WINDOW);
+		this.additionalDataFormat = properties.getProperty(PROPERTY_PREFIX + "additionalDataFormat", DEFAULT_ADDITIONAL_DATA_FORMAT).toLowerCase();
+		this.additionalDataConversionInterval = readPeriodProperty(properties, "additionalDataConversionInterval", DEFAULT_ADDITIONAL_DATA_CONVERSION_INTERVAL);
+		this.responseArchiveAge = readPeriodProperty(properties, "responseArchiveAge", DEFAULT_RESPONSE_ARCHIVE_AGE);
+		this.responseArchiveInterval = readPeriodProperty(properties, "responseArchiveInterval", DEFAULT_RESPONSE_ARCHIVE_INTERVAL);
+		this.readReplicaUrl = Strings.emptyToNull(properties.getProperty(PROPERTY_PREFIX + "readReplicaUrl"));
+		this.readReplicaUser = properties.getProperty(PROPERTY_PREFIX + "readReplicaUser");
+		this.readReplicaPassword = properties.getProperty(PROPERTY_PREFIX + "readReplicaPassword");
+		this.readReplicaPoolSize = readIntProperty(properties, "readReplicaPoolSize", DEFAULT_READ_REPLICA_POOL_SIZE);
+		this.readReplicaMaxLag = readPeriodProperty(properties, "readReplicaMaxLag", DEFAULT_READ_REPLICA_MAX_LAG);
+		this.paymentMethodFields = readSetProperty(properties, "paymentMethodFields");
 	}
 
 	public String getRegion() {
@@ -76,30 +200,31 @@ public class BraintreeConfigProperties {
 	}
 
 	public String getBtEnvironment() {
-		if (btEnvironment == null || btEnvironment.isEmpty()) {
-			return getClient(BRAINTREE_ENVIRONMENT_KEY, null);
-		}
 		return btEnvironment;
 	}
 
-	public String getBtMerchantId() {
-		if (btMerchantId == null || btMerchantId.isEmpty()) {
-			return getClient(BRAINTREE_MERCHANT_ID_KEY, null);
+	/**
+	 * Parsed {@link #getBtEnvironment()}
+	 *
+	 * @throws IllegalArgumentException if the environment is missing or unknown
+	 */
+	public Environment getEnvironment() {
+		if (environment == null) {
+			// Surface the original error
+			return Environment.parseEnvironment(btEnvironment);
 		}
+		return environment;
+	}
+
+	public String getBtMerchantId() {
 		return btMerchantId;
 	}
 
 	public String getBtPublicKey() {
-		if (btPublicKey == null || btPublicKey.isEmpty()) {
-			return getClient(BRAINTREE_PUBLIC_KEY, null);
-		}
 		return btPublicKey;
 	}
 
 	public String getBtPrivateKey() {
-		if (btPrivateKey == null || btPrivateKey.isEmpty()) {
-			return getClient(BRAINTREE_PRIVATE_KEY, null);
-		}
 		return btPrivateKey;
 	}
 
@@ -123,41 +248,324 @@ public class BraintreeConfigProperties {
 		return runMigrations;
 	}
 
+	/**
+	 * How often pending payments past their expiration period are canceled (global setting, {@code PT0S} disables the sweeper)
+	 */
+	public Period getExpiredPaymentSweepInterval() {
+		return expiredPaymentSweepInterval;
+	}
+
+	public int getExpiredPaymentSweepBatchSize() {
+		return expiredPaymentSweepBatchSize;
+	}
+
+	public int getPaymentMethodCacheMaxSize() {
+		return paymentMethodCacheMaxSize;
+	}
+
+	public Period getPaymentMethodCacheTtl() {
+		return paymentMethodCacheTtl;
+	}
+
+	public int getAuthorizationCacheMaxSize() {
+		return authorizationCacheMaxSize;
+	}
+
+	public Period getAuthorizationCacheTtl() {
+		return authorizationCacheTtl;
+	}
+
+	/**
+	 * Number of generic client tokens pre-generated per tenant ({@code 0} generates a token per request)
+	 */
+	public int getClientTokenPoolSize() {
+		return clientTokenPoolSize;
+	}
+
+	public Period getClientTokenRefreshInterval() {
+		return clientTokenRefreshInterval;
+	}
+
+	public Period getCustomerClientTokenTtl() {
+		return customerClientTokenTtl;
+	}
+
+	/**
+	 * How often tenants are probed in the background by the healthcheck (global setting, {@code PT0S} probes on each healthcheck)
+	 */
+	public Period getHealthcheckProbeInterval() {
+		return healthcheckProbeInterval;
+	}
+
+	public boolean isWarmUpEnabled() {
+		return warmUpEnabled;
+	}
+
+	/**
+	 * How long activation waits for the warm-up to complete
+	 */
+	public Period getWarmUpTimeBudget() {
+		return warmUpTimeBudget;
+	}
+
+	public int getWarmUpPaymentMethodsPerTenant() {
+		return warmUpPaymentMethodsPerTenant;
+	}
+
+	/**
+	 * Whether the Braintree customer is created in the background on ACCOUNT_CREATION
+	 */
+	public boolean isCustomerProvisioningEnabled() {
+		return customerProvisioningEnabled;
+	}
+
+	public int getCustomerProvisioningQueueSize() {
+		return customerProvisioningQueueSize;
+	}
+
+	public int getCustomerProvisioningMaxRetries() {
+		return customerProvisioningMaxRetries;
+	}
+
+	/**
+	 * Delay before the first retry, doubled for each subsequent one
+	 */
+	public Period getCustomerProvisioningRetryDelay() {
+		return customerProvisioningRetryDelay;
+	}
+
+	/**
+	 * Number of threads processing bus events (events of a given account are always processed by the same thread)
+	 */
+	public int getEventThreads() {
+		return eventThreads;
+	}
+
+	/**
+	 * Maximum number of bus events waiting to be processed, across all the event threads
+	 */
+	public int getEventQueueSize() {
+		return eventQueueSize;
+	}
+
+	/**
+	 * How often cache invalidations from other nodes are applied (PT0S disables cross-node invalidation)
+	 */
+	public Period getCacheInvalidationPollInterval() {
+		return cacheInvalidationPollInterval;
+	}
+
+	public Period getCacheInvalidationRetention() {
+		return cacheInvalidationRetention;
+	}
+
+	/**
+	 * Maximum number of accounts whose payment methods are imported in parallel by vault imports, across all the tenants
+	 * (read from the global configuration at startup, a tenant can only disable parallelism by setting it to 1)
+	 */
+	public int getPaymentMethodSyncThreads() {
+		return paymentMethodSyncThreads;
+	}
+
+	/**
+	 * Customer creation date range searched at once by the vault import (Braintree searches return at most 50,000 results)
+	 */
+	public Period getVaultImportWindow() {
+		return vaultImportWindow;
+	}
+
+	/**
+	 * Storage format of new additional_data values: json (default) or deflate (compressed JSON).
+	 * Both formats are always readable.
+	 */
+	public String getAdditionalDataFormat() {
+		return additionalDataFormat;
+	}
+
+	/**
+	 * How often existing JSON additional_data values are converted when the deflate format is enabled (PT0S disables the conversion)
+	 */
+	public Period getAdditionalDataConversionInterval() {
+		return additionalDataConversionInterval;
+	}
+
+	/**
+	 * Age after which finalized payments are moved to braintree_responses_archive (P0D, the default, disables the archival)
+	 */
+	public Period getResponseArchiveAge() {
+		return responseArchiveAge;
+	}
+
+	/**
+	 * How often finalized payments are archived
+	 */
+	public Period getResponseArchiveInterval() {
+		return responseArchiveInterval;
+	}
+
+	/**
+	 * JDBC URL of the read replica serving the read-only plugin calls (not set by default: everything goes to the primary)
+	 */
+	@Nullable
+	public String getReadReplicaUrl() {
+		return readReplicaUrl;
+	}
+
+	@Nullable
+	public String getReadReplicaUser() {
+		return readReplicaUser;
+	}
+
+	@Nullable
+	public String getReadReplicaPassword() {
+		return readReplicaPassword;
+	}
+
+	public int getReadReplicaPoolSize() {
+		return readReplicaPoolSize;
+	}
+
+	/**
+	 * How long the payments and payment methods of an account are read from the primary after this node wrote them
+	 */
+	public Period getReadReplicaMaxLag() {
+		return readReplicaMaxLag;
+	}
+
+	/**
+	 * Payment method attributes stored and returned as plugin properties, e.g. {@code bt_customer_id,card_type,last4,expiration_month,expiration_year}.
+	 * Empty (default) when all attributes are kept.
+	 */
+	public Set<String> getPaymentMethodFields() {
+		return paymentMethodFields;
+	}
+
 	public static boolean shouldRunMigrations(final Properties properties) {
 		return Boolean.parseBoolean(properties.getProperty(PROPERTY_PREFIX + "runMigrations", DEFAULT_RUN_MIGRATIONS));
 	}
 
 	public Period getPendingPaymentExpirationPeriod(@Nullable final String paymentMethod) {
-		if (paymentMethod != null && paymentMethodToExpirationPeriod.get(paymentMethod.toLowerCase()) != null) {
-			return paymentMethodToExpirationPeriod.get(paymentMethod.toLowerCase());
+		return getPerPaymentMethodPeriod(paymentMethod, paymentMethodToExpirationPeriod, pendingPaymentExpirationPeriod);
+	}
+
+	public Collection<Period> getPendingPaymentExpirationPeriods() {
+		return paymentMethodToExpirationPeriod.values();
+	}
+
+	/**
+	 * Minimum time between two Braintree status lookups for the same non-final transaction
+	 * (overridable per payment instrument type, e.g. {@code credit_card#PT10S|us_bank_account#PT1H}).
+	 */
+	public Period getMinRefreshInterval(@Nullable final String paymentMethod) {
+		return getPerPaymentMethodPeriod(paymentMethod, paymentMethodToMinRefreshInterval, minRefreshInterval);
+	}
+
+	/**
+	 * Delays between two Braintree status lookups for the same non-final transaction, indexed by the number of lookups
+	 * already made (the last delay is reused once exhausted). Overridable per payment instrument type,
+	 * e.g. {@code us_bank_account#PT1H,PT6H,P1D|paypal_account#PT15M,PT1H}. Empty when not configured.
+	 */
+	public List<Period> getPendingPaymentPollingSchedule(@Nullable final String paymentMethod) {
+		if (paymentMethod != null && paymentMethodToPollingSchedule.get(paymentMethod.toLowerCase()) != null) {
+			return paymentMethodToPollingSchedule.get(paymentMethod.toLowerCase());
 		} else {
-			return pendingPaymentExpirationPeriod;
+			return pendingPaymentPollingSchedule;
 		}
 	}
 
-	private Period readPendingExpirationProperty(final Properties properties) {
-		final String pendingExpirationPeriods = properties.getProperty(PROPERTY_PREFIX + "pendingPaymentExpirationPeriod");
-		final Map<String, String> paymentMethodToExpirationPeriodString = new HashMap<String, String>();
-		refillMap(paymentMethodToExpirationPeriodString, pendingExpirationPeriods);
+	private static Period getPerPaymentMethodPeriod(@Nullable final String paymentMethod, final Map<String, Period> overrides, final Period defaultPeriod) {
+		if (paymentMethod != null && overrides.get(paymentMethod.toLowerCase()) != null) {
+			return overrides.get(paymentMethod.toLowerCase());
+		} else {
+			return defaultPeriod;
+		}
+	}
+
+	private static Period readPeriodProperty(final Properties properties, final String propertyName, final String defaultPeriod) {
+		try {
+			return Period.parse(properties.getProperty(PROPERTY_PREFIX + propertyName, defaultPeriod));
+		} catch (final IllegalArgumentException e) {
+			return Period.parse(defaultPeriod);
+		}
+	}
+
+	private static int readIntProperty(final Properties properties, final String propertyName, final String defaultValue) {
+		try {
+			return Integer.parseInt(properties.getProperty(PROPERTY_PREFIX + propertyName, defaultValue));
+		} catch (final NumberFormatException e) {
+			return Integer.parseInt(defaultValue);
+		}
+	}
+
+	private static Period readPerPaymentMethodPeriodProperty(final Properties properties,
+															 final String propertyName,
+															 final String defaultPeriod,
+															 final Map<String, Period> overrides) {
+		final String periods = properties.getProperty(PROPERTY_PREFIX + propertyName);
+		final Map<String, String> paymentMethodToPeriodString = splitMap(periods);
 		// No per-payment method override, just a global setting
-		if (pendingExpirationPeriods != null && paymentMethodToExpirationPeriodString.isEmpty()) {
+		if (periods != null && paymentMethodToPeriodString.isEmpty()) {
+			try {
+				return Period.parse(periods);
+			} catch (final IllegalArgumentException e) { /* Ignore */ }
+		}
+
+		// User has defined per-payment method overrides
+		for (final Map.Entry<String, String> entry : paymentMethodToPeriodString.entrySet()) {
 			try {
-				return Period.parse(pendingExpirationPeriods);
+				overrides.put(entry.getKey().toLowerCase(), Period.parse(entry.getValue()));
 			} catch (final IllegalArgumentException e) { /* Ignore */ }
 		}
 
+		return Period.parse(defaultPeriod);
+	}
+
+	private static List<Period> readPollingScheduleProperty(final Properties properties, final Map<String, List<Period>> overrides) {
+		final String schedules = properties.getProperty(PROPERTY_PREFIX + "pendingPaymentPollingSchedule");
+		final Map<String, String> paymentMethodToScheduleString = splitMap(schedules);
+		// No per-payment method override, just a global setting
+		if (schedules != null && paymentMethodToScheduleString.isEmpty()) {
+			return parseSchedule(schedules);
+		}
+
 		// User has defined per-payment method overrides
-		for (final Map.Entry<String, String> entry : paymentMethodToExpirationPeriodString.entrySet()) {
+		for (final Map.Entry<String, String> entry : paymentMethodToScheduleString.entrySet()) {
+			final List<Period> schedule = parseSchedule(entry.getValue());
+			if (!schedule.isEmpty()) {
+				overrides.put(entry.getKey().toLowerCase(), schedule);
+			}
+		}
+
+		return ImmutableList.of();
+	}
+
+	private static List<Period> parseSchedule(final String schedule) {
+		final ImmutableList.Builder<Period> periods = ImmutableList.builder();
+		for (final String period : schedule.split(LIST_DELIMITER)) {
 			try {
-				paymentMethodToExpirationPeriod.put(entry.getKey().toLowerCase(), Period.parse(entry.getValue()));
+				periods.add(Period.parse(period.trim()));
 			} catch (final IllegalArgumentException e) { /* Ignore */ }
 		}
+		return periods.build();
+	}
+
+	private static Set<String> readSetProperty(final Properties properties, final String propertyName) {
+		final String values = properties.getProperty(PROPERTY_PREFIX + propertyName);
+		if (Strings.isNullOrEmpty(values)) {
+			return ImmutableSet.of();
+		}
 
-		return Period.parse(DEFAULT_PENDING_PAYMENT_EXPIRATION_PERIOD);
+		final ImmutableSet.Builder<String> set = ImmutableSet.builder();
+		for (final String value : values.split(LIST_DELIMITER)) {
+			if (!value.trim().isEmpty()) {
+				set.add(value.trim());
+			}
+		}
+		return set.build();
 	}
 
-	private synchronized void refillMap(final Map<String, String> map, final String stringToSplit) {
-		map.clear();
+	private static Map<String, String> splitMap(@Nullable final String stringToSplit) {
+		final Map<String, String> map = new LinkedHashMap<String, String>();
 		if (!Strings.isNullOrEmpty(stringToSplit)) {
 			for (final String entry : stringToSplit.split("\\" + ENTRY_DELIMITER)) {
 				final String[] split = entry.split(KEY_VALUE_DELIMITER);
@@ -166,17 +574,25 @@ public class BraintreeConfigProperties {
 				}
 			}
 		}
+		return map;
 	}
 
-	private String getClient(String envKey, String defaultValue) {
-		Map<String, String> env = System.getenv();
-
-		String value = env.get(envKey);
+	@Nullable
+	private static Environment parseEnvironment(@Nullable final String btEnvironment) {
+		try {
+			return Environment.parseEnvironment(btEnvironment);
+		} catch (final RuntimeException e) {
+			return null;
+		}
+	}
 
-		if (value == null || value.isEmpty()) {
-			return defaultValue;
+	// Fallback on the environment variable, if the property isn't set
+	private static String resolve(@Nullable final String value, final String envKey) {
+		if (!Strings.isNullOrEmpty(value)) {
+			return value;
 		}
 
-		return value;
+		final String envValue = System.getenv(envKey);
+		return Strings.isNullOrEmpty(envValue) ? null : envValue;
 	}
 }
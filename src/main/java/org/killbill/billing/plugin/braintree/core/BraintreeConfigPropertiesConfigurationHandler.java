@@ -17,6 +17,10 @@
 package org.killbill.billing.plugin.braintree.core;
 
 import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
 
 import org.killbill.billing.osgi.libs.killbill.OSGIKillbillAPI;
 import org.killbill.billing.plugin.api.notification.PluginTenantConfigurableConfigurationHandler;
@@ -42,6 +46,9 @@ public class BraintreeConfigPropertiesConfigurationHandler extends PluginTenantC
 
     private final String region;
 
+    // Notified once a tenant configuration has been (re)loaded
+    private volatile Consumer<UUID> configurationListener;
+
     public BraintreeConfigPropertiesConfigurationHandler(final String region,
                                      final String pluginName,
                                      final OSGIKillbillAPI osgiKillbillAPI) {
@@ -49,6 +56,20 @@ public class BraintreeConfigPropertiesConfigurationHandler extends PluginTenantC
         this.region = region;
     }
 
+    public void setConfigurationListener(@Nullable final Consumer<UUID> configurationListener) {
+        this.configurationListener = configurationListener;
+    }
+
+    @Override
+    public void configure(@Nullable final UUID kbTenantId) {
+        super.configure(kbTenantId);
+
+        final Consumer<UUID> listener = configurationListener;
+        if (listener != null && kbTenantId != null) {
+            listener.accept(kbTenantId);
+        }
+    }
+
     @Override
     protected BraintreeConfigProperties createConfigurable(final Properties properties) {
         return new BraintreeConfigProperties(properties, region);
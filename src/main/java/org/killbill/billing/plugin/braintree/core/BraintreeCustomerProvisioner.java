@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.braintreegateway.Customer;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.Period;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.osgi.libs.killbill.OSGIKillbillAPI;
+import org.killbill.billing.plugin.api.PluginCallContext;
+import org.killbill.billing.plugin.api.core.PluginCustomField;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.client.BraintreeClientImpl;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.customfield.CustomField;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the Braintree customer of new accounts in the background (using the Kill Bill account id as the Braintree customer id,
+ * so retries are idempotent) and stores it in the BRAINTREE_CUSTOMER_ID custom field, off the payment path.
+ * Requests beyond the queue capacity are dropped: the customer id can still be passed when adding the payment method.
+ */
+public class BraintreeCustomerProvisioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeCustomerProvisioner.class);
+
+    private static final int THREADS = 2;
+
+    private final OSGIKillbillAPI killbillAPI;
+    private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeGateways gateways;
+    private final Clock clock;
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ScheduledThreadPoolExecutor executor;
+
+    public BraintreeCustomerProvisioner(final OSGIKillbillAPI killbillAPI,
+                                        final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                        final BraintreeGateways gateways,
+                                        final Clock clock,
+                                        final int queueCapacity,
+                                        final int maxRetries,
+                                        final Period retryDelay) {
+        this.killbillAPI = killbillAPI;
+        this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.gateways = gateways;
+        this.clock = clock;
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelay.toStandardDuration().getMillis();
+        this.executor = new ScheduledThreadPoolExecutor(THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-customer-provisioner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return false if the request was dropped because the queue is full
+     */
+    public boolean provisionAsync(final UUID kbAccountId, final UUID kbTenantId) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            logger.warn("Customer provisioning queue is full, skipping kbAccountId {}", kbAccountId);
+            return false;
+        }
+
+        schedule(kbAccountId, kbTenantId, 0, 0);
+        return true;
+    }
+
+    private void schedule(final UUID kbAccountId, final UUID kbTenantId, final int attempt, final long delayMillis) {
+        executor.schedule(() -> {
+            try {
+                provision(kbAccountId, kbTenantId);
+                queued.decrementAndGet();
+            } catch (final Exception e) {
+                if (attempt < maxRetries) {
+                    logger.info("Unable to provision Braintree customer for kbAccountId {}, retrying (attempt {})", kbAccountId, attempt + 1, e);
+                    // Exponential backoff
+                    schedule(kbAccountId, kbTenantId, attempt + 1, retryDelayMillis << attempt);
+                } else {
+                    queued.decrementAndGet();
+                    logger.warn("Unable to provision Braintree customer for kbAccountId {}", kbAccountId, e);
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void provision(final UUID kbAccountId, final UUID kbTenantId) throws Exception {
+        final CallContext context = new PluginCallContext(BraintreeActivator.PLUGIN_NAME, clock.getUTCNow(), kbAccountId, kbTenantId);
+        if (getCustomerIdCustomField(kbAccountId, context) != null) {
+            // Already mapped (e.g. by a payment method creation)
+            return;
+        }
+
+        final Account account = killbillAPI.getAccountUserApi().getAccountById(kbAccountId, context);
+        final String name = account.getName();
+        final Integer firstNameLength = account.getFirstNameLength();
+        final boolean hasFirstName = name != null && firstNameLength != null && firstNameLength > 0 && firstNameLength <= name.length();
+
+        final BraintreeClient braintreeClient = buildBraintreeClient(kbTenantId);
+        final Customer customer = braintreeClient.findOrCreateCustomer(kbAccountId.toString(),
+                                                                       hasFirstName ? name.substring(0, firstNameLength).trim() : null,
+                                                                       hasFirstName ? name.substring(firstNameLength).trim() : name,
+                                                                       account.getEmail(),
+                                                                       account.getCompanyName());
+
+        // The payment path may have mapped another customer meanwhile
+        if (getCustomerIdCustomField(kbAccountId, context) == null) {
+            logger.info("Mapping kbAccountId {} to Braintree customer {}", kbAccountId, customer.getId());
+            killbillAPI.getCustomFieldUserApi().addCustomFields(ImmutableList.of(new PluginCustomField(kbAccountId,
+                                                                                                       ObjectType.ACCOUNT,
+                                                                                                       BraintreePluginProperties.MAGIC_FIELD_BT_CUSTOMER_ID,
+                                                                                                       customer.getId(),
+                                                                                                       clock.getUTCNow())), context);
+        }
+    }
+
+    protected BraintreeClient buildBraintreeClient(final UUID kbTenantId) {
+        return new BraintreeClientImpl(gateways.getGateway(braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId)));
+    }
+
+    private String getCustomerIdCustomField(final UUID kbAccountId, final CallContext context) {
+        final List<CustomField> customFields = killbillAPI.getCustomFieldUserApi().getCustomFieldsForAccountType(kbAccountId, ObjectType.ACCOUNT, context);
+        for (final CustomField customField : customFields) {
+            if (customField.getFieldName().equals(BraintreePluginProperties.MAGIC_FIELD_BT_CUSTOMER_ID)) {
+                return customField.getFieldValue();
+            }
+        }
+        return null;
+    }
+}
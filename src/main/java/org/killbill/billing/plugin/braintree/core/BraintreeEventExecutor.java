@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded executor for bus events, off the Kill Bill bus thread. Tasks are striped by key (account id) over single-threaded
+ * executors, so the events of an account are processed in order. The queue capacity is shared by all the stripes:
+ * tasks beyond it are dropped.
+ */
+public class BraintreeEventExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeEventExecutor.class);
+
+    private static final String METRIC_PREFIX = BraintreeActivator.PLUGIN_NAME + ".events.";
+
+    private final ThreadPoolExecutor[] stripes;
+    private final int queueCapacity;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalProcessingTimeNanos = new AtomicLong();
+    private final AtomicLong maxProcessingTimeNanos = new AtomicLong();
+
+    public BraintreeEventExecutor(final int nbStripes, final int queueCapacity) {
+        this.stripes = new ThreadPoolExecutor[Math.max(1, nbStripes)];
+        this.queueCapacity = Math.max(1, queueCapacity);
+        for (int i = 0; i < stripes.length; i++) {
+            final String threadName = "braintree-events-" + i;
+            // Unbounded, the capacity is enforced across the stripes in execute
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void registerMetrics(@Nullable final MetricRegistry metricRegistry) {
+        if (metricRegistry == null) {
+            return;
+        }
+
+        metricRegistry.gauge(METRIC_PREFIX + "queueDepth", (Gauge<Integer>) this::getQueueDepth);
+        metricRegistry.gauge(METRIC_PREFIX + "processed", (Gauge<Long>) processed::get);
+        metricRegistry.gauge(METRIC_PREFIX + "rejected", (Gauge<Long>) rejected::get);
+        metricRegistry.gauge(METRIC_PREFIX + "avgProcessingTimeMillis", (Gauge<Double>) () -> processed.get() == 0 ? 0.0 : totalProcessingTimeNanos.get() / 1e6 / processed.get());
+        metricRegistry.gauge(METRIC_PREFIX + "maxProcessingTimeMillis", (Gauge<Double>) () -> maxProcessingTimeNanos.get() / 1e6);
+    }
+
+    /**
+     * @return false if the task was dropped because the queue is full
+     */
+    public boolean execute(@Nullable final UUID key, final Runnable task) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            logger.warn("Event queue is full, dropping event for {}", key);
+            return false;
+        }
+
+        final ThreadPoolExecutor stripe = stripes[Math.floorMod(key == null ? 0 : key.hashCode(), stripes.length)];
+        try {
+            stripe.execute(() -> {
+                queued.decrementAndGet();
+                final long startNanos = System.nanoTime();
+                try {
+                    task.run();
+                } catch (final RuntimeException e) {
+                    logger.warn("Unable to process event for {}", key, e);
+                } finally {
+                    final long elapsedNanos = System.nanoTime() - startNanos;
+                    processed.incrementAndGet();
+                    totalProcessingTimeNanos.addAndGet(elapsedNanos);
+                    maxProcessingTimeNanos.accumulateAndGet(elapsedNanos, Math::max);
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            // Stopped
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            logger.warn("Event executor is stopped, dropping event for {}", key);
+            return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public void stop() {
+        for (final ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import com.braintreegateway.BraintreeGateway;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Shares one gateway per configuration snapshot: a tenant configuration update creates a new
+ * {@link BraintreeConfigProperties} instance, hence a new gateway, and the stale one is garbage collected.
+ */
+public class BraintreeGateways {
+
+    private final LoadingCache<BraintreeConfigProperties, BraintreeGateway> gateways = CacheBuilder.newBuilder()
+                                                                                                   .weakKeys()
+                                                                                                   .build(CacheLoader.from(BraintreeGateways::buildGateway));
+
+    public BraintreeGateway getGateway(final BraintreeConfigProperties config) {
+        try {
+            return gateways.getUnchecked(config);
+        } catch (final UncheckedExecutionException e) {
+            // Surface invalid configurations as is (e.g. unknown environment)
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static BraintreeGateway buildGateway(final BraintreeConfigProperties config) {
+        return new BraintreeGateway(config.getEnvironment(),
+                                    config.getBtMerchantId(),
+                                    config.getBtPublicKey(),
+                                    config.getBtPrivateKey());
+    }
+}
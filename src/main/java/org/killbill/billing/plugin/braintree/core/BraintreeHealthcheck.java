@@ -17,24 +17,87 @@
 package org.killbill.billing.plugin.braintree.core;
 
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
-import com.braintreegateway.BraintreeGateway;
-import com.braintreegateway.Environment;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
 import org.killbill.billing.osgi.api.Healthcheck;
 import org.killbill.billing.tenant.api.Tenant;
+import org.killbill.clock.Clock;
+import org.killbill.clock.DefaultClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Tenants are probed in the background (an authenticated gateway call), so that the healthcheck answers from the last result.
+ * Tenants are registered on their first healthcheck, which probes synchronously.
+ */
 public class BraintreeHealthcheck implements Healthcheck {
 
     private static final Logger logger = LoggerFactory.getLogger(BraintreeHealthcheck.class);
 
+    // Number of probes used to compute the error rate
+    private static final int ERROR_RATE_WINDOW = 20;
+    // Results older than this many probe intervals are reported as unhealthy
+    private static final int MAX_MISSED_PROBES = 3;
+
     private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeGateways gateways;
+    private final Clock clock;
+    private final long probeIntervalMillis;
+    private final Map<String, ProbeResult> probeResults = new ConcurrentHashMap<String, ProbeResult>();
+
+    private ScheduledExecutorService executor;
 
     public BraintreeHealthcheck(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler) {
+        this(braintreeConfigPropertiesConfigurationHandler, new BraintreeGateways(), new DefaultClock(), Period.ZERO);
+    }
+
+    public BraintreeHealthcheck(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                final BraintreeGateways gateways,
+                                final Clock clock,
+                                final Period probeInterval) {
         this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.gateways = gateways;
+        this.clock = clock;
+        this.probeIntervalMillis = probeInterval.toStandardDuration().getMillis();
+    }
+
+    public synchronized void start() {
+        if (probeIntervalMillis <= 0) {
+            logger.info("Healthcheck background probing is disabled");
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-healthcheck-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            for (final ProbeResult probeResult : probeResults.values()) {
+                try {
+                    probe(probeResult.kbTenantId);
+                } catch (final RuntimeException e) {
+                    logger.warn("Unable to probe Braintree for tenant {}", probeResult.kbTenantId, e);
+                }
+            }
+        }, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
     }
 
     public HealthStatus getHealthStatus(@Nullable final Tenant tenant, @Nullable final Map properties) {
@@ -44,24 +107,86 @@ public class BraintreeHealthcheck implements Healthcheck {
         } else {
             // Specifying the tenant lets you also validate the tenant configuration
             final BraintreeConfigProperties braintreeConfigProperties = braintreeConfigPropertiesConfigurationHandler.getConfigurable(tenant.getId());
-            return pingBraintree(braintreeConfigProperties);
+            ProbeResult probeResult = probeResults.get(String.valueOf(tenant.getId()));
+            // Probe inline the first time, when probing is disabled or when the tenant configuration changed
+            if (probeResult == null || probeIntervalMillis <= 0 || probeResult.config != braintreeConfigProperties) {
+                probeResult = probe(tenant.getId());
+            }
+            return probeResult.toHealthStatus(clock.getUTCNow().getMillis(), MAX_MISSED_PROBES * probeIntervalMillis);
         }
     }
 
-    private HealthStatus pingBraintree(final BraintreeConfigProperties braintreeConfigProperties) {
-        final BraintreeGateway gateway = new BraintreeGateway(
-                Environment.parseEnvironment(braintreeConfigProperties.getBtEnvironment()),
-                braintreeConfigProperties.getBtMerchantId(),
-                braintreeConfigProperties.getBtPublicKey(),
-                braintreeConfigProperties.getBtPrivateKey()
-        );
-
+    private ProbeResult probe(final UUID kbTenantId) {
+        final BraintreeConfigProperties braintreeConfigProperties = braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId);
+        final long startMillis = clock.getUTCNow().getMillis();
+        boolean healthy;
+        String message;
         try {
-            gateway.getConfiguration().getBaseURL();
-            return HealthStatus.healthy("Braintree OK");
+            // Lightweight authenticated call, which validates both connectivity and credentials
+            gateways.getGateway(braintreeConfigProperties).clientToken().generate();
+            healthy = true;
+            message = "Braintree OK";
         } catch (final Throwable e) {
             logger.warn("Healthcheck error", e);
-            return HealthStatus.unHealthy("Braintree error: " + e.getMessage());
+            healthy = false;
+            message = "Braintree error: " + e.getMessage();
+        }
+        final long endMillis = clock.getUTCNow().getMillis();
+
+        final ProbeResult previous = probeResults.get(String.valueOf(kbTenantId));
+        final ProbeResult probeResult = new ProbeResult(kbTenantId,
+                                                        braintreeConfigProperties,
+                                                        healthy,
+                                                        message,
+                                                        endMillis - startMillis,
+                                                        endMillis,
+                                                        previous == null || previous.config != braintreeConfigProperties ? 0 : previous.outcomes,
+                                                        previous == null || previous.config != braintreeConfigProperties ? 0 : previous.probes);
+        probeResults.put(String.valueOf(kbTenantId), probeResult);
+        return probeResult;
+    }
+
+    private static final class ProbeResult {
+
+        private final UUID kbTenantId;
+        private final BraintreeConfigProperties config;
+        private final boolean healthy;
+        private final String message;
+        private final long latencyMillis;
+        private final long probedMillis;
+        // Outcomes of the last ERROR_RATE_WINDOW probes, one bit per probe (set on failure)
+        private final int outcomes;
+        private final int probes;
+
+        private ProbeResult(final UUID kbTenantId,
+                            final BraintreeConfigProperties config,
+                            final boolean healthy,
+                            final String message,
+                            final long latencyMillis,
+                            final long probedMillis,
+                            final int previousOutcomes,
+                            final int previousProbes) {
+            this.kbTenantId = kbTenantId;
+            this.config = config;
+            this.healthy = healthy;
+            this.message = message;
+            this.latencyMillis = latencyMillis;
+            this.probedMillis = probedMillis;
+            this.outcomes = ((previousOutcomes << 1) | (healthy ? 0 : 1)) & ((1 << ERROR_RATE_WINDOW) - 1);
+            this.probes = Math.min(previousProbes + 1, ERROR_RATE_WINDOW);
+        }
+
+        private HealthStatus toHealthStatus(final long nowMillis, final long maxAgeMillis) {
+            final long ageMillis = nowMillis - probedMillis;
+            final boolean stale = maxAgeMillis > 0 && ageMillis > maxAgeMillis;
+            final Map<String, Object> details = ImmutableMap.<String, Object>builder()
+                                                            .put("message", stale ? "Braintree healthcheck is stale" : message)
+                                                            .put("latencyMillis", latencyMillis)
+                                                            .put("errorRate", (double) Integer.bitCount(outcomes) / probes)
+                                                            .put("lastProbeDate", new DateTime(probedMillis, DateTimeZone.UTC).toString())
+                                                            .put("ageMillis", ageMillis)
+                                                            .build();
+            return new HealthStatus(healthy && !stale, details);
         }
     }
 }
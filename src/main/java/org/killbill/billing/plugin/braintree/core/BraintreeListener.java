@@ -16,9 +16,12 @@
 
 package org.killbill.billing.plugin.braintree.core;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.notification.plugin.api.ExtBusEvent;
+import org.killbill.billing.notification.plugin.api.ExtBusEventType;
 import org.killbill.billing.osgi.libs.killbill.OSGIKillbillAPI;
 import org.killbill.billing.osgi.libs.killbill.OSGIKillbillEventDispatcher;
 import org.killbill.billing.plugin.api.PluginTenantContext;
@@ -31,16 +34,52 @@ public class BraintreeListener implements OSGIKillbillEventDispatcher.OSGIKillbi
     private static final Logger logger = LoggerFactory.getLogger(BraintreeListener.class);
 
     private final OSGIKillbillAPI osgiKillbillAPI;
+    @Nullable
+    private final BraintreeCustomerProvisioner customerProvisioner;
+    @Nullable
+    private final BraintreeEventExecutor eventExecutor;
 
     public BraintreeListener(final OSGIKillbillAPI killbillAPI) {
+        this(killbillAPI, null, null);
+    }
+
+    public BraintreeListener(final OSGIKillbillAPI killbillAPI,
+                             @Nullable final BraintreeCustomerProvisioner customerProvisioner,
+                             @Nullable final BraintreeEventExecutor eventExecutor) {
         this.osgiKillbillAPI = killbillAPI;
+        this.customerProvisioner = customerProvisioner;
+        this.eventExecutor = eventExecutor;
     }
 
     public void handleKillbillEvent(final ExtBusEvent killbillEvent) {
-        logger.info("Received event {} for object id {} of type {}",
-                    killbillEvent.getEventType(),
-                    killbillEvent.getObjectId(),
-                    killbillEvent.getObjectType());
+        // Filter up front, so that the bus thread doesn't do any work for the other events
+        switch (killbillEvent.getEventType()) {
+            case ACCOUNT_CREATION:
+            case ACCOUNT_CHANGE:
+                break;
+            default:
+                return;
+        }
+
+        if (killbillEvent.getEventType() == ExtBusEventType.ACCOUNT_CREATION && customerProvisioner != null) {
+            // Create the Braintree customer ahead of the first checkout: this only enqueues on the provisioner's own bounded executor
+            customerProvisioner.provisionAsync(killbillEvent.getAccountId(), killbillEvent.getTenantId());
+        } else if (!logger.isDebugEnabled()) {
+            // The other events are only logged: don't queue them (nor look up the account) for nothing
+            return;
+        } else if (eventExecutor == null) {
+            processEvent(killbillEvent);
+        } else {
+            // Per-account ordering
+            eventExecutor.execute(killbillEvent.getAccountId(), () -> processEvent(killbillEvent));
+        }
+    }
+
+    private void processEvent(final ExtBusEvent killbillEvent) {
+        logger.debug("Received event {} for object id {} of type {}",
+                     killbillEvent.getEventType(),
+                     killbillEvent.getObjectId(),
+                     killbillEvent.getObjectType());
 
         final TenantContext context = new PluginTenantContext(killbillEvent.getAccountId(), killbillEvent.getTenantId());
         switch (killbillEvent.getEventType()) {
@@ -51,7 +90,7 @@ public class BraintreeListener implements OSGIKillbillEventDispatcher.OSGIKillbi
             case ACCOUNT_CHANGE:
                 try {
                     final Account account = osgiKillbillAPI.getAccountUserApi().getAccountById(killbillEvent.getAccountId(), context);
-                    logger.info("Account information: " + account);
+                    logger.debug("Account information: {}", account);
                 } catch (final AccountApiException e) {
                     logger.warn("Unable to find account", e);
                 }
@@ -23,10 +23,14 @@ import com.braintreegateway.Result;
 import com.braintreegateway.Transaction;
 import com.braintreegateway.UsBankAccount;
 
-import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.plugin.braintree.dao.BraintreeTransactionData;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 public abstract class BraintreePluginProperties {
 
@@ -53,6 +57,9 @@ public abstract class BraintreePluginProperties {
     public static final String PROPERTY_BT_GATEWAY_ERROR_CODE = "bt_gateway_error_code";
     public static final String PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID = "bt_first_payment_reference_id";
     public static final String PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID = "bt_second_payment_reference_id";
+    public static final String PROPERTY_BT_LAST_REFRESHED_DATE = "bt_last_refreshed_date";
+    public static final String PROPERTY_BT_MAX_STALENESS = "bt_max_staleness";
+    public static final String PROPERTY_BT_REFRESH_COUNT = "bt_refresh_count";
 
     public static final String PROPERTY_KB_TRANSACTION_ID = "kb_transaction_id";
     public static final String PROPERTY_KB_PAYMENT_ID = "kb_payment_id";
@@ -60,48 +67,90 @@ public abstract class BraintreePluginProperties {
 
     public static final String PROPERTY_OVERRIDDEN_TRANSACTION_STATUS = "overriddenTransactionStatus";
 
+    public static final String PROPERTY_BT_SCHEMA_VERSION = "bt_schema_version";
+
     public static Map<String, Object> toAdditionalDataMap(final Result<Transaction> braintreeResult) {
+        return BraintreeTransactionData.build(braintreeResult).toMap();
+    }
 
-        final Map<String, Object> additionalDataMap = new HashMap<>();
-        Transaction transaction = BraintreeClient.getTransactionInstance(braintreeResult);
-        Transaction.Status status = transaction.getStatus();
+    public static PaymentPluginStatus toPaymentPluginStatus(final String braintreeStatus) {
+        if (Transaction.Status.SETTLED.toString().equals(braintreeStatus)
+            || Transaction.Status.AUTHORIZING.toString().equals(braintreeStatus)
+            || Transaction.Status.AUTHORIZED.toString().equals(braintreeStatus)
+            || Transaction.Status.SETTLING.toString().equals(braintreeStatus)
+            || Transaction.Status.SETTLEMENT_CONFIRMED.toString().equals(braintreeStatus)
+            || Transaction.Status.SUBMITTED_FOR_SETTLEMENT.toString().equals(braintreeStatus)
+            || Transaction.Status.VOIDED.toString().equals(braintreeStatus)) {
+            return PaymentPluginStatus.PROCESSED;
+        } else if (Transaction.Status.SETTLEMENT_PENDING.toString().equals(braintreeStatus)) {
+            return PaymentPluginStatus.PENDING;
+        } else if (Transaction.Status.FAILED.toString().equals(braintreeStatus)
+                   || Transaction.Status.SETTLEMENT_DECLINED.toString().equals(braintreeStatus)
+                   || Transaction.Status.AUTHORIZATION_EXPIRED.toString().equals(braintreeStatus)
+                   || Transaction.Status.PROCESSOR_DECLINED.toString().equals(braintreeStatus)
+                   || Transaction.Status.GATEWAY_REJECTED.toString().equals(braintreeStatus)) {
+            return PaymentPluginStatus.ERROR;
+        }
 
-        additionalDataMap.put(PROPERTY_BT_TRANSACTION_STATUS, status);
-        additionalDataMap.put(PROPERTY_BT_TRANSACTION_SUCCESS, braintreeResult.isSuccess());
-        additionalDataMap.put(PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, transaction.getPaymentInstrumentType());
+        return PaymentPluginStatus.UNDEFINED;
+    }
 
-        additionalDataMap.put(PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID, transaction.getId());
-        additionalDataMap.put(PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID, transaction.getRetrievalReferenceNumber());
+    public static PaymentPluginStatus toPaymentPluginStatus(final Map additionalData) {
+        // Set when the transaction was canceled by the plugin (e.g. expired pending payment)
+        final Object overriddenTransactionStatus = additionalData.get(PROPERTY_OVERRIDDEN_TRANSACTION_STATUS);
+        if (overriddenTransactionStatus != null) {
+            return PaymentPluginStatus.valueOf(overriddenTransactionStatus.toString());
+        }
 
-        if(!braintreeResult.isSuccess()) {
-            String gatewayErrorMessage;
-            String gatewayErrorCode = null;
-            if(status.equals(Transaction.Status.PROCESSOR_DECLINED)){
-                gatewayErrorMessage = transaction.getProcessorResponseText();
-                gatewayErrorCode = transaction.getProcessorResponseCode();
-            }
-            else if(status.equals(Transaction.Status.SETTLEMENT_DECLINED)){
-                gatewayErrorMessage = transaction.getProcessorSettlementResponseText();
-                gatewayErrorCode = transaction.getProcessorSettlementResponseCode();
-            }
-            else if(status.equals(Transaction.Status.GATEWAY_REJECTED)){
-                gatewayErrorMessage = transaction.getNetworkResponseText() == null?
-                        transaction.getGatewayRejectionReason().toString() : transaction.getNetworkResponseText();
-                gatewayErrorCode = transaction.getNetworkResponseCode();
-            }
-            else{
-                gatewayErrorMessage = braintreeResult.getMessage();
-            }
+        // Not yet serialized maps hold the Transaction.Status enum
+        final Object braintreeStatus = additionalData.get(PROPERTY_BT_TRANSACTION_STATUS);
+        return toPaymentPluginStatus(braintreeStatus == null ? null : braintreeStatus.toString());
+    }
 
-            additionalDataMap.put(PROPERTY_BT_GATEWAY_ERROR_MESSAGE, gatewayErrorMessage);
-            if(gatewayErrorCode != null) additionalDataMap.put(PROPERTY_BT_GATEWAY_ERROR_CODE, gatewayErrorCode);
+    public static boolean isDoneProcessingInBraintree(@Nullable final String braintreeStatus) {
+        return Transaction.Status.SETTLED.toString().equals(braintreeStatus) || Transaction.Status.VOIDED.toString().equals(braintreeStatus);
+    }
+
+    /**
+     * Whether the transaction may still change in Braintree (see braintree_responses.is_open): pending or undefined,
+     * or processed but not yet settled or voided. Errors and transactions canceled by the plugin are final.
+     */
+    public static boolean isOpen(final PaymentPluginStatus status, @Nullable final String braintreeStatus) {
+        return status == PaymentPluginStatus.PENDING ||
+               status == PaymentPluginStatus.UNDEFINED ||
+               (status == PaymentPluginStatus.PROCESSED && !isDoneProcessingInBraintree(braintreeStatus));
+    }
+
+    public static boolean isOpen(final Map additionalData) {
+        final Object braintreeStatus = additionalData.get(PROPERTY_BT_TRANSACTION_STATUS);
+        return isOpen(toPaymentPluginStatus(additionalData), braintreeStatus == null ? null : braintreeStatus.toString());
+    }
+
+    /**
+     * Payment method attributes restricted to the given fields (all attributes when empty)
+     */
+    public static Map<String, Object> toAdditionalDataMap(final PaymentMethod paymentMethod, final Set<String> fields) {
+        return filterAdditionalDataMap(toAdditionalDataMap(paymentMethod), fields);
+    }
+
+    public static <V> Map<String, V> filterAdditionalDataMap(final Map<String, V> additionalDataMap, final Set<String> fields) {
+        if (fields.isEmpty()) {
+            return additionalDataMap;
         }
 
-        return additionalDataMap;
+        final Map<String, V> filteredAdditionalDataMap = new LinkedHashMap<String, V>();
+        for (final Map.Entry<String, V> entry : additionalDataMap.entrySet()) {
+            if (fields.contains(entry.getKey())) {
+                filteredAdditionalDataMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return filteredAdditionalDataMap;
     }
 
     public static Map<String, Object> toAdditionalDataMap(final PaymentMethod paymentMethod) {
-        final Map<String, Object> additionalDataMap = new HashMap<String, Object>();
+        // Stable key order, so the serialized JSON can be compared as is.
+        // token, is_default, image_url and bt_customer_id are common to all payment method types.
+        final Map<String, Object> additionalDataMap = new LinkedHashMap<String, Object>();
 
         additionalDataMap.put("token", paymentMethod.getToken());
         additionalDataMap.put("is_default", paymentMethod.isDefault());
@@ -123,11 +172,9 @@ public abstract class BraintreePluginProperties {
             additionalDataMap.put("customer_location", cc.getCustomerLocation());
             additionalDataMap.put("expiration_month", cc.getExpirationMonth());
             additionalDataMap.put("expiration_year", cc.getExpirationYear());
-            additionalDataMap.put("is_default", cc.isDefault());
             additionalDataMap.put("is_venmo_sdk", cc.isVenmoSdk());
             additionalDataMap.put("is_expired", cc.isExpired());
             additionalDataMap.put("is_network_tokenized", cc.isNetworkTokenized());
-            additionalDataMap.put("image_url", cc.getImageUrl());
             additionalDataMap.put("last4", cc.getLast4());
             if (cc.getCommercial() != null) {
                 additionalDataMap.put("commercial", cc.getCommercial().toString());
@@ -151,7 +198,6 @@ public abstract class BraintreePluginProperties {
             additionalDataMap.put("country_of_issuance", cc.getCountryOfIssuance());
             additionalDataMap.put("issuing_bank", cc.getIssuingBank());
             additionalDataMap.put("unique_number_identifier", cc.getUniqueNumberIdentifier());
-            additionalDataMap.put("token", cc.getToken());
             if (cc.getUpdatedAt() != null) {
                 additionalDataMap.put("updated_at", cc.getUpdatedAt().toInstant().toString());
             }
@@ -163,10 +209,7 @@ public abstract class BraintreePluginProperties {
             final PayPalAccount paypal = (PayPalAccount) paymentMethod;
             // GDPR / PII
             // additionalDataMap.put("email", paypal.getEmail());
-            additionalDataMap.put("token", paypal.getToken());
             additionalDataMap.put("billing_agreement_id", paypal.getBillingAgreementId());
-            additionalDataMap.put("is_default", paypal.isDefault());
-            additionalDataMap.put("image_url", paypal.getImageUrl());
             additionalDataMap.put("payer_id", paypal.getPayerId());
             additionalDataMap.put("customer_id", paypal.getCustomerId());
             if (paypal.getCreatedAt() != null) {
@@ -184,11 +227,8 @@ public abstract class BraintreePluginProperties {
             additionalDataMap.put("last4", acct.getLast4());
             additionalDataMap.put("account_type", acct.getAccountType());
             additionalDataMap.put("account_holder_name", acct.getAccountHolderName());
-            additionalDataMap.put("token", acct.getToken());
-            additionalDataMap.put("image_url", acct.getImageUrl());
             additionalDataMap.put("bank_name", acct.getBankName());
             additionalDataMap.put("customer_id", acct.getCustomerId());
-            additionalDataMap.put("is_default", acct.isDefault());
             if (acct.getAchMandate() != null) {
                 additionalDataMap.put("ach_mandate_accepted_at", acct.getAchMandate().getAcceptedAt().toString());
             }
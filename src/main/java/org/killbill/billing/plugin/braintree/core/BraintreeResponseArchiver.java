@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Iterables;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+import org.jooq.types.ULong;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically moves the responses of payments whose transactions are all final (settled, voided, failed or canceled) and older than the archive age,
+ * to braintree_responses_archive (see BraintreeDao#archiveResponses). Reads fall back to the archive transparently.
+ */
+public class BraintreeResponseArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeResponseArchiver.class);
+
+    private final BraintreeDao dao;
+    private final Clock clock;
+    private final Period archiveAge;
+    private final int batchSize;
+
+    private ScheduledExecutorService executor;
+
+    public BraintreeResponseArchiver(final BraintreeDao dao, final Clock clock, final Period archiveAge, final int batchSize) {
+        this.dao = dao;
+        this.clock = clock;
+        this.archiveAge = archiveAge;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void start(final Period interval) {
+        final long intervalMillis = interval.toStandardDuration().getMillis();
+        if (intervalMillis <= 0) {
+            logger.info("Response archiver is disabled");
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-response-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                final int archived = archive();
+                if (archived > 0) {
+                    logger.info("Archived {} responses", archived);
+                }
+            } catch (final SQLException | RuntimeException e) {
+                logger.warn("Unable to archive responses", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized int archive() throws SQLException {
+        final DateTime cutoff = clock.getUTCNow().minus(archiveAge);
+
+        int archived = 0;
+        ULong afterRecordId = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            final List<BraintreeResponsesRecord> candidates = dao.getArchivableResponses(cutoff, afterRecordId, batchSize);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            archived += dao.archiveResponses(cutoff, candidates);
+
+            if (candidates.size() < batchSize) {
+                break;
+            }
+            afterRecordId = Iterables.getLast(candidates).getRecordId();
+        }
+        return archived;
+    }
+}
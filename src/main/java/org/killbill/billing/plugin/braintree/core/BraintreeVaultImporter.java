@@ -0,0 +1,433 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import com.braintreegateway.Customer;
+import com.google.common.base.MoreObjects;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.account.api.AccountApiException;
+import org.killbill.billing.osgi.libs.killbill.OSGIKillbillAPI;
+import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.plugin.api.PluginCallContext;
+import org.killbill.billing.plugin.api.core.PluginCustomField;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentPluginApi;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.client.BraintreeClientImpl;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeVaultImportsRecord;
+import org.killbill.billing.util.api.CustomFieldApiException;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.customfield.CustomField;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Imports the customers (and their payment methods) of an existing Braintree vault into Kill Bill, for onboarding.
+ * Customers are searched by creation date window, and processed by pages in customer id order: the progress
+ * (window and last customer id) is saved after each page in braintree_vault_imports, so an interrupted import can be resumed.
+ * A Braintree customer is matched to the Kill Bill account with the same id or, failing that, the same external key.
+ * The payment methods of the accounts of a page are imported in parallel (Kill Bill locks the account when adding a payment method,
+ * so the ones of a given account are created sequentially).
+ */
+public class BraintreeVaultImporter {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_STOPPED = "STOPPED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeVaultImporter.class);
+
+    // Braintree search page size
+    private static final int PAGE_SIZE = 50;
+    // Braintree doesn't return more results than that for a search
+    static final int MAX_SEARCH_RESULTS = 50000;
+    private static final long MIN_WINDOW_MILLIS = 1000;
+    // Braintree didn't exist before that
+    private static final DateTime DEFAULT_SINCE = new DateTime(2007, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private final OSGIKillbillAPI killbillAPI;
+    private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeGateways gateways;
+    private final BraintreePaymentPluginApi paymentPluginApi;
+    private final BraintreeDao dao;
+    private final Clock clock;
+    private final Period window;
+    private final Map<UUID, VaultImportJob> jobs = new ConcurrentHashMap<UUID, VaultImportJob>();
+    private final ExecutorService executor;
+    // Shared by all the imports, accounts are imported sequentially without it
+    @Nullable
+    private final ExecutorService paymentMethodImportExecutor;
+
+    public BraintreeVaultImporter(final OSGIKillbillAPI killbillAPI,
+                                  final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                  final BraintreeGateways gateways,
+                                  final BraintreePaymentPluginApi paymentPluginApi,
+                                  final BraintreeDao dao,
+                                  final Clock clock,
+                                  final Period window) {
+        this(killbillAPI, braintreeConfigPropertiesConfigurationHandler, gateways, paymentPluginApi, dao, clock, window, null);
+    }
+
+    public BraintreeVaultImporter(final OSGIKillbillAPI killbillAPI,
+                                  final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                  final BraintreeGateways gateways,
+                                  final BraintreePaymentPluginApi paymentPluginApi,
+                                  final BraintreeDao dao,
+                                  final Clock clock,
+                                  final Period window,
+                                  @Nullable final ExecutorService paymentMethodImportExecutor) {
+        this.killbillAPI = killbillAPI;
+        this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.gateways = gateways;
+        this.paymentPluginApi = paymentPluginApi;
+        this.dao = dao;
+        this.clock = clock;
+        this.window = window;
+        this.paymentMethodImportExecutor = paymentMethodImportExecutor;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-vault-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        for (final VaultImportJob job : jobs.values()) {
+            job.stopped = true;
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts an import for the tenant, or resumes the previous one if it didn't complete (and since isn't specified)
+     */
+    public synchronized Map<String, Object> startImport(final UUID kbTenantId, @Nullable final DateTime since) throws SQLException {
+        if (!jobs.containsKey(kbTenantId)) {
+            BraintreeVaultImportsRecord vaultImport = dao.getVaultImport(kbTenantId);
+            if (since != null || vaultImport == null || STATUS_COMPLETED.equals(vaultImport.getStatus())) {
+                vaultImport = dao.createVaultImport(STATUS_RUNNING, MoreObjects.firstNonNull(since, DEFAULT_SINCE), clock.getUTCNow(), kbTenantId);
+            } else {
+                logger.info("Resuming Braintree vault import for tenant {} from {} (after customer {})", kbTenantId, vaultImport.getWindowStart(), vaultImport.getLastCustomerId());
+                vaultImport.setStatus(STATUS_RUNNING);
+            }
+
+            final VaultImportJob job = new VaultImportJob(kbTenantId, vaultImport);
+            jobs.put(kbTenantId, job);
+            executor.submit(job);
+        }
+        return getStatus(kbTenantId);
+    }
+
+    public void stopImport(final UUID kbTenantId) {
+        final VaultImportJob job = jobs.get(kbTenantId);
+        if (job != null) {
+            job.stopped = true;
+        }
+    }
+
+    @Nullable
+    public Map<String, Object> getStatus(final UUID kbTenantId) throws SQLException {
+        final VaultImportJob job = jobs.get(kbTenantId);
+        final BraintreeVaultImportsRecord vaultImport = job != null ? job.vaultImport : dao.getVaultImport(kbTenantId);
+        if (vaultImport == null) {
+            return null;
+        }
+
+        final Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("status", vaultImport.getStatus());
+        status.put("windowStart", vaultImport.getWindowStart().toString());
+        status.put("lastCustomerId", vaultImport.getLastCustomerId());
+        status.put("customersImported", vaultImport.getCustomersImported());
+        status.put("customersSkipped", vaultImport.getCustomersSkipped());
+        status.put("paymentMethodsImported", vaultImport.getPaymentMethodsImported());
+        if (job != null) {
+            status.put("customersPerSecond", job.getCustomersPerSecond());
+        }
+        return status;
+    }
+
+    private void run(final VaultImportJob job) throws SQLException, CustomFieldApiException, PaymentApiException {
+        final BraintreeVaultImportsRecord vaultImport = job.vaultImport;
+        final BraintreeClient braintreeClient = buildBraintreeClient(job.kbTenantId);
+
+        DateTime windowStart = toDateTime(vaultImport.getWindowStart());
+        while (!job.stopped) {
+            final DateTime now = clock.getUTCNow();
+            if (!windowStart.isBefore(now)) {
+                vaultImport.setStatus(STATUS_COMPLETED);
+                return;
+            }
+
+            DateTime windowEnd = windowStart.plus(window).isBefore(now) ? windowStart.plus(window) : now;
+            List<String> braintreeCustomerIds = braintreeClient.searchCustomerIds(toCalendar(windowStart), toCalendar(windowEnd.minusMillis(1)));
+            // The results would be truncated: halve the window until they fit (deterministically, so a resumed import searches the same window)
+            while (braintreeCustomerIds.size() >= MAX_SEARCH_RESULTS) {
+                final long windowMillis = windowEnd.getMillis() - windowStart.getMillis();
+                if (windowMillis <= MIN_WINDOW_MILLIS) {
+                    throw new IllegalStateException(String.format("Too many Braintree customers created between %s and %s", windowStart, windowEnd));
+                }
+                windowEnd = windowStart.plus(windowMillis / 2);
+                logger.info("Braintree vault import for tenant {}: too many customers, searching {} - {}", job.kbTenantId, windowStart, windowEnd);
+                braintreeCustomerIds = braintreeClient.searchCustomerIds(toCalendar(windowStart), toCalendar(windowEnd.minusMillis(1)));
+            }
+            braintreeCustomerIds = new ArrayList<String>(braintreeCustomerIds);
+            // Stable order, so the import can resume after the last customer processed
+            Collections.sort(braintreeCustomerIds);
+
+            int first = 0;
+            if (vaultImport.getLastCustomerId() != null) {
+                while (first < braintreeCustomerIds.size() && braintreeCustomerIds.get(first).compareTo(vaultImport.getLastCustomerId()) <= 0) {
+                    first++;
+                }
+            }
+
+            for (int i = first; i < braintreeCustomerIds.size() && !job.stopped; i += PAGE_SIZE) {
+                final List<String> page = braintreeCustomerIds.subList(i, Math.min(i + PAGE_SIZE, braintreeCustomerIds.size()));
+                importCustomers(braintreeClient, page, job);
+                vaultImport.setLastCustomerId(page.get(page.size() - 1));
+                dao.updateVaultImport(vaultImport, clock.getUTCNow());
+            }
+
+            if (!job.stopped) {
+                logger.info("Braintree vault import for tenant {}: window {} - {} done ({} customers, {} customers/s)",
+                            job.kbTenantId, windowStart, windowEnd, braintreeCustomerIds.size(), job.getCustomersPerSecond());
+                windowStart = windowEnd;
+                vaultImport.setWindowStart(toLocalDateTime(windowStart));
+                vaultImport.setLastCustomerId(null);
+                dao.updateVaultImport(vaultImport, clock.getUTCNow());
+            }
+        }
+        vaultImport.setStatus(STATUS_STOPPED);
+    }
+
+    protected BraintreeClient buildBraintreeClient(final UUID kbTenantId) {
+        return new BraintreeClientImpl(gateways.getGateway(braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId)));
+    }
+
+    private void importCustomers(final BraintreeClient braintreeClient, final List<String> braintreeCustomerIds, final VaultImportJob job) throws SQLException, CustomFieldApiException, PaymentApiException {
+        final BraintreeVaultImportsRecord vaultImport = job.vaultImport;
+        final CallContext context = new PluginCallContext(BraintreeActivator.PLUGIN_NAME, clock.getUTCNow(), null, job.kbTenantId);
+
+        final List<CustomField> customFields = new LinkedList<CustomField>();
+        final Map<UUID, AccountImport> accountImports = new LinkedHashMap<UUID, AccountImport>();
+        for (final Customer customer : braintreeClient.getCustomers(braintreeCustomerIds)) {
+            final Account account = findAccount(customer.getId(), context);
+            if (account == null) {
+                logger.debug("Skipping Braintree customer {}: no matching account", customer.getId());
+                vaultImport.setCustomersSkipped(vaultImport.getCustomersSkipped() + 1);
+                continue;
+            }
+
+            final String existingCustomerId = getCustomerIdCustomField(account.getId(), context);
+            if (existingCustomerId == null) {
+                customFields.add(new PluginCustomField(account.getId(),
+                                                       ObjectType.ACCOUNT,
+                                                       BraintreePluginProperties.MAGIC_FIELD_BT_CUSTOMER_ID,
+                                                       customer.getId(),
+                                                       clock.getUTCNow()));
+            } else if (!existingCustomerId.equals(customer.getId())) {
+                logger.warn("Skipping Braintree customer {}: kbAccountId {} already mapped to {}", customer.getId(), account.getId(), existingCustomerId);
+                vaultImport.setCustomersSkipped(vaultImport.getCustomersSkipped() + 1);
+                continue;
+            }
+
+            AccountImport accountImport = accountImports.get(account.getId());
+            if (accountImport == null) {
+                accountImport = new AccountImport(account);
+                accountImports.put(account.getId(), accountImport);
+            }
+            accountImport.customers.add(customer);
+        }
+
+        final int paymentMethodsImported = importPaymentMethods(accountImports.values(), context);
+        vaultImport.setPaymentMethodsImported(vaultImport.getPaymentMethodsImported() + paymentMethodsImported);
+        for (final AccountImport accountImport : accountImports.values()) {
+            vaultImport.setCustomersImported(vaultImport.getCustomersImported() + accountImport.customers.size());
+        }
+
+        if (!customFields.isEmpty()) {
+            killbillAPI.getCustomFieldUserApi().addCustomFields(customFields, context);
+        }
+    }
+
+    private int importPaymentMethods(final Collection<AccountImport> accountImports, final CallContext context) throws SQLException, PaymentApiException {
+        if (paymentMethodImportExecutor == null ||
+            accountImports.size() <= 1 ||
+            braintreeConfigPropertiesConfigurationHandler.getConfigurable(context.getTenantId()).getPaymentMethodSyncThreads() <= 1) {
+            int imported = 0;
+            for (final AccountImport accountImport : accountImports) {
+                imported += accountImport.importPaymentMethods(context);
+            }
+            return imported;
+        }
+
+        final List<Future<Integer>> futures = new LinkedList<Future<Integer>>();
+        for (final AccountImport accountImport : accountImports) {
+            futures.add(paymentMethodImportExecutor.submit(() -> accountImport.importPaymentMethods(context)));
+        }
+
+        int imported = 0;
+        try {
+            for (final Future<Integer> future : futures) {
+                imported += future.get();
+            }
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else if (e.getCause() instanceof PaymentApiException) {
+                throw (PaymentApiException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing Braintree payment methods", e);
+        } finally {
+            // Don't leave the remaining accounts of a failed page queued on the shared executor
+            for (final Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return imported;
+    }
+
+    @Nullable
+    private Account findAccount(final String braintreeCustomerId, final CallContext context) {
+        try {
+            return killbillAPI.getAccountUserApi().getAccountById(UUID.fromString(braintreeCustomerId), context);
+        } catch (final IllegalArgumentException | AccountApiException e) {
+            // Not a Kill Bill account id
+        }
+
+        try {
+            return killbillAPI.getAccountUserApi().getAccountByKey(braintreeCustomerId, context);
+        } catch (final AccountApiException e) {
+            return null;
+        }
+    }
+
+    private String getCustomerIdCustomField(final UUID kbAccountId, final CallContext context) {
+        final List<CustomField> customFields = killbillAPI.getCustomFieldUserApi().getCustomFieldsForAccountType(kbAccountId, ObjectType.ACCOUNT, context);
+        for (final CustomField customField : customFields) {
+            if (customField.getFieldName().equals(BraintreePluginProperties.MAGIC_FIELD_BT_CUSTOMER_ID)) {
+                return customField.getFieldValue();
+            }
+        }
+        return null;
+    }
+
+    private static DateTime toDateTime(final LocalDateTime localDateTime) {
+        return new DateTime(localDateTime.toInstant(ZoneOffset.UTC).toEpochMilli(), DateTimeZone.UTC);
+    }
+
+    private static LocalDateTime toLocalDateTime(final DateTime dateTime) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(dateTime.getMillis()), ZoneOffset.UTC);
+    }
+
+    private static Calendar toCalendar(final DateTime dateTime) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(dateTime.getMillis());
+        return calendar;
+    }
+
+    private final class AccountImport {
+
+        private final Account account;
+        private final List<Customer> customers = new LinkedList<Customer>();
+
+        private AccountImport(final Account account) {
+            this.account = account;
+        }
+
+        private int importPaymentMethods(final CallContext context) throws SQLException, PaymentApiException {
+            int imported = 0;
+            for (final Customer customer : customers) {
+                imported += paymentPluginApi.importPaymentMethods(account, customer.getPaymentMethods(), context);
+            }
+            return imported;
+        }
+    }
+
+    private final class VaultImportJob implements Runnable {
+
+        private final UUID kbTenantId;
+        private final BraintreeVaultImportsRecord vaultImport;
+        private final long startMillis = System.currentTimeMillis();
+        private final int customersAtStart;
+        private volatile boolean stopped;
+
+        private VaultImportJob(final UUID kbTenantId, final BraintreeVaultImportsRecord vaultImport) {
+            this.kbTenantId = kbTenantId;
+            this.vaultImport = vaultImport;
+            this.customersAtStart = getCustomers();
+        }
+
+        @Override
+        public void run() {
+            try {
+                BraintreeVaultImporter.this.run(this);
+                logger.info("Braintree vault import for tenant {}: {}", kbTenantId, vaultImport.getStatus());
+            } catch (final Exception e) {
+                logger.warn("Braintree vault import for tenant {} failed", kbTenantId, e);
+                vaultImport.setStatus(STATUS_FAILED);
+            } finally {
+                try {
+                    dao.updateVaultImport(vaultImport, clock.getUTCNow());
+                } catch (final SQLException e) {
+                    logger.warn("Unable to save Braintree vault import for tenant {}", kbTenantId, e);
+                }
+                jobs.remove(kbTenantId, this);
+            }
+        }
+
+        private int getCustomers() {
+            return vaultImport.getCustomersImported() + vaultImport.getCustomersSkipped();
+        }
+
+        private long getCustomersPerSecond() {
+            final long elapsedMillis = Math.max(1, System.currentTimeMillis() - startMillis);
+            return (getCustomers() - customersAtStart) * 1000L / elapsedMillis;
+        }
+    }
+}
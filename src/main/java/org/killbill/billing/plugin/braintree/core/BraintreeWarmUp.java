@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.clock.Clock;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Optional warm-up, run at activation for the tenants with payment methods and whenever a tenant configuration is (re)loaded:
+ * loads the configuration snapshot, opens the gateway connection (filling the client token pool) and loads the most
+ * recently updated payment methods in the cache. Activation waits at most for the time budget.
+ */
+public class BraintreeWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeWarmUp.class);
+
+    private static final String METRIC_PREFIX = BraintreeActivator.PLUGIN_NAME + ".warmup.";
+
+    private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeClientTokenService clientTokenService;
+    private final BraintreeDao dao;
+    private final Clock clock;
+    private final int paymentMethodsPerTenant;
+    private final long timeBudgetMillis;
+    private final AtomicLong durationMillis = new AtomicLong();
+    private final AtomicLong tenants = new AtomicLong();
+    private final AtomicLong paymentMethods = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ExecutorService executor;
+
+    public BraintreeWarmUp(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                           final BraintreeClientTokenService clientTokenService,
+                           final BraintreeDao dao,
+                           final Clock clock,
+                           final int paymentMethodsPerTenant,
+                           final Period timeBudget) {
+        this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.clientTokenService = clientTokenService;
+        this.dao = dao;
+        this.clock = clock;
+        this.paymentMethodsPerTenant = paymentMethodsPerTenant;
+        this.timeBudgetMillis = timeBudget.toStandardDuration().getMillis();
+    }
+
+    public void registerMetrics(@Nullable final MetricRegistry metricRegistry) {
+        if (metricRegistry == null) {
+            return;
+        }
+
+        metricRegistry.gauge(METRIC_PREFIX + "durationMillis", (Gauge<Long>) durationMillis::get);
+        metricRegistry.gauge(METRIC_PREFIX + "tenants", (Gauge<Long>) tenants::get);
+        metricRegistry.gauge(METRIC_PREFIX + "paymentMethods", (Gauge<Long>) paymentMethods::get);
+        metricRegistry.gauge(METRIC_PREFIX + "failures", (Gauge<Long>) failures::get);
+    }
+
+    /**
+     * Warms up the known tenants, waiting at most for the time budget (the warm-up carries on in the background past it)
+     */
+    public synchronized void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final Future<?> future = executor.submit(this::warmUpKnownTenants);
+        try {
+            future.get(timeBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            logger.warn("Braintree warm-up did not complete within {} ms, continuing in the background", timeBudgetMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            logger.warn("Braintree warm-up failed", e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Asynchronously warms up a tenant, e.g. after a configuration change
+     */
+    public synchronized void warmUpAsync(final UUID kbTenantId) {
+        if (executor != null) {
+            executor.submit(() -> warmUp(kbTenantId));
+        }
+    }
+
+    private void warmUpKnownTenants() {
+        final long startMillis = clock.getUTCNow().getMillis();
+
+        final List<UUID> kbTenantIds = new LinkedList<UUID>();
+        try {
+            kbTenantIds.addAll(dao.getTenantIdsWithPaymentMethods());
+        } catch (final SQLException e) {
+            logger.warn("Unable to retrieve tenants to warm up", e);
+        }
+
+        // Global configuration
+        warmUp(null);
+        for (final UUID kbTenantId : kbTenantIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            warmUp(kbTenantId);
+        }
+
+        durationMillis.set(clock.getUTCNow().getMillis() - startMillis);
+        logger.info("Braintree warm-up of {} tenant(s) completed in {} ms: {} payment method(s) loaded, {} failure(s)",
+                    tenants.get(), durationMillis.get(), paymentMethods.get(), failures.get());
+    }
+
+    private void warmUp(@Nullable final UUID kbTenantId) {
+        try {
+            braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId);
+            clientTokenService.getClientToken(kbTenantId);
+            if (kbTenantId != null && paymentMethodsPerTenant > 0) {
+                paymentMethods.addAndGet(dao.warmPaymentMethodsCache(kbTenantId, paymentMethodsPerTenant));
+            }
+            tenants.incrementAndGet();
+        } catch (final SQLException | RuntimeException e) {
+            failures.incrementAndGet();
+            logger.warn("Unable to warm up tenant {}", kbTenantId, e);
+        }
+    }
+}
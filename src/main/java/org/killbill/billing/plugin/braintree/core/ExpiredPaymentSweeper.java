@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core;
+
+import java.sql.SQLException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+import org.jooq.types.ULong;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentTransactionInfoPlugin;
+import org.killbill.billing.plugin.braintree.core.resources.ExpiredPaymentPolicy;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically cancels pending AUTHORIZE/PURCHASE transactions which are past their expiration period,
+ * so that reads don't have to. Concurrent sweeps (e.g. from several nodes) are harmless as only pending rows are updated.
+ */
+public class ExpiredPaymentSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredPaymentSweeper.class);
+
+    private static final Map<String, Object> EXPIRED_PAYMENT_METADATA = ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS,
+                                                                                                        PaymentPluginStatus.CANCELED.toString(),
+                                                                                                        "message",
+                                                                                                        "Payment Expired - Cancelled by Janitor");
+
+    private final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler;
+    private final BraintreeDao dao;
+    private final Clock clock;
+    private final int batchSize;
+
+    private ScheduledExecutorService executor;
+
+    public ExpiredPaymentSweeper(final BraintreeConfigPropertiesConfigurationHandler braintreeConfigPropertiesConfigurationHandler,
+                                 final BraintreeDao dao,
+                                 final Clock clock,
+                                 final int batchSize) {
+        this.braintreeConfigPropertiesConfigurationHandler = braintreeConfigPropertiesConfigurationHandler;
+        this.dao = dao;
+        this.clock = clock;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void start(final Period interval) {
+        final long intervalMillis = interval.toStandardDuration().getMillis();
+        if (intervalMillis <= 0) {
+            logger.info("Expired payment sweeper is disabled");
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "braintree-expired-payment-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (final RuntimeException e) {
+                logger.warn("Unable to sweep expired payments", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public int sweep() {
+        final List<UUID> kbTenantIds;
+        try {
+            kbTenantIds = dao.getTenantIdsWithPendingResponses();
+        } catch (final SQLException e) {
+            logger.warn("Unable to retrieve tenants with pending payments", e);
+            return 0;
+        }
+
+        int canceled = 0;
+        for (final UUID kbTenantId : kbTenantIds) {
+            try {
+                canceled += sweep(kbTenantId);
+            } catch (final SQLException e) {
+                logger.warn("Unable to sweep expired payments for tenant {}", kbTenantId, e);
+            }
+        }
+        return canceled;
+    }
+
+    public int sweep(final UUID kbTenantId) throws SQLException {
+        final ExpiredPaymentPolicy expiredPaymentPolicy = new ExpiredPaymentPolicy(clock, braintreeConfigPropertiesConfigurationHandler.getConfigurable(kbTenantId));
+        final DateTime cutoff = expiredPaymentPolicy.getEarliestExpirationCutoff();
+
+        int canceled = 0;
+        ULong afterRecordId = null;
+        while (true) {
+            final List<BraintreeResponsesRecord> candidates = dao.getPendingInitialResponsesCreatedBefore(cutoff, afterRecordId, batchSize, kbTenantId);
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            // The cutoff is based on the shortest expiration period, check each payment instrument type
+            final List<BraintreeResponsesRecord> expired = new LinkedList<BraintreeResponsesRecord>();
+            for (final BraintreeResponsesRecord candidate : candidates) {
+                if (expiredPaymentPolicy.isExpired(BraintreePaymentTransactionInfoPlugin.build(candidate))) {
+                    logger.info("Canceling expired Braintree transaction {} (created {})", candidate.getBraintreeId(), candidate.getCreatedDate());
+                    expired.add(candidate);
+                }
+            }
+            canceled += dao.updatePendingResponses(expired, EXPIRED_PAYMENT_METADATA);
+
+            if (candidates.size() < batchSize) {
+                break;
+            }
+            afterRecordId = Iterables.getLast(candidates).getRecordId();
+        }
+        return canceled;
+    }
+}
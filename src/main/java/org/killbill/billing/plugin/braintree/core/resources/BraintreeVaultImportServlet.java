@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core.resources;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.joda.time.DateTime;
+import org.jooby.MediaType;
+import org.jooby.Result;
+import org.jooby.Results;
+import org.jooby.Status;
+import org.jooby.mvc.DELETE;
+import org.jooby.mvc.GET;
+import org.jooby.mvc.Local;
+import org.jooby.mvc.POST;
+import org.jooby.mvc.Path;
+import org.killbill.billing.plugin.braintree.core.BraintreeVaultImporter;
+import org.killbill.billing.tenant.api.Tenant;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+
+@Singleton
+@Path("/vaultImport")
+public class BraintreeVaultImportServlet {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BraintreeVaultImporter vaultImporter;
+
+    @Inject
+    public BraintreeVaultImportServlet(final BraintreeVaultImporter vaultImporter) {
+        this.vaultImporter = vaultImporter;
+    }
+
+    /**
+     * Starts (or resumes) the import, pass since (ISO date) to start over from that customer creation date
+     */
+    @POST
+    public Result startImport(@Local @Named("killbill_tenant") final Optional<Tenant> tenant,
+                              @Named("since") final Optional<String> since) throws SQLException, JsonProcessingException {
+        if (!tenant.isPresent()) {
+            return Results.with(Status.BAD_REQUEST);
+        }
+        return toResult(vaultImporter.startImport(tenant.get().getId(), since.map(DateTime::parse).orElse(null)), Status.CREATED);
+    }
+
+    @GET
+    public Result getStatus(@Local @Named("killbill_tenant") final Optional<Tenant> tenant) throws SQLException, JsonProcessingException {
+        if (!tenant.isPresent()) {
+            return Results.with(Status.BAD_REQUEST);
+        }
+        return toResult(vaultImporter.getStatus(tenant.get().getId()), Status.OK);
+    }
+
+    @DELETE
+    public Result stopImport(@Local @Named("killbill_tenant") final Optional<Tenant> tenant) {
+        if (!tenant.isPresent()) {
+            return Results.with(Status.BAD_REQUEST);
+        }
+        vaultImporter.stopImport(tenant.get().getId());
+        return Results.with(Status.NO_CONTENT);
+    }
+
+    private static Result toResult(final Map<String, Object> status, final Status statusCode) throws JsonProcessingException {
+        if (status == null) {
+            return Results.with(Status.NOT_FOUND);
+        }
+        return Results.with(objectMapper.writeValueAsString(status), statusCode).type(MediaType.json);
+    }
+}
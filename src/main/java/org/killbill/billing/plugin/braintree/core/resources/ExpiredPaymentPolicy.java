@@ -18,17 +18,15 @@ package org.killbill.billing.plugin.braintree.core.resources;
 
 import com.google.common.collect.Iterables;
 import org.joda.time.DateTime;
+import org.joda.time.Period;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
 import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
 import org.killbill.billing.plugin.braintree.api.BraintreePaymentTransactionInfoPlugin;
 import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
-import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
-import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
 import org.killbill.clock.Clock;
 
 import java.util.List;
-import java.util.Map;
 
 public class ExpiredPaymentPolicy {
 
@@ -47,18 +45,31 @@ public class ExpiredPaymentPolicy {
         }
 
         final BraintreePaymentTransactionInfoPlugin transaction = (BraintreePaymentTransactionInfoPlugin) latestTransaction(paymentTransactions);
-        if (transaction.getCreatedDate() == null) {
-            return null;
+        return isExpired(transaction) ? transaction : null;
+    }
+
+    public boolean isExpired(final BraintreePaymentTransactionInfoPlugin transaction) {
+        if (transaction.getCreatedDate() == null || transaction.getStatus() != PaymentPluginStatus.PENDING) {
+            return false;
         }
 
-        if (transaction.getStatus() == PaymentPluginStatus.PENDING) {
-            final DateTime expirationDate = expirationDateForInitialTransactionType(transaction);
-            if (clock.getNow(expirationDate.getZone()).isAfter(expirationDate)) {
-                return transaction;
+        final DateTime expirationDate = expirationDateForInitialTransactionType(transaction);
+        return clock.getNow(expirationDate.getZone()).isAfter(expirationDate);
+    }
+
+    /**
+     * Pending transactions created after this date cannot be expired yet, whatever their payment instrument type
+     */
+    public DateTime getEarliestExpirationCutoff() {
+        final DateTime now = clock.getUTCNow();
+        DateTime cutoff = now.minus(braintreeProperties.getPendingPaymentExpirationPeriod(null));
+        for (final Period period : braintreeProperties.getPendingPaymentExpirationPeriods()) {
+            final DateTime periodCutoff = now.minus(period);
+            if (periodCutoff.isAfter(cutoff)) {
+                cutoff = periodCutoff;
             }
         }
-
-        return null;
+        return cutoff;
     }
 
     private PaymentTransactionInfoPlugin latestTransaction(final List<PaymentTransactionInfoPlugin> paymentTransactions) {
@@ -76,17 +87,6 @@ public class ExpiredPaymentPolicy {
     }
 
     private DateTime expirationDateForInitialTransactionType(final BraintreePaymentTransactionInfoPlugin transaction) {
-        if (transaction.getBraintreeResponsesRecord() == null) {
-            return transaction.getCreatedDate().plus(braintreeProperties.getPendingPaymentExpirationPeriod(null));
-        }
-
-        final Map braintreeResponseAdditionalData = BraintreeDao.mapFromAdditionalDataString(transaction.getBraintreeResponsesRecord().getAdditionalData());
-
-        final String paymentMethod = getPaymentMethod(braintreeResponseAdditionalData);
-        return transaction.getCreatedDate().plus(braintreeProperties.getPendingPaymentExpirationPeriod(paymentMethod));
-    }
-
-    private String getPaymentMethod(final Map braintreeResponseAdditionalData) {
-        return (String) braintreeResponseAdditionalData.get(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE);
+        return transaction.getCreatedDate().plus(braintreeProperties.getPendingPaymentExpirationPeriod(transaction.getPaymentInstrumentType()));
     }
-}
\ No newline at end of file
+}
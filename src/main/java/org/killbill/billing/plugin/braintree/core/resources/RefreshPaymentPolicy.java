@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.core.resources;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentTransactionInfoPlugin;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
+import org.killbill.clock.Clock;
+
+/**
+ * Decides whether the Braintree status of a non-final transaction is stale enough to be looked up again.
+ * The response creation date counts as the first refresh.
+ */
+public class RefreshPaymentPolicy {
+
+    private final Clock clock;
+
+    private final BraintreeConfigProperties braintreeProperties;
+
+    public RefreshPaymentPolicy(final Clock clock, final BraintreeConfigProperties braintreeProperties) {
+        this.clock = clock;
+        this.braintreeProperties = braintreeProperties;
+    }
+
+    public boolean shouldRefresh(final BraintreePaymentTransactionInfoPlugin transaction, @Nullable final Period maxStaleness) {
+        final DateTime nextRefreshDate = getNextRefreshDate(transaction, maxStaleness);
+        return nextRefreshDate == null || !clock.getUTCNow().isBefore(nextRefreshDate);
+    }
+
+    public DateTime getNextRefreshDate(final BraintreePaymentTransactionInfoPlugin transaction, @Nullable final Period maxStaleness) {
+        final DateTime lastRefreshedDate = getLastRefreshedDate(transaction);
+        if (lastRefreshedDate == null) {
+            return null;
+        }
+
+        final String paymentInstrumentType = transaction.getPaymentInstrumentType();
+
+        // The tenant minimum interval protects the gateway: callers can only accept staler data, not force fresher data
+        DateTime nextRefreshDate = lastRefreshedDate.plus(braintreeProperties.getMinRefreshInterval(paymentInstrumentType));
+
+        final List<Period> pollingSchedule = braintreeProperties.getPendingPaymentPollingSchedule(paymentInstrumentType);
+        if (!pollingSchedule.isEmpty()) {
+            final int refreshCount = getRefreshCount(transaction);
+            nextRefreshDate = latest(nextRefreshDate, lastRefreshedDate.plus(pollingSchedule.get(Math.min(refreshCount, pollingSchedule.size() - 1))));
+        }
+
+        if (maxStaleness != null) {
+            nextRefreshDate = latest(nextRefreshDate, lastRefreshedDate.plus(maxStaleness));
+        }
+
+        return nextRefreshDate;
+    }
+
+    public int getRefreshCount(final BraintreePaymentTransactionInfoPlugin transaction) {
+        final String refreshCount = transaction.getRefreshCount();
+        if (refreshCount == null) {
+            return 0;
+        }
+
+        try {
+            return Math.max(Integer.parseInt(refreshCount), 0);
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static DateTime latest(final DateTime first, final DateTime second) {
+        return second.isAfter(first) ? second : first;
+    }
+
+    private DateTime getLastRefreshedDate(final BraintreePaymentTransactionInfoPlugin transaction) {
+        final String lastRefreshedDate = transaction.getLastRefreshedDate();
+        if (lastRefreshedDate == null) {
+            return transaction.getCreatedDate();
+        }
+
+        try {
+            return new DateTime(lastRefreshedDate, DateTimeZone.UTC);
+        } catch (final IllegalArgumentException e) {
+            return transaction.getCreatedDate();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+/**
+ * Storage formats of the additional_data columns. JSON documents always start with '{', so deflated values
+ * (Base64 encoded, to fit in the existing text columns) are told apart by their prefix and both can live in the same table.
+ */
+public abstract class BraintreeAdditionalDataFormat {
+
+    public static final String JSON = "json";
+    public static final String DEFLATE = "deflate";
+
+    static final String DEFLATE_PREFIX = "~z1~";
+
+    public static boolean isDeflated(@Nullable final String additionalData) {
+        return additionalData != null && additionalData.startsWith(DEFLATE_PREFIX);
+    }
+
+    /**
+     * Encodes the JSON document in the given format (unknown formats fall back to JSON).
+     * Small documents which wouldn't shrink are kept as JSON.
+     */
+    public static String encode(@Nullable final String json, final String format) {
+        if (json == null || !DEFLATE.equals(format) || isDeflated(json)) {
+            return json;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(json.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(json.length() / 2);
+            final byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            final String deflated = DEFLATE_PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+            return deflated.length() < json.length() ? deflated : json;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the JSON document, whatever the stored format
+     */
+    public static String decode(@Nullable final String additionalData) throws IOException {
+        if (!isDeflated(additionalData)) {
+            return additionalData;
+        }
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            final byte[] input = Base64.getDecoder().decode(additionalData.substring(DEFLATE_PREFIX.length()));
+            // Raw deflate streams need an extra dummy byte
+            final byte[] paddedInput = new byte[input.length + 1];
+            System.arraycopy(input, 0, paddedInput, 0, input.length);
+            inflater.setInput(paddedInput);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            final byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                final int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated additional_data");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (final DataFormatException | IllegalArgumentException e) {
+            throw new IOException("Invalid additional_data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
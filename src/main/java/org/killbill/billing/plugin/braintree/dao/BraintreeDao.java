@@ -22,42 +22,179 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
 
 import com.braintreegateway.Result;
 import com.braintreegateway.Transaction;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
+import org.jooq.types.ULong;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
 import org.killbill.billing.plugin.api.PluginProperties;
 import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
 import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
+import org.killbill.billing.plugin.braintree.dao.BraintreeReadReplicaDataSource.ReplicaReads;
+import org.killbill.billing.plugin.braintree.dao.BraintreeUnitOfWorkDataSource.UnitOfWork;
 import org.killbill.billing.plugin.dao.payment.PluginPaymentDao;
+import org.killbill.clock.Clock;
+import org.killbill.clock.DefaultClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeCacheInvalidationsRecord;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesArchiveRecord;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeVaultImportsRecord;
 
+import static org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS;
 import static org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS;
 import static org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses.BRAINTREE_RESPONSES;
+import static org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE;
+import static org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS;
 
 public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, BraintreeResponses, BraintreePaymentMethodsRecord, BraintreePaymentMethods> {
 
+    private static final Logger logger = LoggerFactory.getLogger(BraintreeDao.class);
+
+    // Cache invalidations shared with the other nodes (see braintree_cache_invalidations)
+    public static final String PAYMENT_METHOD_CACHE = "payment_method";
+    public static final String ACCOUNT_PAYMENT_METHODS_CACHE = "account_payment_methods";
+    public static final String AUTHORIZATION_RESPONSE_CACHE = "authorization_response";
+
+    // additional_data is parsed on every payment and payment method read, don't look up the (de)serializers each time
+    private static final ObjectReader MAP_READER = objectMapper.readerFor(Map.class);
+    private static final ObjectReader TRANSACTION_DATA_READER = objectMapper.readerFor(BraintreeTransactionData.class);
+    private static final ObjectWriter TRANSACTION_DATA_WRITER = objectMapper.writerFor(BraintreeTransactionData.class);
+    // Inlined, so that PostgreSQL always matches the partial braintree_responses_open index (bind values may not)
+    private static final Condition IS_OPEN_RESPONSE = BRAINTREE_RESPONSES.IS_OPEN.equal(DSL.inline((short) TRUE));
+    private static final Condition IS_PENDING_RESPONSE = IS_OPEN_RESPONSE.and(BRAINTREE_RESPONSES.TRANSACTION_STATUS.equal(DSL.inline(PaymentPluginStatus.PENDING.toString())));
+    // additional_data property names are inlined in the JSON path expressions
+    private static final Pattern PROPERTY_NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+    private static final long DEFLATED_RESPONSES_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final BraintreeUnitOfWorkDataSource unitOfWorkDataSource;
+    private final BraintreeReadReplicaDataSource readReplicaDataSource;
+    private final Clock clock;
+    // Accounts whose rows this node wrote recently: not read from the replica, which may not have caught up yet
+    private final Cache<String, Boolean> recentlyWrittenAccounts;
+    private final BraintreePaymentMethodsCache paymentMethodsCache;
+    // Latest AUTHORIZE or PURCHASE response per payment, for follow-up transactions
+    private final Cache<String, BraintreeResponsesRecord> authorizationResponsesCache;
+    // Identifies the invalidations published by this node
+    private final String nodeId = UUID.randomUUID().toString();
+    private final boolean cacheInvalidationsEnabled;
+    // Storage format of the additional_data values written by this node (see BraintreeAdditionalDataFormat)
+    private final String additionalDataFormat;
+    // Sticky, see hasDeflatedResponses
+    private volatile boolean hasDeflatedResponses;
+    private volatile long deflatedResponsesCheckMillis;
+
     public BraintreeDao(final DataSource dataSource) throws SQLException {
-        super(BRAINTREE_RESPONSES, BRAINTREE_PAYMENT_METHODS, dataSource);
+        this(dataSource, new BraintreeConfigProperties(new Properties(), ""));
+    }
+
+    public BraintreeDao(final DataSource dataSource, final BraintreeConfigProperties globalConfiguration) throws SQLException {
+        this(dataSource, null, globalConfiguration);
+    }
+
+    public BraintreeDao(final DataSource dataSource,
+                        @Nullable final DataSource readReplicaDataSource,
+                        final BraintreeConfigProperties globalConfiguration) throws SQLException {
+        this(dataSource, readReplicaDataSource, globalConfiguration, new DefaultClock());
+    }
+
+    public BraintreeDao(final DataSource dataSource,
+                        @Nullable final DataSource readReplicaDataSource,
+                        final BraintreeConfigProperties globalConfiguration,
+                        final Clock clock) throws SQLException {
+        this(new BraintreeReadReplicaDataSource(dataSource, readReplicaDataSource), globalConfiguration, clock);
+    }
+
+    private BraintreeDao(final BraintreeReadReplicaDataSource readReplicaDataSource,
+                         final BraintreeConfigProperties globalConfiguration,
+                         final Clock clock) throws SQLException {
+        super(BRAINTREE_RESPONSES, BRAINTREE_PAYMENT_METHODS, new BraintreeUnitOfWorkDataSource(readReplicaDataSource));
+        this.unitOfWorkDataSource = (BraintreeUnitOfWorkDataSource) this.dataSource;
+        this.readReplicaDataSource = readReplicaDataSource;
+        this.clock = clock;
+        this.recentlyWrittenAccounts = CacheBuilder.newBuilder()
+                                                   .expireAfterWrite(globalConfiguration.getReadReplicaMaxLag().toStandardDuration().getMillis(), TimeUnit.MILLISECONDS)
+                                                   .build();
         // Save space in the database
         objectMapper.setSerializationInclusion(Include.NON_EMPTY);
+        this.paymentMethodsCache = new BraintreePaymentMethodsCache(globalConfiguration.getPaymentMethodCacheMaxSize(), globalConfiguration.getPaymentMethodCacheTtl());
+        this.authorizationResponsesCache = CacheBuilder.newBuilder()
+                                                       .maximumSize(globalConfiguration.getAuthorizationCacheMaxSize())
+                                                       .expireAfterWrite(globalConfiguration.getAuthorizationCacheTtl().toStandardDuration().getMillis(), TimeUnit.MILLISECONDS)
+                                                       .recordStats()
+                                                       .build();
+        this.cacheInvalidationsEnabled = globalConfiguration.getCacheInvalidationPollInterval().toStandardDuration().getMillis() > 0;
+        this.additionalDataFormat = globalConfiguration.getAdditionalDataFormat();
+    }
+
+    /**
+     * Shares a single connection across the DAO calls of the current thread, until the returned unit of work is closed
+     */
+    public UnitOfWork beginUnitOfWork() {
+        return unitOfWorkDataSource.begin();
+    }
+
+    /**
+     * Sends the reads of the current thread to the read replica, if any, until the returned scope is closed.
+     * Accounts written by this node within the replica max lag are still read from the primary.
+     */
+    public ReplicaReads beginReplicaReads(final UUID kbAccountId, final UUID kbTenantId) {
+        final boolean useReplica = readReplicaDataSource.hasReplica() && recentlyWrittenAccounts.getIfPresent(accountKey(kbAccountId, kbTenantId)) == null;
+        return readReplicaDataSource.begin(useReplica);
+    }
+
+    /**
+     * Records a write to the rows of the account, for writes not going through this DAO (e.g. PluginPaymentPluginApi)
+     */
+    public void recordAccountWrite(final Object kbAccountId, final Object kbTenantId) {
+        if (readReplicaDataSource.hasReplica()) {
+            recentlyWrittenAccounts.put(accountKey(kbAccountId, kbTenantId), Boolean.TRUE);
+        }
+    }
+
+    public BraintreePaymentMethodsCache getPaymentMethodsCache() {
+        return paymentMethodsCache;
+    }
+
+    public Cache<String, BraintreeResponsesRecord> getAuthorizationResponsesCache() {
+        return authorizationResponsesCache;
     }
 
     // Payment methods
@@ -68,6 +205,7 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                  final String braintreeToken,
                                  final DateTime utcNow,
                                  final UUID kbTenantId) throws SQLException {
+        recordAccountWrite(kbAccountId, kbTenantId);
         execute(dataSource.getConnection(),
                 new WithConnectionCallback<BraintreeResponsesRecord>() {
                     @Override
@@ -88,7 +226,7 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                         braintreeToken,
                                         (short) (isDefault? TRUE : FALSE),
                                         (short) FALSE,
-                                        asString(additionalDataMap),
+                                        encodeAdditionalData(asString(additionalDataMap)),
                                         toLocalDateTime(utcNow),
                                         toLocalDateTime(utcNow),
                                         kbTenantId.toString()
@@ -98,6 +236,76 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                         return null;
                     }
                 });
+        paymentMethodsCache.invalidate(kbPaymentMethodId, kbTenantId);
+    }
+
+    @Override
+    public BraintreePaymentMethodsRecord getPaymentMethod(final UUID kbPaymentMethodId, final UUID kbTenantId) throws SQLException {
+        final BraintreePaymentMethodsRecord cachedRecord = paymentMethodsCache.get(kbPaymentMethodId, kbTenantId);
+        if (cachedRecord != null) {
+            return cachedRecord;
+        }
+
+        final BraintreePaymentMethodsRecord record = super.getPaymentMethod(kbPaymentMethodId, kbTenantId);
+        // The replica may lag behind the invalidations
+        if (record != null && !readReplicaDataSource.isReplicaReads()) {
+            paymentMethodsCache.put(record);
+        }
+        return record;
+    }
+
+    public void invalidatePaymentMethod(final UUID kbPaymentMethodId, final UUID kbTenantId) {
+        paymentMethodsCache.invalidate(kbPaymentMethodId, kbTenantId);
+        publishCacheInvalidations(ImmutableList.<BraintreeCacheInvalidationsRecord>of(newCacheInvalidation(PAYMENT_METHOD_CACHE, kbPaymentMethodId, kbTenantId)));
+    }
+
+    public void invalidatePaymentMethods(final UUID kbAccountId, final UUID kbTenantId) {
+        recordAccountWrite(kbAccountId, kbTenantId);
+        paymentMethodsCache.invalidateAccount(kbAccountId, kbTenantId);
+        publishCacheInvalidations(ImmutableList.<BraintreeCacheInvalidationsRecord>of(newCacheInvalidation(ACCOUNT_PAYMENT_METHODS_CACHE, kbAccountId, kbTenantId)));
+    }
+
+    public List<UUID> getTenantIdsWithPaymentMethods() throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<UUID>>() {
+                    @Override
+                    public List<UUID> withConnection(final Connection conn) throws SQLException {
+                        final List<UUID> kbTenantIds = new LinkedList<UUID>();
+                        for (final String kbTenantId : DSL.using(conn, dialect, settings)
+                                                          .selectDistinct(BRAINTREE_PAYMENT_METHODS.KB_TENANT_ID)
+                                                          .from(BRAINTREE_PAYMENT_METHODS)
+                                                          .where(BRAINTREE_PAYMENT_METHODS.IS_DELETED.equal((short) FALSE))
+                                                          .fetch(BRAINTREE_PAYMENT_METHODS.KB_TENANT_ID)) {
+                            kbTenantIds.add(UUID.fromString(kbTenantId));
+                        }
+                        return kbTenantIds;
+                    }
+                });
+    }
+
+    /**
+     * Loads the most recently updated payment methods of the tenant in the cache
+     *
+     * @return the number of payment methods loaded
+     */
+    public int warmPaymentMethodsCache(final UUID kbTenantId, final int limit) throws SQLException {
+        final List<BraintreePaymentMethodsRecord> records = execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreePaymentMethodsRecord>>() {
+                    @Override
+                    public List<BraintreePaymentMethodsRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_PAYMENT_METHODS)
+                                  .where(BRAINTREE_PAYMENT_METHODS.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                  .and(BRAINTREE_PAYMENT_METHODS.IS_DELETED.equal((short) FALSE))
+                                  .orderBy(BRAINTREE_PAYMENT_METHODS.UPDATED_DATE.desc())
+                                  .limit(limit)
+                                  .fetch();
+                    }
+                });
+        for (final BraintreePaymentMethodsRecord record : records) {
+            paymentMethodsCache.put(record);
+        }
+        return records.size();
     }
 
     public void updatePaymentMethod(final UUID kbPaymentMethodId,
@@ -111,7 +319,7 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                     public BraintreeResponsesRecord withConnection(final Connection conn) throws SQLException {
                         DSL.using(conn, dialect, settings)
                                 .update(BRAINTREE_PAYMENT_METHODS)
-                                .set(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA, asString(additionalDataMap))
+                                .set(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA, encodeAdditionalData(asString(additionalDataMap)))
                                 .set(BRAINTREE_PAYMENT_METHODS.UPDATED_DATE, toLocalDateTime(utcNow))
                                 .where(BRAINTREE_PAYMENT_METHODS.KB_PAYMENT_METHOD_ID.equal(kbPaymentMethodId.toString()))
                                 .and(BRAINTREE_PAYMENT_METHODS.BRAINTREE_ID.equal(braintreeId))
@@ -120,6 +328,60 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                         return null;
                     }
                 });
+        invalidatePaymentMethod(kbPaymentMethodId, kbTenantId);
+    }
+
+    /**
+     * Updates the additional data of several payment methods in a single transaction
+     */
+    public void updatePaymentMethods(final Map<BraintreePaymentMethodsRecord, Map<String, Object>> additionalDataByPaymentMethod,
+                                     final DateTime utcNow,
+                                     final UUID kbTenantId) throws SQLException {
+        if (additionalDataByPaymentMethod.isEmpty()) {
+            return;
+        }
+
+        try (final UnitOfWork ignored = beginUnitOfWork()) {
+            execute(dataSource.getConnection(),
+                    connection -> {
+                        DSL.using(connection, dialect, settings).transaction(configuration -> {
+                            final DSLContext dslContext = DSL.using(configuration);
+                            final List<Query> queries = new LinkedList<Query>();
+                            for (final Map.Entry<BraintreePaymentMethodsRecord, Map<String, Object>> entry : additionalDataByPaymentMethod.entrySet()) {
+                                queries.add(dslContext.update(BRAINTREE_PAYMENT_METHODS)
+                                                      .set(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA, encodeAdditionalData(asString(entry.getValue())))
+                                                      .set(BRAINTREE_PAYMENT_METHODS.UPDATED_DATE, toLocalDateTime(utcNow))
+                                                      .where(BRAINTREE_PAYMENT_METHODS.KB_PAYMENT_METHOD_ID.equal(entry.getKey().getKbPaymentMethodId()))
+                                                      .and(BRAINTREE_PAYMENT_METHODS.BRAINTREE_ID.equal(entry.getKey().getBraintreeId()))
+                                                      .and(BRAINTREE_PAYMENT_METHODS.KB_TENANT_ID.equal(kbTenantId.toString())));
+                            }
+                            dslContext.batch(queries).execute();
+                        });
+                        return null;
+                    });
+
+            final List<BraintreeCacheInvalidationsRecord> cacheInvalidations = new LinkedList<BraintreeCacheInvalidationsRecord>();
+            for (final BraintreePaymentMethodsRecord record : additionalDataByPaymentMethod.keySet()) {
+                recordAccountWrite(record.getKbAccountId(), kbTenantId);
+                paymentMethodsCache.invalidate(UUID.fromString(record.getKbPaymentMethodId()), kbTenantId);
+                cacheInvalidations.add(newCacheInvalidation(PAYMENT_METHOD_CACHE, record.getKbPaymentMethodId(), kbTenantId));
+            }
+            publishCacheInvalidations(cacheInvalidations);
+        }
+    }
+
+    /**
+     * Whether the stored additional data of the payment method already matches additionalDataMap (as serialized)
+     */
+    public boolean hasAdditionalData(final BraintreePaymentMethodsRecord record, final Map<String, Object> additionalDataMap) {
+        final String additionalData = stringFromAdditionalDataMap(additionalDataMap);
+        final String storedAdditionalData = jsonFromAdditionalDataString(record.getAdditionalData());
+        if (additionalData == null || storedAdditionalData == null) {
+            return additionalData == storedAdditionalData;
+        }
+        // Compare the parsed documents, the key order isn't stable
+        return additionalData.equals(storedAdditionalData) ||
+               mapFromAdditionalDataString(additionalData).equals(mapFromAdditionalDataString(storedAdditionalData));
     }
 
     // Responses
@@ -133,9 +395,10 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                                 final Result<Transaction> braintreeResult,
                                                 final DateTime utcNow,
                                                 final UUID kbTenantId) throws SQLException {
-        final Map<String, Object> additionalDataMap = BraintreePluginProperties.toAdditionalDataMap(braintreeResult);
+        final BraintreeTransactionData transactionData = BraintreeTransactionData.build(braintreeResult);
 
-        return execute(dataSource.getConnection(),
+        recordAccountWrite(kbAccountId, kbTenantId);
+        final BraintreeResponsesRecord record = execute(dataSource.getConnection(),
                 connection -> DSL.using(connection, dialect, settings).transactionResult(configuration -> {
                     final DSLContext dslContext = DSL.using(configuration);
                     dslContext.insertInto(BRAINTREE_RESPONSES,
@@ -146,9 +409,11 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                     BRAINTREE_RESPONSES.AMOUNT,
                                     BRAINTREE_RESPONSES.CURRENCY,
                                     BRAINTREE_RESPONSES.BRAINTREE_ID,
+                                    BRAINTREE_RESPONSES.TRANSACTION_STATUS,
                                     BRAINTREE_RESPONSES.ADDITIONAL_DATA,
                                     BRAINTREE_RESPONSES.CREATED_DATE,
-                                    BRAINTREE_RESPONSES.KB_TENANT_ID)
+                                    BRAINTREE_RESPONSES.KB_TENANT_ID,
+                                    BRAINTREE_RESPONSES.IS_OPEN)
                             .values(kbAccountId.toString(),
                                     kbPaymentId.toString(),
                                     kbPaymentTransactionId.toString(),
@@ -156,13 +421,20 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                     amount,
                                     currency == null ? null : currency.name(),
                                     BraintreeClient.getTransactionInstance(braintreeResult).getId(),
-                                    asString(additionalDataMap),
+                                    transactionData.getPaymentPluginStatus().toString(),
+                                    encodeAdditionalData(stringFromTransactionData(transactionData)),
                                     toLocalDateTime(utcNow),
-                                    kbTenantId.toString())
+                                    kbTenantId.toString(),
+                                    (short) (transactionData.isOpen() ? TRUE : FALSE))
                             .execute();
                     return dslContext.fetchOne(BRAINTREE_RESPONSES,
                             BRAINTREE_RESPONSES.RECORD_ID.eq(BRAINTREE_RESPONSES.RECORD_ID.getDataType().convert(dslContext.lastID())));
             }));
+
+        if (record != null && (transactionType == TransactionType.AUTHORIZE || transactionType == TransactionType.PURCHASE)) {
+            authorizationResponsesCache.put(authorizationCacheKey(kbPaymentId, kbTenantId), record);
+        }
+        return record;
     }
 
     public BraintreeResponsesRecord updateResponse(final UUID kbPaymentTransactionId,
@@ -175,57 +447,188 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
     public BraintreeResponsesRecord updateResponse(final UUID kbPaymentTransactionId,
                                                 final Map<String, Object> additionalProperties,
                                                 final UUID kbTenantId) throws SQLException {
-        return execute(dataSource.getConnection(),
-                new WithConnectionCallback<BraintreeResponsesRecord>() {
-                    @Override
-                    public BraintreeResponsesRecord withConnection(final Connection conn) throws SQLException {
-                        final BraintreeResponsesRecord response = DSL.using(conn, dialect, settings)
-                                .selectFrom(BRAINTREE_RESPONSES)
-                                .where(BRAINTREE_RESPONSES.KB_PAYMENT_TRANSACTION_ID.equal(kbPaymentTransactionId.toString()))
-                                .and(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(kbTenantId.toString()))
-                                .orderBy(BRAINTREE_RESPONSES.RECORD_ID.desc())
-                                .limit(1)
-                                .fetchOne();
+        try (final UnitOfWork ignored = beginUnitOfWork()) {
+            final BraintreeResponsesRecord updatedResponse = execute(dataSource.getConnection(),
+                    new WithConnectionCallback<BraintreeResponsesRecord>() {
+                        @Override
+                        public BraintreeResponsesRecord withConnection(final Connection conn) throws SQLException {
+                            final BraintreeResponsesRecord response = DSL.using(conn, dialect, settings)
+                                    .selectFrom(BRAINTREE_RESPONSES)
+                                    .where(BRAINTREE_RESPONSES.KB_PAYMENT_TRANSACTION_ID.equal(kbPaymentTransactionId.toString()))
+                                    .and(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                    .orderBy(BRAINTREE_RESPONSES.RECORD_ID.desc())
+                                    .limit(1)
+                                    .fetchOne();
 
-                        if (response == null) {
-                            return null;
+                            if (response == null) {
+                                return null;
+                            }
+
+                            final Map originalData = new HashMap(mapFromAdditionalDataString(response.getAdditionalData()));
+                            originalData.putAll(additionalProperties);
+
+                            DSL.using(conn, dialect, settings)
+                                    .update(BRAINTREE_RESPONSES)
+                                    .set(BRAINTREE_RESPONSES.TRANSACTION_STATUS, toTransactionStatus(originalData))
+                                    .set(BRAINTREE_RESPONSES.IS_OPEN, toIsOpen(originalData))
+                                    .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, encodeAdditionalData(asString(originalData)))
+                                    .where(BRAINTREE_RESPONSES.RECORD_ID.equal(response.getRecordId()))
+                                    .execute();
+                            return response;
                         }
+                    });
+            if (updatedResponse != null) {
+                recordAccountWrite(updatedResponse.getKbAccountId(), updatedResponse.getKbTenantId());
+                invalidateAuthorizationResponses(ImmutableList.<BraintreeResponsesRecord>of(updatedResponse));
+            }
+            return updatedResponse;
+        }
+    }
 
-                        final Map originalData = new HashMap(mapFromAdditionalDataString(response.getAdditionalData()));
-                        originalData.putAll(additionalProperties);
+    public void updateResponse(final BraintreeResponsesRecord braintreeResponsesRecord,
+                               final Map additionalMetadata) throws SQLException {
+        try (final UnitOfWork ignored = beginUnitOfWork()) {
+            final Map additionalDataMap = mapFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData());
+            additionalDataMap.putAll(additionalMetadata);
+            recordAccountWrite(braintreeResponsesRecord.getKbAccountId(), braintreeResponsesRecord.getKbTenantId());
 
-                        DSL.using(conn, dialect, settings)
-                                .update(BRAINTREE_RESPONSES)
-                                .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, asString(originalData))
-                                .where(BRAINTREE_RESPONSES.RECORD_ID.equal(response.getRecordId()))
-                                .execute();
-                        return response;
+            execute(dataSource.getConnection(),
+                    new WithConnectionCallback<Void>() {
+                        @Override
+                        public Void withConnection(final Connection conn) throws SQLException {
+                            DSL.using(conn, dialect, settings)
+                                    .update(BRAINTREE_RESPONSES)
+                                    .set(BRAINTREE_RESPONSES.TRANSACTION_STATUS, toTransactionStatus(additionalDataMap))
+                                    .set(BRAINTREE_RESPONSES.IS_OPEN, toIsOpen(additionalDataMap))
+                                    .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, encodeAdditionalData(asString(additionalDataMap)))
+                                    .where(BRAINTREE_RESPONSES.RECORD_ID.equal(braintreeResponsesRecord.getRecordId()))
+                                    .execute();
+                            return null;
+                        }
+                    });
+            invalidateAuthorizationResponses(ImmutableList.<BraintreeResponsesRecord>of(braintreeResponsesRecord));
+        }
+    }
+
+    public List<UUID> getTenantIdsWithPendingResponses() throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<UUID>>() {
+                    @Override
+                    public List<UUID> withConnection(final Connection conn) throws SQLException {
+                        final List<UUID> kbTenantIds = new LinkedList<UUID>();
+                        for (final String kbTenantId : DSL.using(conn, dialect, settings)
+                                                          .selectDistinct(BRAINTREE_RESPONSES.KB_TENANT_ID)
+                                                          .from(BRAINTREE_RESPONSES)
+                                                          .where(IS_PENDING_RESPONSE)
+                                                          .fetch(BRAINTREE_RESPONSES.KB_TENANT_ID)) {
+                            kbTenantIds.add(UUID.fromString(kbTenantId));
+                        }
+                        return kbTenantIds;
                     }
                 });
     }
 
-    public void updateResponse(final BraintreeResponsesRecord braintreeResponsesRecord,
-                               final Map additionalMetadata) throws SQLException {
-        final Map additionalDataMap = mapFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData());
-        additionalDataMap.putAll(additionalMetadata);
+    /**
+     * Open responses of the tenant (see BraintreePluginProperties#isOpen), ordered by record id: pass the last one seen as afterRecordId to get the next page
+     */
+    public List<BraintreeResponsesRecord> getOpenResponses(@Nullable final ULong afterRecordId, final int limit, final UUID kbTenantId) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
+                    @Override
+                    public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_RESPONSES)
+                                  .where(IS_OPEN_RESPONSE)
+                                  .and(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                  .and(afterRecordId == null ? DSL.trueCondition() : BRAINTREE_RESPONSES.RECORD_ID.greaterThan(afterRecordId))
+                                  .orderBy(BRAINTREE_RESPONSES.RECORD_ID.asc())
+                                  .limit(limit)
+                                  .fetch();
+                    }
+                });
+    }
 
-        execute(dataSource.getConnection(),
-                new WithConnectionCallback<Void>() {
+    /**
+     * Pending AUTHORIZE or PURCHASE responses created before the cutoff, which are the latest response of their payment.
+     * Results are ordered by record id, pass the last one seen as afterRecordId to get the next page.
+     */
+    public List<BraintreeResponsesRecord> getPendingInitialResponsesCreatedBefore(final DateTime cutoff,
+                                                                                 @Nullable final ULong afterRecordId,
+                                                                                 final int limit,
+                                                                                 final UUID kbTenantId) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
                     @Override
-                    public Void withConnection(final Connection conn) throws SQLException {
-                        DSL.using(conn, dialect, settings)
-                                .update(BRAINTREE_RESPONSES)
-                                .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, asString(additionalDataMap))
-                                .where(BRAINTREE_RESPONSES.RECORD_ID.equal(braintreeResponsesRecord.getRecordId()))
-                                .execute();
-                        return null;
+                    public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                        final BraintreeResponses laterResponses = BRAINTREE_RESPONSES.as("later_responses");
+                        return DSL.using(conn, dialect, settings)
+                                .selectFrom(BRAINTREE_RESPONSES)
+                                .where(IS_PENDING_RESPONSE)
+                                .and(BRAINTREE_RESPONSES.CREATED_DATE.lessThan(toLocalDateTime(cutoff)))
+                                .and(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                .and(BRAINTREE_RESPONSES.TRANSACTION_TYPE.in(TransactionType.AUTHORIZE.toString(), TransactionType.PURCHASE.toString()))
+                                .and(afterRecordId == null ? DSL.trueCondition() : BRAINTREE_RESPONSES.RECORD_ID.greaterThan(afterRecordId))
+                                .andNotExists(DSL.selectOne()
+                                                 .from(laterResponses)
+                                                 .where(laterResponses.KB_PAYMENT_ID.equal(BRAINTREE_RESPONSES.KB_PAYMENT_ID))
+                                                 .and(laterResponses.KB_TENANT_ID.equal(BRAINTREE_RESPONSES.KB_TENANT_ID))
+                                                 .and(laterResponses.RECORD_ID.greaterThan(BRAINTREE_RESPONSES.RECORD_ID)))
+                                .orderBy(BRAINTREE_RESPONSES.RECORD_ID.asc())
+                                .limit(limit)
+                                .fetch();
                     }
                 });
     }
 
+    /**
+     * Merge the metadata into each response, in a single transaction. Responses which are no longer pending are left untouched.
+     */
+    public int updatePendingResponses(final Iterable<BraintreeResponsesRecord> braintreeResponsesRecords,
+                                      final Map<String, Object> additionalMetadata) throws SQLException {
+        try (final UnitOfWork ignored = beginUnitOfWork()) {
+            for (final BraintreeResponsesRecord braintreeResponsesRecord : braintreeResponsesRecords) {
+                recordAccountWrite(braintreeResponsesRecord.getKbAccountId(), braintreeResponsesRecord.getKbTenantId());
+                authorizationResponsesCache.invalidate(authorizationCacheKey(braintreeResponsesRecord.getKbPaymentId(), braintreeResponsesRecord.getKbTenantId()));
+            }
+
+            final int updatedResponses = execute(dataSource.getConnection(),
+                    connection -> DSL.using(connection, dialect, settings).transactionResult(configuration -> {
+                        final DSLContext dslContext = DSL.using(configuration);
+                        final List<Query> queries = new LinkedList<Query>();
+                        for (final BraintreeResponsesRecord braintreeResponsesRecord : braintreeResponsesRecords) {
+                            final Map additionalDataMap = new HashMap(mapFromAdditionalDataString(braintreeResponsesRecord.getAdditionalData()));
+                            additionalDataMap.putAll(additionalMetadata);
+                            queries.add(dslContext.update(BRAINTREE_RESPONSES)
+                                                  .set(BRAINTREE_RESPONSES.TRANSACTION_STATUS, toTransactionStatus(additionalDataMap))
+                                                  .set(BRAINTREE_RESPONSES.IS_OPEN, toIsOpen(additionalDataMap))
+                                                  .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, encodeAdditionalData(asString(additionalDataMap)))
+                                                  .where(BRAINTREE_RESPONSES.RECORD_ID.equal(braintreeResponsesRecord.getRecordId()))
+                                                  .and(BRAINTREE_RESPONSES.TRANSACTION_STATUS.equal(PaymentPluginStatus.PENDING.toString())));
+                        }
+                        if (queries.isEmpty()) {
+                            return 0;
+                        }
+
+                        int updated = 0;
+                        for (final int count : dslContext.batch(queries).execute()) {
+                            updated += Math.max(count, 0);
+                        }
+                        return updated;
+                    }));
+            invalidateAuthorizationResponses(braintreeResponsesRecords);
+            return updatedResponses;
+        }
+    }
+
     @Override
     public BraintreeResponsesRecord getSuccessfulAuthorizationResponse(final UUID kbPaymentId, final UUID kbTenantId) throws SQLException {
-        return execute(dataSource.getConnection(),
+        final String cacheKey = authorizationCacheKey(kbPaymentId, kbTenantId);
+        final BraintreeResponsesRecord cachedRecord = authorizationResponsesCache.getIfPresent(cacheKey);
+        if (cachedRecord != null) {
+            return cachedRecord;
+        }
+
+        BraintreeResponsesRecord record = execute(dataSource.getConnection(),
                 new WithConnectionCallback<BraintreeResponsesRecord>() {
                     @Override
                     public BraintreeResponsesRecord withConnection(final Connection conn) throws SQLException {
@@ -242,8 +645,613 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
                                 .fetchOne();
                     }
                 });
+        if (record == null) {
+            // e.g. refund of an archived purchase
+            record = getArchivedAuthorizationResponse(kbPaymentId, kbTenantId);
+        }
+        if (record != null) {
+            authorizationResponsesCache.put(cacheKey, record);
+        }
+        return record;
     }
 
+    // Only AUTHORIZE and PURCHASE responses are cached (see getSuccessfulAuthorizationResponse)
+    private void invalidateAuthorizationResponses(final Iterable<BraintreeResponsesRecord> braintreeResponsesRecords) {
+        final List<BraintreeCacheInvalidationsRecord> cacheInvalidations = new LinkedList<BraintreeCacheInvalidationsRecord>();
+        for (final BraintreeResponsesRecord braintreeResponsesRecord : braintreeResponsesRecords) {
+            if (!isAuthorizationResponse(braintreeResponsesRecord)) {
+                continue;
+            }
+            authorizationResponsesCache.invalidate(authorizationCacheKey(braintreeResponsesRecord.getKbPaymentId(), braintreeResponsesRecord.getKbTenantId()));
+            cacheInvalidations.add(newCacheInvalidation(AUTHORIZATION_RESPONSE_CACHE, braintreeResponsesRecord.getKbPaymentId(), braintreeResponsesRecord.getKbTenantId()));
+        }
+        publishCacheInvalidations(cacheInvalidations);
+    }
+
+    /**
+     * Most recent responses (up to limit) whose additional data has the given top-level string property value.
+     * The filter runs in the database (see the V20261019150000 migrations), rows in the deflate format are checked once decoded:
+     * candidates are read by pages until enough of them match.
+     */
+    public List<BraintreeResponsesRecord> getResponsesByAdditionalData(final String key,
+                                                                        final String value,
+                                                                        final int limit,
+                                                                        final UUID kbTenantId) throws SQLException {
+        if (!PROPERTY_NAME_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid property name " + key);
+        }
+
+        final boolean includeDeflated = hasDeflatedResponses();
+        final boolean isFilterExact = !includeDeflated && isAdditionalDataFilterExact();
+        final List<BraintreeResponsesRecord> responses = new LinkedList<BraintreeResponsesRecord>();
+        ULong beforeRecordId = null;
+        while (responses.size() < limit) {
+            final ULong pageBeforeRecordId = beforeRecordId;
+            final List<BraintreeResponsesRecord> candidates = execute(dataSource.getConnection(),
+                    new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
+                        @Override
+                        public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                            Condition condition = additionalDataEquals(key, value);
+                            if (includeDeflated) {
+                                condition = condition.or(BRAINTREE_RESPONSES.ADDITIONAL_DATA.like(BraintreeAdditionalDataFormat.DEFLATE_PREFIX + "%"));
+                            }
+                            return DSL.using(conn, dialect, settings)
+                                      .selectFrom(BRAINTREE_RESPONSES)
+                                      .where(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                      .and(condition)
+                                      .and(pageBeforeRecordId == null ? DSL.trueCondition() : BRAINTREE_RESPONSES.RECORD_ID.lessThan(pageBeforeRecordId))
+                                      .orderBy(BRAINTREE_RESPONSES.RECORD_ID.desc())
+                                      .limit(limit)
+                                      .fetch();
+                        }
+                    });
+
+            for (final BraintreeResponsesRecord candidate : candidates) {
+                if (responses.size() == limit) {
+                    break;
+                }
+                if (isFilterExact) {
+                    responses.add(candidate);
+                    continue;
+                }
+                final Object candidateValue = mapFromAdditionalDataString(candidate.getAdditionalData()).get(key);
+                if (candidateValue != null && value.equals(candidateValue.toString())) {
+                    responses.add(candidate);
+                }
+            }
+
+            if (candidates.size() < limit) {
+                break;
+            }
+            beforeRecordId = candidates.get(candidates.size() - 1).getRecordId();
+        }
+        return responses;
+    }
+
+    /**
+     * Whether braintree_responses may hold deflated rows: always the case once the deflate format has been used, even if the
+     * configured format changed since (or another node uses it). Looked up again at most every minute until some are found.
+     */
+    private boolean hasDeflatedResponses() throws SQLException {
+        if (hasDeflatedResponses || BraintreeAdditionalDataFormat.DEFLATE.equals(additionalDataFormat)) {
+            return true;
+        }
+
+        final long nowMillis = clock.getUTCNow().getMillis();
+        if (nowMillis - deflatedResponsesCheckMillis < DEFLATED_RESPONSES_CHECK_INTERVAL_MILLIS) {
+            return false;
+        }
+        deflatedResponsesCheckMillis = nowMillis;
+        hasDeflatedResponses = execute(dataSource.getConnection(),
+                new WithConnectionCallback<Boolean>() {
+                    @Override
+                    public Boolean withConnection(final Connection conn) throws SQLException {
+                        final DSLContext dslContext = DSL.using(conn, dialect, settings);
+                        return dslContext.fetchExists(dslContext.selectOne()
+                                                                .from(BRAINTREE_RESPONSES)
+                                                                .where(BRAINTREE_RESPONSES.ADDITIONAL_DATA.like(BraintreeAdditionalDataFormat.DEFLATE_PREFIX + "%")));
+                    }
+                });
+        return hasDeflatedResponses;
+    }
+
+    // Must match the indexed expressions of the migrations
+    private Condition additionalDataEquals(final String key, final String value) {
+        switch (dialect.family()) {
+            case POSTGRES:
+                return DSL.condition("(case when additional_data like {0} then cast(additional_data as jsonb) end) @> cast({1} as jsonb)",
+                                     DSL.inline("{%"),
+                                     DSL.val(stringFromAdditionalDataMap(ImmutableMap.<String, Object>of(key, value))));
+            case MYSQL:
+            case MARIADB:
+                return DSL.condition("(case when additional_data like {0} then json_unquote(json_extract(additional_data, {1})) end) = {2}",
+                                     DSL.inline("{%"),
+                                     DSL.inline("$." + key),
+                                     DSL.val(value));
+            default:
+                // JSON as written by Jackson, may also match nested properties
+                final String property = stringFromAdditionalDataMap(ImmutableMap.<String, Object>of(key, value));
+                return BRAINTREE_RESPONSES.ADDITIONAL_DATA.like("%" + escapeLike(property.substring(1, property.length() - 1)) + "%", '!');
+        }
+    }
+
+    private boolean isAdditionalDataFilterExact() {
+        return dialect.family() == SQLDialect.POSTGRES || dialect.family() == SQLDialect.MYSQL || dialect.family() == SQLDialect.MARIADB;
+    }
+
+    private static String escapeLike(final String string) {
+        return string.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // Archive
+
+    /**
+     * Responses of the payment, including the ones moved to braintree_responses_archive.
+     * Payments are archived as a whole (see archiveResponses), so the archive is only looked up when the payment
+     * doesn't start with an AUTHORIZE, PURCHASE or CREDIT response in braintree_responses.
+     */
+    @Override
+    public List<BraintreeResponsesRecord> getResponses(final UUID kbPaymentId, final UUID kbTenantId) throws SQLException {
+        final List<BraintreeResponsesRecord> responses = super.getResponses(kbPaymentId, kbTenantId);
+        if (!responses.isEmpty() && isInitialResponse(responses.get(0))) {
+            return responses;
+        }
+
+        final List<BraintreeResponsesRecord> archivedResponses = execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
+                    @Override
+                    public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_RESPONSES_ARCHIVE)
+                                  .where(BRAINTREE_RESPONSES_ARCHIVE.KB_PAYMENT_ID.equal(kbPaymentId.toString()))
+                                  .and(BRAINTREE_RESPONSES_ARCHIVE.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                  .orderBy(BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID.asc())
+                                  .fetch()
+                                  .into(BRAINTREE_RESPONSES);
+                    }
+                });
+        if (archivedResponses.isEmpty()) {
+            return responses;
+        }
+
+        // Archived responses are older than the ones left in braintree_responses
+        final List<BraintreeResponsesRecord> allResponses = new LinkedList<BraintreeResponsesRecord>(archivedResponses);
+        allResponses.addAll(responses);
+        return allResponses;
+    }
+
+    /**
+     * Responses created before the cutoff whose payment has neither an open response (see BraintreePluginProperties#isOpen) nor a response created since the cutoff,
+     * ordered by record id: pass the last one seen as afterRecordId to get the next page. Only the record id, payment and tenant ids are fetched.
+     */
+    public List<BraintreeResponsesRecord> getArchivableResponses(final DateTime cutoff, @Nullable final ULong afterRecordId, final int limit) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
+                    @Override
+                    public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                        final BraintreeResponses openResponses = BRAINTREE_RESPONSES.as("open_responses");
+                        final BraintreeResponses recentResponses = BRAINTREE_RESPONSES.as("recent_responses");
+                        return DSL.using(conn, dialect, settings)
+                                  .select(BRAINTREE_RESPONSES.RECORD_ID, BRAINTREE_RESPONSES.KB_PAYMENT_ID, BRAINTREE_RESPONSES.KB_TENANT_ID)
+                                  .from(BRAINTREE_RESPONSES)
+                                  .where(BRAINTREE_RESPONSES.CREATED_DATE.lessThan(toLocalDateTime(cutoff)))
+                                  .and(afterRecordId == null ? DSL.trueCondition() : BRAINTREE_RESPONSES.RECORD_ID.greaterThan(afterRecordId))
+                                  .andNotExists(DSL.selectOne()
+                                                   .from(openResponses)
+                                                   .where(openResponses.KB_PAYMENT_ID.equal(BRAINTREE_RESPONSES.KB_PAYMENT_ID))
+                                                   .and(openResponses.KB_TENANT_ID.equal(BRAINTREE_RESPONSES.KB_TENANT_ID))
+                                                   .and(openResponses.IS_OPEN.equal(DSL.inline((short) TRUE))))
+                                  .andNotExists(DSL.selectOne()
+                                                   .from(recentResponses)
+                                                   .where(recentResponses.KB_PAYMENT_ID.equal(BRAINTREE_RESPONSES.KB_PAYMENT_ID))
+                                                   .and(recentResponses.KB_TENANT_ID.equal(BRAINTREE_RESPONSES.KB_TENANT_ID))
+                                                   .and(recentResponses.CREATED_DATE.greaterOrEqual(toLocalDateTime(cutoff))))
+                                  .orderBy(BRAINTREE_RESPONSES.RECORD_ID.asc())
+                                  .limit(limit)
+                                  .fetchInto(BRAINTREE_RESPONSES);
+                    }
+                });
+    }
+
+    /**
+     * Moves all the responses of the payments of the given responses to braintree_responses_archive, in a single transaction.
+     * The additional data is always compressed in the archive. Payments which have an open response (e.g. authorized or submitted
+     * for settlement, as archived responses are never refreshed), or a response created since the cutoff, are left untouched.
+     */
+    public int archiveResponses(final DateTime cutoff, final Iterable<BraintreeResponsesRecord> braintreeResponsesRecords) throws SQLException {
+        final Set<String> paymentKeys = new HashSet<String>();
+        final List<Condition> paymentConditions = new LinkedList<Condition>();
+        for (final BraintreeResponsesRecord braintreeResponsesRecord : braintreeResponsesRecords) {
+            if (paymentKeys.add(authorizationCacheKey(braintreeResponsesRecord.getKbPaymentId(), braintreeResponsesRecord.getKbTenantId()))) {
+                paymentConditions.add(BRAINTREE_RESPONSES.KB_PAYMENT_ID.equal(braintreeResponsesRecord.getKbPaymentId())
+                                                                       .and(BRAINTREE_RESPONSES.KB_TENANT_ID.equal(braintreeResponsesRecord.getKbTenantId())));
+            }
+        }
+        if (paymentConditions.isEmpty()) {
+            return 0;
+        }
+        final LocalDateTime cutoffDate = toLocalDateTime(cutoff);
+
+        return execute(dataSource.getConnection(),
+                connection -> DSL.using(connection, dialect, settings).transactionResult(configuration -> {
+                    final DSLContext dslContext = DSL.using(configuration);
+                    final List<BraintreeResponsesRecord> responses = dslContext.selectFrom(BRAINTREE_RESPONSES)
+                                                                               .where(DSL.or(paymentConditions))
+                                                                               .orderBy(BRAINTREE_RESPONSES.RECORD_ID.asc())
+                                                                               .forUpdate()
+                                                                               .fetch();
+
+                    // The payment may have been updated since the responses were looked up
+                    final Set<String> openPaymentKeys = new HashSet<String>();
+                    for (final BraintreeResponsesRecord response : responses) {
+                        if (isOpen(response) || !response.getCreatedDate().isBefore(cutoffDate)) {
+                            openPaymentKeys.add(authorizationCacheKey(response.getKbPaymentId(), response.getKbTenantId()));
+                        }
+                    }
+
+                    final List<BraintreeResponsesArchiveRecord> archivedResponses = new LinkedList<BraintreeResponsesArchiveRecord>();
+                    final List<ULong> recordIds = new LinkedList<ULong>();
+                    for (final BraintreeResponsesRecord response : responses) {
+                        final String paymentKey = authorizationCacheKey(response.getKbPaymentId(), response.getKbTenantId());
+                        if (!paymentKeys.contains(paymentKey) || openPaymentKeys.contains(paymentKey)) {
+                            continue;
+                        }
+
+                        // The archive has its own record ids, in the same order
+                        final BraintreeResponsesArchiveRecord archivedResponse = response.into(BRAINTREE_RESPONSES_ARCHIVE);
+                        archivedResponse.changed(true);
+                        archivedResponse.changed(BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID, false);
+                        archivedResponse.setAdditionalData(BraintreeAdditionalDataFormat.encode(response.getAdditionalData(), BraintreeAdditionalDataFormat.DEFLATE));
+                        archivedResponses.add(archivedResponse);
+                        recordIds.add(response.getRecordId());
+                    }
+                    if (archivedResponses.isEmpty()) {
+                        return 0;
+                    }
+
+                    dslContext.batchInsert(archivedResponses).execute();
+                    return dslContext.deleteFrom(BRAINTREE_RESPONSES)
+                                     .where(BRAINTREE_RESPONSES.RECORD_ID.in(recordIds))
+                                     .execute();
+                }));
+    }
+
+    @Nullable
+    private BraintreeResponsesRecord getArchivedAuthorizationResponse(final UUID kbPaymentId, final UUID kbTenantId) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<BraintreeResponsesRecord>() {
+                    @Override
+                    public BraintreeResponsesRecord withConnection(final Connection conn) throws SQLException {
+                        final BraintreeResponsesArchiveRecord record = DSL.using(conn, dialect, settings)
+                                                                          .selectFrom(BRAINTREE_RESPONSES_ARCHIVE)
+                                                                          .where(BRAINTREE_RESPONSES_ARCHIVE.KB_PAYMENT_ID.equal(kbPaymentId.toString()))
+                                                                          .and(BRAINTREE_RESPONSES_ARCHIVE.TRANSACTION_TYPE.in(TransactionType.AUTHORIZE.toString(), TransactionType.PURCHASE.toString()))
+                                                                          .and(BRAINTREE_RESPONSES_ARCHIVE.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                                                          .orderBy(BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID.desc())
+                                                                          .limit(1)
+                                                                          .fetchOne();
+                        return record == null ? null : record.into(BRAINTREE_RESPONSES);
+                    }
+                });
+    }
+
+    private static boolean isAuthorizationResponse(final BraintreeResponsesRecord response) {
+        return TransactionType.AUTHORIZE.toString().equals(response.getTransactionType()) ||
+               TransactionType.PURCHASE.toString().equals(response.getTransactionType());
+    }
+
+    private static boolean isInitialResponse(final BraintreeResponsesRecord response) {
+        return TransactionType.AUTHORIZE.toString().equals(response.getTransactionType()) ||
+               TransactionType.PURCHASE.toString().equals(response.getTransactionType()) ||
+               TransactionType.CREDIT.toString().equals(response.getTransactionType());
+    }
+
+    // Vault imports
+
+    @Nullable
+    public BraintreeVaultImportsRecord getVaultImport(final UUID kbTenantId) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<BraintreeVaultImportsRecord>() {
+                    @Override
+                    public BraintreeVaultImportsRecord withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_VAULT_IMPORTS)
+                                  .where(BRAINTREE_VAULT_IMPORTS.KB_TENANT_ID.equal(kbTenantId.toString()))
+                                  .fetchOne();
+                    }
+                });
+    }
+
+    /**
+     * Starts a new vault import for the tenant, replacing the previous one (if any)
+     */
+    public BraintreeVaultImportsRecord createVaultImport(final String status, final DateTime windowStart, final DateTime utcNow, final UUID kbTenantId) throws SQLException {
+        return execute(dataSource.getConnection(),
+                connection -> DSL.using(connection, dialect, settings).transactionResult(configuration -> {
+                    final DSLContext dslContext = DSL.using(configuration);
+                    dslContext.deleteFrom(BRAINTREE_VAULT_IMPORTS)
+                              .where(BRAINTREE_VAULT_IMPORTS.KB_TENANT_ID.equal(kbTenantId.toString()))
+                              .execute();
+                    dslContext.insertInto(BRAINTREE_VAULT_IMPORTS,
+                                          BRAINTREE_VAULT_IMPORTS.KB_TENANT_ID,
+                                          BRAINTREE_VAULT_IMPORTS.STATUS,
+                                          BRAINTREE_VAULT_IMPORTS.WINDOW_START,
+                                          BRAINTREE_VAULT_IMPORTS.CREATED_DATE,
+                                          BRAINTREE_VAULT_IMPORTS.UPDATED_DATE)
+                              .values(kbTenantId.toString(),
+                                      status,
+                                      toLocalDateTime(windowStart),
+                                      toLocalDateTime(utcNow),
+                                      toLocalDateTime(utcNow))
+                              .execute();
+                    return dslContext.fetchOne(BRAINTREE_VAULT_IMPORTS, BRAINTREE_VAULT_IMPORTS.KB_TENANT_ID.equal(kbTenantId.toString()));
+                }));
+    }
+
+    /**
+     * Saves the progress (checkpoint and counters) of a vault import
+     */
+    public void updateVaultImport(final BraintreeVaultImportsRecord vaultImport, final DateTime utcNow) throws SQLException {
+        execute(dataSource.getConnection(),
+                new WithConnectionCallback<Void>() {
+                    @Override
+                    public Void withConnection(final Connection conn) throws SQLException {
+                        DSL.using(conn, dialect, settings)
+                           .update(BRAINTREE_VAULT_IMPORTS)
+                           .set(BRAINTREE_VAULT_IMPORTS.STATUS, vaultImport.getStatus())
+                           .set(BRAINTREE_VAULT_IMPORTS.WINDOW_START, vaultImport.getWindowStart())
+                           .set(BRAINTREE_VAULT_IMPORTS.LAST_CUSTOMER_ID, vaultImport.getLastCustomerId())
+                           .set(BRAINTREE_VAULT_IMPORTS.CUSTOMERS_IMPORTED, vaultImport.getCustomersImported())
+                           .set(BRAINTREE_VAULT_IMPORTS.CUSTOMERS_SKIPPED, vaultImport.getCustomersSkipped())
+                           .set(BRAINTREE_VAULT_IMPORTS.PAYMENT_METHODS_IMPORTED, vaultImport.getPaymentMethodsImported())
+                           .set(BRAINTREE_VAULT_IMPORTS.UPDATED_DATE, toLocalDateTime(utcNow))
+                           .where(BRAINTREE_VAULT_IMPORTS.RECORD_ID.equal(vaultImport.getRecordId()))
+                           .execute();
+                        return null;
+                    }
+                });
+    }
+
+    // Additional data conversion
+
+    /**
+     * Responses after afterRecordId (exclusive) whose additional data is still stored as JSON, ordered by record id
+     */
+    public List<BraintreeResponsesRecord> getResponsesWithJsonAdditionalData(final ULong afterRecordId, final int limit) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeResponsesRecord>>() {
+                    @Override
+                    public List<BraintreeResponsesRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_RESPONSES)
+                                  .where(BRAINTREE_RESPONSES.RECORD_ID.greaterThan(afterRecordId))
+                                  .and(BRAINTREE_RESPONSES.ADDITIONAL_DATA.like("{%"))
+                                  .orderBy(BRAINTREE_RESPONSES.RECORD_ID.asc())
+                                  .limit(limit)
+                                  .fetch();
+                    }
+                });
+    }
+
+    /**
+     * Payment methods after afterRecordId (exclusive) whose additional data is still stored as JSON, ordered by record id
+     */
+    public List<BraintreePaymentMethodsRecord> getPaymentMethodsWithJsonAdditionalData(final ULong afterRecordId, final int limit) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreePaymentMethodsRecord>>() {
+                    @Override
+                    public List<BraintreePaymentMethodsRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_PAYMENT_METHODS)
+                                  .where(BRAINTREE_PAYMENT_METHODS.RECORD_ID.greaterThan(afterRecordId))
+                                  .and(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA.like("{%"))
+                                  .orderBy(BRAINTREE_PAYMENT_METHODS.RECORD_ID.asc())
+                                  .limit(limit)
+                                  .fetch();
+                    }
+                });
+    }
+
+    /**
+     * Rewrites the additional data of the responses in the configured format. Rows modified since they were read are left alone.
+     */
+    public int convertResponsesAdditionalData(final List<BraintreeResponsesRecord> responses) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<Integer>() {
+                    @Override
+                    public Integer withConnection(final Connection conn) throws SQLException {
+                        final DSLContext dslContext = DSL.using(conn, dialect, settings);
+                        final List<Query> queries = new LinkedList<Query>();
+                        for (final BraintreeResponsesRecord response : responses) {
+                            final String additionalData = encodeAdditionalData(response.getAdditionalData());
+                            if (!additionalData.equals(response.getAdditionalData())) {
+                                queries.add(dslContext.update(BRAINTREE_RESPONSES)
+                                                      .set(BRAINTREE_RESPONSES.ADDITIONAL_DATA, additionalData)
+                                                      .where(BRAINTREE_RESPONSES.RECORD_ID.equal(response.getRecordId()))
+                                                      .and(BRAINTREE_RESPONSES.ADDITIONAL_DATA.equal(response.getAdditionalData())));
+                            }
+                        }
+                        return countUpdates(dslContext, queries);
+                    }
+                });
+    }
+
+    /**
+     * Rewrites the additional data of the payment methods in the configured format. Rows modified since they were read are left alone.
+     * Cached rows don't need to be invalidated, their content is unchanged.
+     */
+    public int convertPaymentMethodsAdditionalData(final List<BraintreePaymentMethodsRecord> paymentMethods) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<Integer>() {
+                    @Override
+                    public Integer withConnection(final Connection conn) throws SQLException {
+                        final DSLContext dslContext = DSL.using(conn, dialect, settings);
+                        final List<Query> queries = new LinkedList<Query>();
+                        for (final BraintreePaymentMethodsRecord paymentMethod : paymentMethods) {
+                            final String additionalData = encodeAdditionalData(paymentMethod.getAdditionalData());
+                            if (!additionalData.equals(paymentMethod.getAdditionalData())) {
+                                queries.add(dslContext.update(BRAINTREE_PAYMENT_METHODS)
+                                                      .set(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA, additionalData)
+                                                      .where(BRAINTREE_PAYMENT_METHODS.RECORD_ID.equal(paymentMethod.getRecordId()))
+                                                      .and(BRAINTREE_PAYMENT_METHODS.ADDITIONAL_DATA.equal(paymentMethod.getAdditionalData())));
+                            }
+                        }
+                        return countUpdates(dslContext, queries);
+                    }
+                });
+    }
+
+    private static int countUpdates(final DSLContext dslContext, final List<Query> queries) {
+        if (queries.isEmpty()) {
+            return 0;
+        }
+
+        int updated = 0;
+        for (final int rows : dslContext.batch(queries).execute()) {
+            updated += Math.max(rows, 0);
+        }
+        return updated;
+    }
+
+    // Cache invalidations
+
+    /**
+     * Invalidations published by the other nodes since createdSince (all when null) and after afterRecordId (exclusive), ordered by record id
+     */
+    public List<BraintreeCacheInvalidationsRecord> getCacheInvalidations(@Nullable final DateTime createdSince, final ULong afterRecordId, final int limit) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<List<BraintreeCacheInvalidationsRecord>>() {
+                    @Override
+                    public List<BraintreeCacheInvalidationsRecord> withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .selectFrom(BRAINTREE_CACHE_INVALIDATIONS)
+                                  .where(createdSince == null ? DSL.trueCondition() : BRAINTREE_CACHE_INVALIDATIONS.CREATED_DATE.greaterOrEqual(toLocalDateTime(createdSince)))
+                                  .and(BRAINTREE_CACHE_INVALIDATIONS.RECORD_ID.greaterThan(afterRecordId))
+                                  .and(BRAINTREE_CACHE_INVALIDATIONS.NODE_ID.notEqual(nodeId))
+                                  .orderBy(BRAINTREE_CACHE_INVALIDATIONS.RECORD_ID.asc())
+                                  .limit(limit)
+                                  .fetch();
+                    }
+                });
+    }
+
+    public int deleteCacheInvalidationsCreatedBefore(final DateTime cutoff) throws SQLException {
+        return execute(dataSource.getConnection(),
+                new WithConnectionCallback<Integer>() {
+                    @Override
+                    public Integer withConnection(final Connection conn) throws SQLException {
+                        return DSL.using(conn, dialect, settings)
+                                  .deleteFrom(BRAINTREE_CACHE_INVALIDATIONS)
+                                  .where(BRAINTREE_CACHE_INVALIDATIONS.CREATED_DATE.lessThan(toLocalDateTime(cutoff)))
+                                  .execute();
+                    }
+                });
+    }
+
+    /**
+     * Evicts the local entries affected by an invalidation published by another node
+     */
+    public void applyCacheInvalidation(final BraintreeCacheInvalidationsRecord cacheInvalidation) {
+        final UUID kbTenantId = UUID.fromString(cacheInvalidation.getKbTenantId());
+        final UUID key = UUID.fromString(cacheInvalidation.getCacheKey());
+        switch (cacheInvalidation.getCacheName()) {
+            case PAYMENT_METHOD_CACHE:
+                paymentMethodsCache.invalidate(key, kbTenantId);
+                break;
+            case ACCOUNT_PAYMENT_METHODS_CACHE:
+                paymentMethodsCache.invalidateAccount(key, kbTenantId);
+                break;
+            case AUTHORIZATION_RESPONSE_CACHE:
+                authorizationResponsesCache.invalidate(authorizationCacheKey(key, kbTenantId));
+                break;
+            default:
+                logger.warn("Ignoring invalidation for unknown cache {}", cacheInvalidation.getCacheName());
+                break;
+        }
+    }
+
+    private BraintreeCacheInvalidationsRecord newCacheInvalidation(final String cacheName, final Object key, final Object kbTenantId) {
+        final BraintreeCacheInvalidationsRecord cacheInvalidation = new BraintreeCacheInvalidationsRecord();
+        cacheInvalidation.setCacheName(cacheName);
+        cacheInvalidation.setCacheKey(key.toString());
+        cacheInvalidation.setNodeId(nodeId);
+        cacheInvalidation.setKbTenantId(kbTenantId.toString());
+        return cacheInvalidation;
+    }
+
+    // Best effort: the entries of the other nodes expire anyways
+    private void publishCacheInvalidations(final List<BraintreeCacheInvalidationsRecord> cacheInvalidations) {
+        if (!cacheInvalidationsEnabled || cacheInvalidations.isEmpty()) {
+            return;
+        }
+
+        try {
+            execute(dataSource.getConnection(),
+                    new WithConnectionCallback<Void>() {
+                        @Override
+                        public Void withConnection(final Connection conn) throws SQLException {
+                            final DSLContext dslContext = DSL.using(conn, dialect, settings);
+                            final LocalDateTime createdDate = toLocalDateTime(clock.getUTCNow());
+                            final List<Query> queries = new LinkedList<Query>();
+                            for (final BraintreeCacheInvalidationsRecord cacheInvalidation : cacheInvalidations) {
+                                queries.add(dslContext.insertInto(BRAINTREE_CACHE_INVALIDATIONS,
+                                                                  BRAINTREE_CACHE_INVALIDATIONS.CACHE_NAME,
+                                                                  BRAINTREE_CACHE_INVALIDATIONS.CACHE_KEY,
+                                                                  BRAINTREE_CACHE_INVALIDATIONS.NODE_ID,
+                                                                  BRAINTREE_CACHE_INVALIDATIONS.CREATED_DATE,
+                                                                  BRAINTREE_CACHE_INVALIDATIONS.KB_TENANT_ID)
+                                                      .values(cacheInvalidation.getCacheName(),
+                                                              cacheInvalidation.getCacheKey(),
+                                                              cacheInvalidation.getNodeId(),
+                                                              createdDate,
+                                                              cacheInvalidation.getKbTenantId()));
+                            }
+                            dslContext.batch(queries).execute();
+                            return null;
+                        }
+                    });
+        } catch (final SQLException | RuntimeException e) {
+            logger.warn("Unable to publish cache invalidations", e);
+        }
+    }
+
+    private static String authorizationCacheKey(final Object kbPaymentId, final Object kbTenantId) {
+        return kbTenantId + "/" + kbPaymentId;
+    }
+
+    private static String accountKey(final Object kbAccountId, final Object kbTenantId) {
+        return kbTenantId + "/" + kbAccountId;
+    }
+
+    private static String toTransactionStatus(final Map additionalDataMap) {
+        return BraintreePluginProperties.toPaymentPluginStatus(additionalDataMap).toString();
+    }
+
+    private static Short toIsOpen(final Map additionalDataMap) {
+        return (short) (BraintreePluginProperties.isOpen(additionalDataMap) ? TRUE : FALSE);
+    }
+
+    /**
+     * Whether the response may still change in Braintree. Archived responses (no is_open value) are final.
+     */
+    public static boolean isOpen(final BraintreeResponsesRecord response) {
+        return response.getIsOpen() != null && response.getIsOpen() == TRUE;
+    }
+
+    private String encodeAdditionalData(@Nullable final String additionalData) {
+        return BraintreeAdditionalDataFormat.encode(additionalData, additionalDataFormat);
+    }
+
+    /**
+     * The additional data as a JSON document, whatever its storage format
+     */
+    public static String jsonFromAdditionalDataString(@Nullable final String additionalData) {
+        try {
+            return BraintreeAdditionalDataFormat.decode(additionalData);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
     public static Map mapFromAdditionalDataString(@Nullable final String additionalData) {
         if (additionalData == null) {
@@ -251,7 +1259,42 @@ public class BraintreeDao extends PluginPaymentDao<BraintreeResponsesRecord, Bra
         }
 
         try {
-            return objectMapper.readValue(additionalData, Map.class);
+            return MAP_READER.readValue(BraintreeAdditionalDataFormat.decode(additionalData));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static BraintreeTransactionData transactionDataFromAdditionalDataString(@Nullable final String additionalData) {
+        if (additionalData == null) {
+            return new BraintreeTransactionData();
+        }
+
+        try {
+            return TRANSACTION_DATA_READER.readValue(BraintreeAdditionalDataFormat.decode(additionalData));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Typed attributes of the additional data, without the other properties (see BraintreeTransactionData#scan)
+     */
+    public static BraintreeTransactionData transactionSummaryFromAdditionalDataString(@Nullable final String additionalData) {
+        if (additionalData == null) {
+            return new BraintreeTransactionData();
+        }
+
+        try (final JsonParser parser = objectMapper.getFactory().createParser(BraintreeAdditionalDataFormat.decode(additionalData))) {
+            return BraintreeTransactionData.scan(parser);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static String stringFromTransactionData(final BraintreeTransactionData transactionData) {
+        try {
+            return TRANSACTION_DATA_WRITER.writeValueAsString(transactionData);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.dao;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+
+/**
+ * Tenant-scoped cache of (non deleted) payment method rows, keyed by kbPaymentMethodId.
+ * Cached records are shared and must not be modified by callers.
+ */
+public class BraintreePaymentMethodsCache {
+
+    private final Cache<String, BraintreePaymentMethodsRecord> cache;
+
+    public BraintreePaymentMethodsCache(final long maximumSize, final Period expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(maximumSize)
+                                 .expireAfterWrite(expireAfterWrite.toStandardDuration().getMillis(), TimeUnit.MILLISECONDS)
+                                 .recordStats()
+                                 .build();
+    }
+
+    @Nullable
+    public BraintreePaymentMethodsRecord get(final UUID kbPaymentMethodId, final UUID kbTenantId) {
+        return cache.getIfPresent(key(kbPaymentMethodId, kbTenantId));
+    }
+
+    public void put(final BraintreePaymentMethodsRecord record) {
+        cache.put(key(record.getKbPaymentMethodId(), record.getKbTenantId()), record);
+    }
+
+    public void invalidate(final UUID kbPaymentMethodId, final UUID kbTenantId) {
+        cache.invalidate(key(kbPaymentMethodId, kbTenantId));
+    }
+
+    public void invalidateAccount(final UUID kbAccountId, final UUID kbTenantId) {
+        final String accountId = kbAccountId.toString();
+        final String tenantId = kbTenantId.toString();
+        for (final Map.Entry<String, BraintreePaymentMethodsRecord> entry : cache.asMap().entrySet()) {
+            if (accountId.equals(entry.getValue().getKbAccountId()) && tenantId.equals(entry.getValue().getKbTenantId())) {
+                cache.invalidate(entry.getKey());
+            }
+        }
+    }
+
+    public Cache<String, BraintreePaymentMethodsRecord> getCache() {
+        return cache;
+    }
+
+    private static String key(final Object kbPaymentMethodId, final Object kbTenantId) {
+        return kbTenantId + "/" + kbPaymentMethodId;
+    }
+}
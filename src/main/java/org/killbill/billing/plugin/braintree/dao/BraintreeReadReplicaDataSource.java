@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree.dao;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+
+/**
+ * Routes the connections requested within a replica reads scope, on the same thread, to the read replica (if any).
+ * Only read-only calls should open such a scope: everything else goes to the primary.
+ */
+public class BraintreeReadReplicaDataSource implements DataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ThreadLocal<Boolean> replicaReads = new ThreadLocal<Boolean>();
+
+    public BraintreeReadReplicaDataSource(final DataSource primary, @Nullable final DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    public boolean hasReplica() {
+        return replica != null;
+    }
+
+    public boolean isReplicaReads() {
+        return replica != null && Boolean.TRUE.equals(replicaReads.get());
+    }
+
+    /**
+     * Starts a scope in which reads go to the replica (useReplica) or to the primary, until it is closed
+     */
+    public ReplicaReads begin(final boolean useReplica) {
+        final Boolean previous = replicaReads.get();
+        replicaReads.set(useReplica);
+        return new ReplicaReads(previous);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return isReplicaReads() ? replica.getConnection() : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    public final class ReplicaReads implements AutoCloseable {
+
+        private final Boolean previous;
+
+        private ReplicaReads(@Nullable final Boolean previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                replicaReads.remove();
+            } else {
+                replicaReads.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.braintreegateway.Result;
+import com.braintreegateway.Transaction;
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
+
+/**
+ * Typed braintree_responses.additional_data. The Braintree attributes are mapped to fields, other properties
+ * (e.g. plugin properties merged on update) are kept as is, so the stored JSON is the same as with a Map.
+ * New responses are written with the current schema version, rows written before it was introduced have none (version 0).
+ */
+@JsonInclude(Include.NON_EMPTY)
+public class BraintreeTransactionData {
+
+    public static final int LEGACY_SCHEMA_VERSION = 0;
+    public static final int SCHEMA_VERSION = 1;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_SCHEMA_VERSION)
+    private Integer schemaVersion;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS)
+    private String transactionStatus;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_SUCCESS)
+    private Boolean transactionSuccess;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE)
+    private String paymentInstrumentType;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID)
+    private String firstPaymentReferenceId;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID)
+    private String secondPaymentReferenceId;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_MESSAGE)
+    private String gatewayErrorMessage;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE)
+    private String gatewayErrorCode;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS)
+    private String overriddenTransactionStatus;
+
+    // Set when the status is refreshed (see RefreshPaymentPolicy)
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE)
+    private String lastRefreshedDate;
+
+    @JsonProperty(BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT)
+    private String refreshCount;
+
+    private Map<String, Object> otherProperties = Collections.emptyMap();
+
+    public static BraintreeTransactionData build(final Result<Transaction> braintreeResult) {
+        final BraintreeTransactionData transactionData = new BraintreeTransactionData();
+        final Transaction transaction = BraintreeClient.getTransactionInstance(braintreeResult);
+        final Transaction.Status status = transaction.getStatus();
+
+        transactionData.schemaVersion = SCHEMA_VERSION;
+        transactionData.transactionStatus = status == null ? null : status.toString();
+        transactionData.transactionSuccess = braintreeResult.isSuccess();
+        transactionData.paymentInstrumentType = transaction.getPaymentInstrumentType();
+        transactionData.firstPaymentReferenceId = transaction.getId();
+        transactionData.secondPaymentReferenceId = transaction.getRetrievalReferenceNumber();
+
+        if (!braintreeResult.isSuccess()) {
+            if (Transaction.Status.PROCESSOR_DECLINED.equals(status)) {
+                transactionData.gatewayErrorMessage = transaction.getProcessorResponseText();
+                transactionData.gatewayErrorCode = transaction.getProcessorResponseCode();
+            } else if (Transaction.Status.SETTLEMENT_DECLINED.equals(status)) {
+                transactionData.gatewayErrorMessage = transaction.getProcessorSettlementResponseText();
+                transactionData.gatewayErrorCode = transaction.getProcessorSettlementResponseCode();
+            } else if (Transaction.Status.GATEWAY_REJECTED.equals(status)) {
+                transactionData.gatewayErrorMessage = transaction.getNetworkResponseText() == null ?
+                                                      transaction.getGatewayRejectionReason().toString() : transaction.getNetworkResponseText();
+                transactionData.gatewayErrorCode = transaction.getNetworkResponseCode();
+            } else {
+                transactionData.gatewayErrorMessage = braintreeResult.getMessage();
+            }
+        }
+
+        return transactionData;
+    }
+
+    /**
+     * Reads the typed attributes only (status, error, reference ids, payment instrument type and refresh state):
+     * the other properties are skipped without being materialized
+     */
+    public static BraintreeTransactionData scan(final JsonParser parser) throws IOException {
+        final BraintreeTransactionData transactionData = new BraintreeTransactionData();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return transactionData;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (token.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (fieldName) {
+                case BraintreePluginProperties.PROPERTY_BT_SCHEMA_VERSION:
+                    transactionData.schemaVersion = token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS:
+                    transactionData.transactionStatus = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_TRANSACTION_SUCCESS:
+                    transactionData.transactionSuccess = token == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE:
+                    transactionData.paymentInstrumentType = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID:
+                    transactionData.firstPaymentReferenceId = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID:
+                    transactionData.secondPaymentReferenceId = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_MESSAGE:
+                    transactionData.gatewayErrorMessage = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE:
+                    transactionData.gatewayErrorCode = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS:
+                    transactionData.overriddenTransactionStatus = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE:
+                    transactionData.lastRefreshedDate = parser.getValueAsString();
+                    break;
+                case BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT:
+                    transactionData.refreshCount = parser.getValueAsString();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return transactionData;
+    }
+
+    @JsonIgnore
+    public int getSchemaVersion() {
+        return schemaVersion == null ? LEGACY_SCHEMA_VERSION : schemaVersion;
+    }
+
+    public String getTransactionStatus() {
+        return transactionStatus;
+    }
+
+    public Boolean getTransactionSuccess() {
+        return transactionSuccess;
+    }
+
+    public String getPaymentInstrumentType() {
+        return paymentInstrumentType;
+    }
+
+    public String getFirstPaymentReferenceId() {
+        return firstPaymentReferenceId;
+    }
+
+    public String getSecondPaymentReferenceId() {
+        return secondPaymentReferenceId;
+    }
+
+    public String getGatewayErrorMessage() {
+        return gatewayErrorMessage;
+    }
+
+    public String getGatewayErrorCode() {
+        return gatewayErrorCode;
+    }
+
+    public String getOverriddenTransactionStatus() {
+        return overriddenTransactionStatus;
+    }
+
+    public String getLastRefreshedDate() {
+        return lastRefreshedDate;
+    }
+
+    public String getRefreshCount() {
+        return refreshCount;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getOtherProperties() {
+        return otherProperties;
+    }
+
+    @JsonAnySetter
+    public void setOtherProperty(final String key, final Object value) {
+        if (otherProperties.isEmpty()) {
+            otherProperties = new LinkedHashMap<String, Object>();
+        }
+        otherProperties.put(key, value);
+    }
+
+    @JsonIgnore
+    public PaymentPluginStatus getPaymentPluginStatus() {
+        // Set when the transaction was canceled by the plugin (e.g. expired pending payment)
+        if (overriddenTransactionStatus != null) {
+            return PaymentPluginStatus.valueOf(overriddenTransactionStatus);
+        }
+        return BraintreePluginProperties.toPaymentPluginStatus(transactionStatus);
+    }
+
+    @JsonIgnore
+    public boolean isOpen() {
+        return BraintreePluginProperties.isOpen(getPaymentPluginStatus(), transactionStatus);
+    }
+
+    // The schema version isn't exposed as a plugin property
+    public List<PluginProperty> toPluginProperties() {
+        final List<PluginProperty> properties = new ArrayList<PluginProperty>(10 + otherProperties.size());
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, transactionStatus);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_TRANSACTION_SUCCESS, transactionSuccess);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, paymentInstrumentType);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID, firstPaymentReferenceId);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_SECOND_PAYMENT_REFERENCE_ID, secondPaymentReferenceId);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_MESSAGE, gatewayErrorMessage);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE, gatewayErrorCode);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS, overriddenTransactionStatus);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, lastRefreshedDate);
+        addProperty(properties, BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, refreshCount);
+        for (final Map.Entry<String, Object> entry : otherProperties.entrySet()) {
+            addProperty(properties, entry.getKey(), entry.getValue());
+        }
+        return properties;
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> additionalDataMap = new LinkedHashMap<String, Object>();
+        for (final PluginProperty property : toPluginProperties()) {
+            additionalDataMap.put(property.getKey(), property.getValue());
+        }
+        return additionalDataMap;
+    }
+
+    private static void addProperty(final List<PluginProperty> properties, final String key, final Object value) {
+        if (value != null) {
+            properties.add(new PluginProperty(key, value, false));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree.dao;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands out a single connection per unit of work: between begin() and close(), on the same thread, DAO calls share
+ * the connection checked out by the first one (closing it is a no-op), and it goes back to the pool when the outermost
+ * unit of work ends. Outside of a unit of work, connections come straight from the pool.
+ * Units of work shouldn't span Braintree calls, so that pooled connections aren't held during network round trips.
+ */
+public class BraintreeUnitOfWorkDataSource implements DataSource {
+
+    private static final org.slf4j.Logger logger = LoggerFactory.getLogger(BraintreeUnitOfWorkDataSource.class);
+
+    private final DataSource delegate;
+    private final ThreadLocal<UnitOfWork> currentUnitOfWork = new ThreadLocal<UnitOfWork>();
+
+    public BraintreeUnitOfWorkDataSource(final DataSource delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Starts a unit of work on the current thread, or joins the current one
+     */
+    public UnitOfWork begin() {
+        if (currentUnitOfWork.get() != null) {
+            return new UnitOfWork(false);
+        }
+
+        final UnitOfWork unitOfWork = new UnitOfWork(true);
+        currentUnitOfWork.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final UnitOfWork unitOfWork = currentUnitOfWork.get();
+        return unitOfWork == null ? delegate.getConnection() : unitOfWork.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return delegate.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    public final class UnitOfWork implements AutoCloseable {
+
+        private final boolean outermost;
+
+        private Connection connection;
+        private Connection sharedConnection;
+
+        private UnitOfWork(final boolean outermost) {
+            this.outermost = outermost;
+        }
+
+        private Connection getConnection() throws SQLException {
+            if (connection == null || connection.isClosed()) {
+                connection = delegate.getConnection();
+                final Connection target = connection;
+                sharedConnection = (Connection) Proxy.newProxyInstance(BraintreeUnitOfWorkDataSource.class.getClassLoader(),
+                                                                       new Class[]{Connection.class},
+                                                                       (proxy, method, args) -> {
+                                                                           if ("close".equals(method.getName())) {
+                                                                               return null;
+                                                                           }
+                                                                           try {
+                                                                               return method.invoke(target, args);
+                                                                           } catch (final InvocationTargetException e) {
+                                                                               throw e.getCause();
+                                                                           }
+                                                                       });
+            }
+            return sharedConnection;
+        }
+
+        @Override
+        public void close() {
+            if (!outermost) {
+                return;
+            }
+
+            currentUnitOfWork.remove();
+            if (connection == null) {
+                return;
+            }
+
+            try {
+                // Don't return a connection in the middle of a transaction to the pool
+                if (!connection.isClosed() && !connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (final SQLException e) {
+                logger.warn("Unable to reset the unit of work connection", e);
+            } finally {
+                try {
+                    connection.close();
+                } catch (final SQLException e) {
+                    logger.warn("Unable to release the unit of work connection", e);
+                }
+                connection = null;
+                sharedConnection = null;
+            }
+        }
+    }
+}
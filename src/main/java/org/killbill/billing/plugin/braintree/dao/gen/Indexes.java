@@ -20,8 +20,10 @@ package org.killbill.billing.plugin.braintree.dao.gen;
 import org.jooq.Index;
 import org.jooq.OrderField;
 import org.jooq.impl.Internal;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeCacheInvalidations;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponsesArchive;
 
 
 /**
@@ -34,19 +36,25 @@ public class Indexes {
     // INDEX definitions
     // -------------------------------------------------------------------------
 
+    public static final Index BRAINTREE_CACHE_INVALIDATIONS_BRAINTREE_CACHE_INVALIDATIONS_CREATED_DATE = Indexes0.BRAINTREE_CACHE_INVALIDATIONS_BRAINTREE_CACHE_INVALIDATIONS_CREATED_DATE;
     public static final Index BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_BRAINTREE_ID = Indexes0.BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_BRAINTREE_ID;
     public static final Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_BRAINTREE_ID = Indexes0.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_BRAINTREE_ID;
     public static final Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_ID = Indexes0.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_ID;
     public static final Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_TRANSACTION_ID = Indexes0.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_TRANSACTION_ID;
+    public static final Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_OPEN = Indexes0.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_OPEN;
+    public static final Index BRAINTREE_RESPONSES_ARCHIVE_BRAINTREE_RESPONSES_ARCHIVE_KB_PAYMENT_ID = Indexes0.BRAINTREE_RESPONSES_ARCHIVE_BRAINTREE_RESPONSES_ARCHIVE_KB_PAYMENT_ID;
 
     // -------------------------------------------------------------------------
     // [#1459] distribute members to avoid static initialisers > 64kb
     // -------------------------------------------------------------------------
 
     private static class Indexes0 {
+        public static Index BRAINTREE_CACHE_INVALIDATIONS_BRAINTREE_CACHE_INVALIDATIONS_CREATED_DATE = Internal.createIndex("braintree_cache_invalidations_created_date", BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS, new OrderField[] { BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS.CREATED_DATE }, false);
         public static Index BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_BRAINTREE_ID = Internal.createIndex("braintree_payment_methods_braintree_id", BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS, new OrderField[] { BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS.BRAINTREE_ID }, false);
         public static Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_BRAINTREE_ID = Internal.createIndex("braintree_responses_braintree_id", BraintreeResponses.BRAINTREE_RESPONSES, new OrderField[] { BraintreeResponses.BRAINTREE_RESPONSES.BRAINTREE_ID }, false);
         public static Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_ID = Internal.createIndex("braintree_responses_kb_payment_id", BraintreeResponses.BRAINTREE_RESPONSES, new OrderField[] { BraintreeResponses.BRAINTREE_RESPONSES.KB_PAYMENT_ID }, false);
         public static Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_TRANSACTION_ID = Internal.createIndex("braintree_responses_kb_payment_transaction_id", BraintreeResponses.BRAINTREE_RESPONSES, new OrderField[] { BraintreeResponses.BRAINTREE_RESPONSES.KB_PAYMENT_TRANSACTION_ID }, false);
+        public static Index BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_OPEN = Internal.createIndex("braintree_responses_open", BraintreeResponses.BRAINTREE_RESPONSES, new OrderField[] { BraintreeResponses.BRAINTREE_RESPONSES.IS_OPEN, BraintreeResponses.BRAINTREE_RESPONSES.KB_TENANT_ID, BraintreeResponses.BRAINTREE_RESPONSES.RECORD_ID }, false);
+        public static Index BRAINTREE_RESPONSES_ARCHIVE_BRAINTREE_RESPONSES_ARCHIVE_KB_PAYMENT_ID = Internal.createIndex("braintree_responses_archive_kb_payment_id", BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE, new OrderField[] { BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE.KB_PAYMENT_ID }, false);
     }
 }
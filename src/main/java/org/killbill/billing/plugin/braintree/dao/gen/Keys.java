@@ -22,10 +22,16 @@ import org.jooq.TableField;
 import org.jooq.UniqueKey;
 import org.jooq.impl.Internal;
 import org.jooq.types.ULong;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeCacheInvalidations;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponsesArchive;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeVaultImports;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeCacheInvalidationsRecord;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesArchiveRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeVaultImportsRecord;
 
 
 /**
@@ -39,18 +45,28 @@ public class Keys {
     // IDENTITY definitions
     // -------------------------------------------------------------------------
 
+    public static final Identity<BraintreeCacheInvalidationsRecord, ULong> IDENTITY_BRAINTREE_CACHE_INVALIDATIONS = Identities0.IDENTITY_BRAINTREE_CACHE_INVALIDATIONS;
     public static final Identity<BraintreePaymentMethodsRecord, ULong> IDENTITY_BRAINTREE_PAYMENT_METHODS = Identities0.IDENTITY_BRAINTREE_PAYMENT_METHODS;
     public static final Identity<BraintreeResponsesRecord, ULong> IDENTITY_BRAINTREE_RESPONSES = Identities0.IDENTITY_BRAINTREE_RESPONSES;
+    public static final Identity<BraintreeResponsesArchiveRecord, ULong> IDENTITY_BRAINTREE_RESPONSES_ARCHIVE = Identities0.IDENTITY_BRAINTREE_RESPONSES_ARCHIVE;
+    public static final Identity<BraintreeVaultImportsRecord, ULong> IDENTITY_BRAINTREE_VAULT_IMPORTS = Identities0.IDENTITY_BRAINTREE_VAULT_IMPORTS;
 
     // -------------------------------------------------------------------------
     // UNIQUE and PRIMARY KEY definitions
     // -------------------------------------------------------------------------
 
+    public static final UniqueKey<BraintreeCacheInvalidationsRecord> KEY_BRAINTREE_CACHE_INVALIDATIONS_PRIMARY = UniqueKeys0.KEY_BRAINTREE_CACHE_INVALIDATIONS_PRIMARY;
+    public static final UniqueKey<BraintreeCacheInvalidationsRecord> KEY_BRAINTREE_CACHE_INVALIDATIONS_RECORD_ID = UniqueKeys0.KEY_BRAINTREE_CACHE_INVALIDATIONS_RECORD_ID;
     public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_PRIMARY = UniqueKeys0.KEY_BRAINTREE_PAYMENT_METHODS_PRIMARY;
     public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_RECORD_ID = UniqueKeys0.KEY_BRAINTREE_PAYMENT_METHODS_RECORD_ID;
     public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_KB_PAYMENT_ID = UniqueKeys0.KEY_BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_KB_PAYMENT_ID;
     public static final UniqueKey<BraintreeResponsesRecord> KEY_BRAINTREE_RESPONSES_PRIMARY = UniqueKeys0.KEY_BRAINTREE_RESPONSES_PRIMARY;
     public static final UniqueKey<BraintreeResponsesRecord> KEY_BRAINTREE_RESPONSES_RECORD_ID = UniqueKeys0.KEY_BRAINTREE_RESPONSES_RECORD_ID;
+    public static final UniqueKey<BraintreeResponsesArchiveRecord> KEY_BRAINTREE_RESPONSES_ARCHIVE_PRIMARY = UniqueKeys0.KEY_BRAINTREE_RESPONSES_ARCHIVE_PRIMARY;
+    public static final UniqueKey<BraintreeResponsesArchiveRecord> KEY_BRAINTREE_RESPONSES_ARCHIVE_RECORD_ID = UniqueKeys0.KEY_BRAINTREE_RESPONSES_ARCHIVE_RECORD_ID;
+    public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_PRIMARY = UniqueKeys0.KEY_BRAINTREE_VAULT_IMPORTS_PRIMARY;
+    public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_RECORD_ID = UniqueKeys0.KEY_BRAINTREE_VAULT_IMPORTS_RECORD_ID;
+    public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_BRAINTREE_VAULT_IMPORTS_KB_TENANT_ID = UniqueKeys0.KEY_BRAINTREE_VAULT_IMPORTS_BRAINTREE_VAULT_IMPORTS_KB_TENANT_ID;
 
     // -------------------------------------------------------------------------
     // FOREIGN KEY definitions
@@ -62,15 +78,25 @@ public class Keys {
     // -------------------------------------------------------------------------
 
     private static class Identities0 {
+        public static Identity<BraintreeCacheInvalidationsRecord, ULong> IDENTITY_BRAINTREE_CACHE_INVALIDATIONS = Internal.createIdentity(BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS, BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS.RECORD_ID);
         public static Identity<BraintreePaymentMethodsRecord, ULong> IDENTITY_BRAINTREE_PAYMENT_METHODS = Internal.createIdentity(BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS, BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS.RECORD_ID);
         public static Identity<BraintreeResponsesRecord, ULong> IDENTITY_BRAINTREE_RESPONSES = Internal.createIdentity(BraintreeResponses.BRAINTREE_RESPONSES, BraintreeResponses.BRAINTREE_RESPONSES.RECORD_ID);
+        public static Identity<BraintreeResponsesArchiveRecord, ULong> IDENTITY_BRAINTREE_RESPONSES_ARCHIVE = Internal.createIdentity(BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE, BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID);
+        public static Identity<BraintreeVaultImportsRecord, ULong> IDENTITY_BRAINTREE_VAULT_IMPORTS = Internal.createIdentity(BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS, BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS.RECORD_ID);
     }
 
     private static class UniqueKeys0 {
+        public static final UniqueKey<BraintreeCacheInvalidationsRecord> KEY_BRAINTREE_CACHE_INVALIDATIONS_PRIMARY = Internal.createUniqueKey(BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS, "KEY_braintree_cache_invalidations_PRIMARY", new TableField[] { BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeCacheInvalidationsRecord> KEY_BRAINTREE_CACHE_INVALIDATIONS_RECORD_ID = Internal.createUniqueKey(BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS, "KEY_braintree_cache_invalidations_record_id", new TableField[] { BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS.RECORD_ID }, true);
         public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_PRIMARY = Internal.createUniqueKey(BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS, "KEY_braintree_payment_methods_PRIMARY", new TableField[] { BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS.RECORD_ID }, true);
         public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_RECORD_ID = Internal.createUniqueKey(BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS, "KEY_braintree_payment_methods_record_id", new TableField[] { BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS.RECORD_ID }, true);
         public static final UniqueKey<BraintreePaymentMethodsRecord> KEY_BRAINTREE_PAYMENT_METHODS_BRAINTREE_PAYMENT_METHODS_KB_PAYMENT_ID = Internal.createUniqueKey(BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS, "KEY_braintree_payment_methods_braintree_payment_methods_kb_payment_id", new TableField[] { BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS.KB_PAYMENT_METHOD_ID }, true);
         public static final UniqueKey<BraintreeResponsesRecord> KEY_BRAINTREE_RESPONSES_PRIMARY = Internal.createUniqueKey(BraintreeResponses.BRAINTREE_RESPONSES, "KEY_braintree_responses_PRIMARY", new TableField[] { BraintreeResponses.BRAINTREE_RESPONSES.RECORD_ID }, true);
         public static final UniqueKey<BraintreeResponsesRecord> KEY_BRAINTREE_RESPONSES_RECORD_ID = Internal.createUniqueKey(BraintreeResponses.BRAINTREE_RESPONSES, "KEY_braintree_responses_record_id", new TableField[] { BraintreeResponses.BRAINTREE_RESPONSES.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeResponsesArchiveRecord> KEY_BRAINTREE_RESPONSES_ARCHIVE_PRIMARY = Internal.createUniqueKey(BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE, "KEY_braintree_responses_archive_PRIMARY", new TableField[] { BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeResponsesArchiveRecord> KEY_BRAINTREE_RESPONSES_ARCHIVE_RECORD_ID = Internal.createUniqueKey(BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE, "KEY_braintree_responses_archive_record_id", new TableField[] { BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_PRIMARY = Internal.createUniqueKey(BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS, "KEY_braintree_vault_imports_PRIMARY", new TableField[] { BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_RECORD_ID = Internal.createUniqueKey(BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS, "KEY_braintree_vault_imports_record_id", new TableField[] { BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS.RECORD_ID }, true);
+        public static final UniqueKey<BraintreeVaultImportsRecord> KEY_BRAINTREE_VAULT_IMPORTS_BRAINTREE_VAULT_IMPORTS_KB_TENANT_ID = Internal.createUniqueKey(BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS, "KEY_braintree_vault_imports_braintree_vault_imports_kb_tenant_id", new TableField[] { BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS.KB_TENANT_ID }, true);
     }
 }
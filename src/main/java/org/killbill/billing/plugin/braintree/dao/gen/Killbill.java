@@ -23,8 +23,11 @@ import java.util.List;
 import org.jooq.Catalog;
 import org.jooq.Table;
 import org.jooq.impl.SchemaImpl;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeCacheInvalidations;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponsesArchive;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeVaultImports;
 
 
 /**
@@ -40,6 +43,11 @@ public class Killbill extends SchemaImpl {
      */
     public static final Killbill KILLBILL = new Killbill();
 
+    /**
+     * The table <code>killbill.braintree_cache_invalidations</code>.
+     */
+    public final BraintreeCacheInvalidations BRAINTREE_CACHE_INVALIDATIONS = BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS;
+
     /**
      * The table <code>killbill.braintree_payment_methods</code>.
      */
@@ -50,6 +58,16 @@ public class Killbill extends SchemaImpl {
      */
     public final BraintreeResponses BRAINTREE_RESPONSES = BraintreeResponses.BRAINTREE_RESPONSES;
 
+    /**
+     * The table <code>killbill.braintree_responses_archive</code>.
+     */
+    public final BraintreeResponsesArchive BRAINTREE_RESPONSES_ARCHIVE = BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE;
+
+    /**
+     * The table <code>killbill.braintree_vault_imports</code>.
+     */
+    public final BraintreeVaultImports BRAINTREE_VAULT_IMPORTS = BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS;
+
     /**
      * No further instances allowed
      */
@@ -66,7 +84,10 @@ public class Killbill extends SchemaImpl {
     @Override
     public final List<Table<?>> getTables() {
         return Arrays.<Table<?>>asList(
+            BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS,
             BraintreePaymentMethods.BRAINTREE_PAYMENT_METHODS,
-            BraintreeResponses.BRAINTREE_RESPONSES);
+            BraintreeResponses.BRAINTREE_RESPONSES,
+            BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE,
+            BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS);
     }
 }
@@ -17,8 +17,11 @@
 package org.killbill.billing.plugin.braintree.dao.gen;
 
 
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeCacheInvalidations;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreePaymentMethods;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponsesArchive;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeVaultImports;
 
 
 /**
@@ -27,6 +30,11 @@ import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
 public class Tables {
 
+    /**
+     * The table <code>killbill.braintree_cache_invalidations</code>.
+     */
+    public static final BraintreeCacheInvalidations BRAINTREE_CACHE_INVALIDATIONS = BraintreeCacheInvalidations.BRAINTREE_CACHE_INVALIDATIONS;
+
     /**
      * The table <code>killbill.braintree_payment_methods</code>.
      */
@@ -36,4 +44,14 @@ public class Tables {
      * The table <code>killbill.braintree_responses</code>.
      */
     public static final BraintreeResponses BRAINTREE_RESPONSES = BraintreeResponses.BRAINTREE_RESPONSES;
+
+    /**
+     * The table <code>killbill.braintree_responses_archive</code>.
+     */
+    public static final BraintreeResponsesArchive BRAINTREE_RESPONSES_ARCHIVE = BraintreeResponsesArchive.BRAINTREE_RESPONSES_ARCHIVE;
+
+    /**
+     * The table <code>killbill.braintree_vault_imports</code>.
+     */
+    public static final BraintreeVaultImports BRAINTREE_VAULT_IMPORTS = BraintreeVaultImports.BRAINTREE_VAULT_IMPORTS;
 }
@@ -28,7 +28,7 @@ import org.jooq.Identity;
 import org.jooq.Index;
 import org.jooq.Name;
 import org.jooq.Record;
-import org.jooq.Row11;
+import org.jooq.Row13;
 import org.jooq.Schema;
 import org.jooq.Table;
 import org.jooq.TableField;
@@ -49,7 +49,7 @@ import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeRes
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
 public class BraintreeResponses extends TableImpl<BraintreeResponsesRecord> {
 
-    private static final long serialVersionUID = 604328055;
+    private static final long serialVersionUID = -318465227;
 
     /**
      * The reference instance of <code>killbill.braintree_responses</code>
@@ -104,6 +104,11 @@ public class BraintreeResponses extends TableImpl<BraintreeResponsesRecord> {
      */
     public final TableField<BraintreeResponsesRecord, String> BRAINTREE_ID = createField(DSL.name("braintree_id"), org.jooq.impl.SQLDataType.VARCHAR(255).nullable(false), this, "");
 
+    /**
+     * The column <code>killbill.braintree_responses.transaction_status</code>.
+     */
+    public final TableField<BraintreeResponsesRecord, String> TRANSACTION_STATUS = createField(DSL.name("transaction_status"), org.jooq.impl.SQLDataType.VARCHAR(32).defaultValue(org.jooq.impl.DSL.inline("NULL", org.jooq.impl.SQLDataType.VARCHAR)), this, "");
+
     /**
      * The column <code>killbill.braintree_responses.additional_data</code>.
      */
@@ -119,6 +124,11 @@ public class BraintreeResponses extends TableImpl<BraintreeResponsesRecord> {
      */
     public final TableField<BraintreeResponsesRecord, String> KB_TENANT_ID = createField(DSL.name("kb_tenant_id"), org.jooq.impl.SQLDataType.CHAR(36).nullable(false), this, "");
 
+    /**
+     * The column <code>killbill.braintree_responses.is_open</code>.
+     */
+    public final TableField<BraintreeResponsesRecord, Short> IS_OPEN = createField(DSL.name("is_open"), org.jooq.impl.SQLDataType.SMALLINT.nullable(false).defaultValue(org.jooq.impl.DSL.inline("0", org.jooq.impl.SQLDataType.SMALLINT)), this, "");
+
     /**
      * Create a <code>killbill.braintree_responses</code> table reference
      */
@@ -159,7 +169,7 @@ public class BraintreeResponses extends TableImpl<BraintreeResponsesRecord> {
 
     @Override
     public List<Index> getIndexes() {
-        return Arrays.<Index>asList(Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_BRAINTREE_ID, Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_ID, Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_TRANSACTION_ID);
+        return Arrays.<Index>asList(Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_BRAINTREE_ID, Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_ID, Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_KB_PAYMENT_TRANSACTION_ID, Indexes.BRAINTREE_RESPONSES_BRAINTREE_RESPONSES_OPEN);
     }
 
     @Override
@@ -204,11 +214,11 @@ public class BraintreeResponses extends TableImpl<BraintreeResponsesRecord> {
     }
 
     // -------------------------------------------------------------------------
-    // Row11 type methods
+    // Row13 type methods
     // -------------------------------------------------------------------------
 
     @Override
-    public Row11<ULong, String, String, String, String, BigDecimal, String, String, String, LocalDateTime, String> fieldsRow() {
-        return (Row11) super.fieldsRow();
+    public Row13<ULong, String, String, String, String, BigDecimal, String, String, String, String, LocalDateTime, String, Short> fieldsRow() {
+        return (Row13) super.fieldsRow();
     }
 }
@@ -22,8 +22,8 @@ import java.time.LocalDateTime;
 
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record11;
-import org.jooq.Row11;
+import org.jooq.Record13;
+import org.jooq.Row13;
 import org.jooq.impl.UpdatableRecordImpl;
 import org.jooq.types.ULong;
 import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
@@ -33,9 +33,9 @@ import org.killbill.billing.plugin.braintree.dao.gen.tables.BraintreeResponses;
  * This class is generated by jOOQ.
  */
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
-public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeResponsesRecord> implements Record11<ULong, String, String, String, String, BigDecimal, String, String, String, LocalDateTime, String> {
+public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeResponsesRecord> implements Record13<ULong, String, String, String, String, BigDecimal, String, String, String, String, LocalDateTime, String, Short> {
 
-    private static final long serialVersionUID = 1915510161;
+    private static final long serialVersionUID = 1850262314;
 
     /**
      * Setter for <code>killbill.braintree_responses.record_id</code>.
@@ -149,46 +149,74 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
         return (String) get(7);
     }
 
+    /**
+     * Setter for <code>killbill.braintree_responses.transaction_status</code>.
+     */
+    public void setTransactionStatus(String value) {
+        set(8, value);
+    }
+
+    /**
+     * Getter for <code>killbill.braintree_responses.transaction_status</code>.
+     */
+    public String getTransactionStatus() {
+        return (String) get(8);
+    }
+
     /**
      * Setter for <code>killbill.braintree_responses.additional_data</code>.
      */
     public void setAdditionalData(String value) {
-        set(8, value);
+        set(9, value);
     }
 
     /**
      * Getter for <code>killbill.braintree_responses.additional_data</code>.
      */
     public String getAdditionalData() {
-        return (String) get(8);
+        return (String) get(9);
     }
 
     /**
      * Setter for <code>killbill.braintree_responses.created_date</code>.
      */
     public void setCreatedDate(LocalDateTime value) {
-        set(9, value);
+        set(10, value);
     }
 
     /**
      * Getter for <code>killbill.braintree_responses.created_date</code>.
      */
     public LocalDateTime getCreatedDate() {
-        return (LocalDateTime) get(9);
+        return (LocalDateTime) get(10);
     }
 
     /**
      * Setter for <code>killbill.braintree_responses.kb_tenant_id</code>.
      */
     public void setKbTenantId(String value) {
-        set(10, value);
+        set(11, value);
     }
 
     /**
      * Getter for <code>killbill.braintree_responses.kb_tenant_id</code>.
      */
     public String getKbTenantId() {
-        return (String) get(10);
+        return (String) get(11);
+    }
+
+    /**
+     * Setter for <code>killbill.braintree_responses.is_open</code>.
+     */
+    public void setIsOpen(Short value) {
+        set(12, value);
+    }
+
+    /**
+     * Getter for <code>killbill.braintree_responses.is_open</code>.
+     */
+    public Short getIsOpen() {
+        return (Short) get(12);
     }
 
     // -------------------------------------------------------------------------
@@ -201,17 +229,17 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
     }
 
     // -------------------------------------------------------------------------
-    // Record11 type implementation
+    // Record13 type implementation
     // -------------------------------------------------------------------------
 
     @Override
-    public Row11<ULong, String, String, String, String, BigDecimal, String, String, String, LocalDateTime, String> fieldsRow() {
-        return (Row11) super.fieldsRow();
+    public Row13<ULong, String, String, String, String, BigDecimal, String, String, String, String, LocalDateTime, String, Short> fieldsRow() {
+        return (Row13) super.fieldsRow();
     }
 
     @Override
-    public Row11<ULong, String, String, String, String, BigDecimal, String, String, String, LocalDateTime, String> valuesRow() {
-        return (Row11) super.valuesRow();
+    public Row13<ULong, String, String, String, String, BigDecimal, String, String, String, String, LocalDateTime, String, Short> valuesRow() {
+        return (Row13) super.valuesRow();
     }
 
     @Override
@@ -256,19 +284,29 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
 
     @Override
     public Field<String> field9() {
+        return BraintreeResponses.BRAINTREE_RESPONSES.TRANSACTION_STATUS;
+    }
+
+    @Override
+    public Field<String> field10() {
         return BraintreeResponses.BRAINTREE_RESPONSES.ADDITIONAL_DATA;
     }
 
     @Override
-    public Field<LocalDateTime> field10() {
+    public Field<LocalDateTime> field11() {
         return BraintreeResponses.BRAINTREE_RESPONSES.CREATED_DATE;
     }
 
     @Override
-    public Field<String> field11() {
+    public Field<String> field12() {
         return BraintreeResponses.BRAINTREE_RESPONSES.KB_TENANT_ID;
     }
 
+    @Override
+    public Field<Short> field13() {
+        return BraintreeResponses.BRAINTREE_RESPONSES.IS_OPEN;
+    }
+
     @Override
     public ULong component1() {
         return getRecordId();
@@ -311,19 +349,29 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
 
     @Override
     public String component9() {
+        return getTransactionStatus();
+    }
+
+    @Override
+    public String component10() {
         return getAdditionalData();
     }
 
     @Override
-    public LocalDateTime component10() {
+    public LocalDateTime component11() {
         return getCreatedDate();
     }
 
     @Override
-    public String component11() {
+    public String component12() {
         return getKbTenantId();
     }
 
+    @Override
+    public Short component13() {
+        return getIsOpen();
+    }
+
     @Override
     public ULong value1() {
         return getRecordId();
@@ -366,19 +414,29 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
 
     @Override
     public String value9() {
+        return getTransactionStatus();
+    }
+
+    @Override
+    public String value10() {
         return getAdditionalData();
     }
 
     @Override
-    public LocalDateTime value10() {
+    public LocalDateTime value11() {
         return getCreatedDate();
     }
 
     @Override
-    public String value11() {
+    public String value12() {
         return getKbTenantId();
     }
 
+    @Override
+    public Short value13() {
+        return getIsOpen();
+    }
+
     @Override
     public BraintreeResponsesRecord value1(ULong value) {
         setRecordId(value);
@@ -429,24 +487,36 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
 
     @Override
     public BraintreeResponsesRecord value9(String value) {
+        setTransactionStatus(value);
+        return this;
+    }
+
+    @Override
+    public BraintreeResponsesRecord value10(String value) {
         setAdditionalData(value);
         return this;
     }
 
     @Override
-    public BraintreeResponsesRecord value10(LocalDateTime value) {
+    public BraintreeResponsesRecord value11(LocalDateTime value) {
         setCreatedDate(value);
         return this;
     }
 
     @Override
-    public BraintreeResponsesRecord value11(String value) {
+    public BraintreeResponsesRecord value12(String value) {
         setKbTenantId(value);
         return this;
     }
 
     @Override
-    public BraintreeResponsesRecord values(ULong value1, String value2, String value3, String value4, String value5, BigDecimal value6, String value7, String value8, String value9, LocalDateTime value10, String value11) {
+    public BraintreeResponsesRecord value13(Short value) {
+        setIsOpen(value);
+        return this;
+    }
+
+    @Override
+    public BraintreeResponsesRecord values(ULong value1, String value2, String value3, String value4, String value5, BigDecimal value6, String value7, String value8, String value9, String value10, LocalDateTime value11, String value12, Short value13) {
         value1(value1);
         value2(value2);
         value3(value3);
@@ -458,6 +528,8 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
         value9(value9);
         value10(value10);
         value11(value11);
+        value12(value12);
+        value13(value13);
         return this;
     }
 
@@ -475,7 +547,7 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
     /**
      * Create a detached, initialised BraintreeResponsesRecord
      */
-    public BraintreeResponsesRecord(ULong recordId, String kbAccountId, String kbPaymentId, String kbPaymentTransactionId, String transactionType, BigDecimal amount, String currency, String braintreeId, String additionalData, LocalDateTime createdDate, String kbTenantId) {
+    public BraintreeResponsesRecord(ULong recordId, String kbAccountId, String kbPaymentId, String kbPaymentTransactionId, String transactionType, BigDecimal amount, String currency, String braintreeId, String transactionStatus, String additionalData, LocalDateTime createdDate, String kbTenantId, Short isOpen) {
         super(BraintreeResponses.BRAINTREE_RESPONSES);
 
         set(0, recordId);
@@ -486,8 +558,10 @@ public class BraintreeResponsesRecord extends UpdatableRecordImpl<BraintreeRespo
         set(5, amount);
         set(6, currency);
         set(7, braintreeId);
-        set(8, additionalData);
-        set(9, createdDate);
-        set(10, kbTenantId);
+        set(8, transactionStatus);
+        set(9, additionalData);
+        set(10, createdDate);
+        set(11, kbTenantId);
+        set(12, isOpen);
     }
 }
@@ -19,34 +19,80 @@
 
 create table braintree_responses (
   record_id serial
-, kb_account_id char(36) not null
-, kb_payment_id char(36) not null
-, kb_payment_transaction_id char(36) not null
+, kb_account_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, kb_payment_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, kb_payment_transaction_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
 , transaction_type varchar(32) not null
 , amount numeric(15,9)
 , currency char(3)
 , braintree_id varchar(255) not null
+, transaction_status varchar(32) default null
 , additional_data longtext default null
 , created_date datetime not null
-, kb_tenant_id char(36) not null
+, kb_tenant_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, is_open smallint not null default 0
 , primary key(record_id)
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
 create index braintree_responses_kb_payment_id on braintree_responses(kb_payment_id);
 create index braintree_responses_kb_payment_transaction_id on braintree_responses(kb_payment_transaction_id);
 create index braintree_responses_braintree_id on braintree_responses(braintree_id);
+create index braintree_responses_open on braintree_responses(is_open, kb_tenant_id, record_id);
 
 create table braintree_payment_methods (
   record_id serial
-, kb_account_id char(36) not null
-, kb_payment_method_id char(36) not null
+, kb_account_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, kb_payment_method_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
 , braintree_id varchar(255) not null
 , is_default smallint not null default 0
 , is_deleted smallint not null default 0
 , additional_data longtext default null
 , created_date datetime not null
 , updated_date datetime not null
-, kb_tenant_id char(36) not null
+, kb_tenant_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
 , primary key(record_id)
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
 create unique index braintree_payment_methods_kb_payment_id on braintree_payment_methods(kb_payment_method_id);
 create index braintree_payment_methods_braintree_id on braintree_payment_methods(braintree_id);
+
+create table braintree_cache_invalidations (
+  record_id serial
+, cache_name varchar(64) not null
+, cache_key varchar(255) not null
+, node_id varchar(64) not null
+, created_date datetime not null
+, kb_tenant_id char(36) not null
+, primary key(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create index braintree_cache_invalidations_created_date on braintree_cache_invalidations(created_date);
+
+create table braintree_vault_imports (
+  record_id serial
+, kb_tenant_id char(36) not null
+, status varchar(32) not null
+, window_start datetime not null
+, last_customer_id varchar(255) default null
+, customers_imported int not null default 0
+, customers_skipped int not null default 0
+, payment_methods_imported int not null default 0
+, created_date datetime not null
+, updated_date datetime not null
+, primary key(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create unique index braintree_vault_imports_kb_tenant_id on braintree_vault_imports(kb_tenant_id);
+
+create table braintree_responses_archive (
+  record_id serial
+, kb_account_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, kb_payment_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, kb_payment_transaction_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, transaction_type varchar(32) not null
+, amount numeric(15,9)
+, currency char(3)
+, braintree_id varchar(255) not null
+, transaction_status varchar(32) default null
+, additional_data longtext default null
+, created_date datetime not null
+, kb_tenant_id char(36) /*! CHARACTER SET ascii COLLATE ascii_bin */ not null
+, primary key(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create index braintree_responses_archive_kb_payment_id on braintree_responses_archive(kb_payment_id);
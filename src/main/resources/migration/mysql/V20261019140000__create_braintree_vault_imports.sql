@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+create table braintree_vault_imports (
+  record_id serial
+, kb_tenant_id char(36) not null
+, status varchar(32) not null
+, window_start datetime not null
+, last_customer_id varchar(255) default null
+, customers_imported int not null default 0
+, customers_skipped int not null default 0
+, payment_methods_imported int not null default 0
+, created_date datetime not null
+, updated_date datetime not null
+, primary key(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create unique index braintree_vault_imports_kb_tenant_id on braintree_vault_imports(kb_tenant_id);
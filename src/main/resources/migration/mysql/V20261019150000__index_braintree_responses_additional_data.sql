@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Indexed copies of the most searched additional_data properties. BraintreeDao filters on the same expressions, so the
+-- optimizer picks these indexes. Rows stored in the deflate format aren't JSON and are skipped.
+alter table braintree_responses
+  add column bt_transaction_status varchar(255) generated always as (case when additional_data like '{%' then json_unquote(json_extract(additional_data, '$.bt_transaction_status')) end) virtual
+, add column bt_payment_instrument_type varchar(255) generated always as (case when additional_data like '{%' then json_unquote(json_extract(additional_data, '$.bt_payment_instrument_type')) end) virtual
+, add column bt_gateway_error_code varchar(255) generated always as (case when additional_data like '{%' then json_unquote(json_extract(additional_data, '$.bt_gateway_error_code')) end) virtual;
+
+create index braintree_responses_bt_transaction_status on braintree_responses(bt_transaction_status);
+create index braintree_responses_bt_payment_instrument_type on braintree_responses(bt_payment_instrument_type);
+create index braintree_responses_bt_gateway_error_code on braintree_responses(bt_gateway_error_code);
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Open (pending) transactions are looked up per tenant, in record id order
+drop index braintree_responses_transaction_status_created_date on braintree_responses;
+create index braintree_responses_open on braintree_responses(transaction_status, kb_tenant_id, record_id);
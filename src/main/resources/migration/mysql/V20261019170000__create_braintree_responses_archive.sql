@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Responses of finalized payments moved out of braintree_responses (see BraintreeResponseArchiver)
+create table braintree_responses_archive (
+  record_id serial
+, kb_account_id char(36) not null
+, kb_payment_id char(36) not null
+, kb_payment_transaction_id char(36) not null
+, transaction_type varchar(32) not null
+, amount numeric(15,9)
+, currency char(3)
+, braintree_id varchar(255) not null
+, transaction_status varchar(32) default null
+, additional_data longtext default null
+, created_date datetime not null
+, kb_tenant_id char(36) not null
+, primary key(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create index braintree_responses_archive_kb_payment_id on braintree_responses_archive(kb_payment_id);
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Kill Bill ids are ASCII UUIDs: single byte, binary compared index keys (instead of up to 3 bytes per utf8 character)
+alter table braintree_responses
+  modify kb_account_id char(36) character set ascii collate ascii_bin not null
+, modify kb_payment_id char(36) character set ascii collate ascii_bin not null
+, modify kb_payment_transaction_id char(36) character set ascii collate ascii_bin not null
+, modify kb_tenant_id char(36) character set ascii collate ascii_bin not null;
+alter table braintree_responses_archive
+  modify kb_account_id char(36) character set ascii collate ascii_bin not null
+, modify kb_payment_id char(36) character set ascii collate ascii_bin not null
+, modify kb_payment_transaction_id char(36) character set ascii collate ascii_bin not null
+, modify kb_tenant_id char(36) character set ascii collate ascii_bin not null;
+alter table braintree_payment_methods
+  modify kb_account_id char(36) character set ascii collate ascii_bin not null
+, modify kb_payment_method_id char(36) character set ascii collate ascii_bin not null
+, modify kb_tenant_id char(36) character set ascii collate ascii_bin not null;
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Open transactions may still change in Braintree: pending or undefined ones, and processed ones which aren't settled or voided yet
+alter table braintree_responses add column is_open smallint not null default 0;
+
+update braintree_responses set is_open = 1 where transaction_status in ('PENDING', 'UNDEFINED');
+update braintree_responses set is_open = 1 where transaction_status = 'PROCESSED'
+                                             and additional_data not like '%"bt_transaction_status":"SETTLED"%'
+                                             and additional_data not like '%"bt_transaction_status":"VOIDED"%';
+
+drop index braintree_responses_open on braintree_responses;
+create index braintree_responses_open on braintree_responses(is_open, kb_tenant_id, record_id);
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+ALTER TABLE braintree_responses ADD COLUMN transaction_status VARCHAR(32) DEFAULT NULL;
+
+update braintree_responses set transaction_status = 'CANCELED' where additional_data like '%"overriddenTransactionStatus":"CANCELED"%';
+update braintree_responses set transaction_status = 'PENDING' where transaction_status is null and additional_data like '%"bt_transaction_status":"SETTLEMENT_PENDING"%';
+update braintree_responses set transaction_status = 'PROCESSED' where transaction_status is null and (additional_data like '%"bt_transaction_status":"SETTLED"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"AUTHORIZING"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"AUTHORIZED"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"SETTLING"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"SETTLEMENT_CONFIRMED"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"SUBMITTED_FOR_SETTLEMENT"%'
+                                                                                                   or additional_data like '%"bt_transaction_status":"VOIDED"%');
+update braintree_responses set transaction_status = 'ERROR' where transaction_status is null and (additional_data like '%"bt_transaction_status":"FAILED"%'
+                                                                                               or additional_data like '%"bt_transaction_status":"SETTLEMENT_DECLINED"%'
+                                                                                               or additional_data like '%"bt_transaction_status":"AUTHORIZATION_EXPIRED"%'
+                                                                                               or additional_data like '%"bt_transaction_status":"PROCESSOR_DECLINED"%'
+                                                                                               or additional_data like '%"bt_transaction_status":"GATEWAY_REJECTED"%');
+update braintree_responses set transaction_status = 'UNDEFINED' where transaction_status is null;
+
+create index braintree_responses_transaction_status_created_date on braintree_responses(transaction_status, created_date);
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+create table braintree_cache_invalidations (
+  record_id serial
+, cache_name varchar(64) not null
+, cache_key varchar(255) not null
+, node_id varchar(64) not null
+, created_date datetime not null
+, kb_tenant_id char(36) not null
+, primary key(record_id)
+);
+create index braintree_cache_invalidations_created_date on braintree_cache_invalidations(created_date);
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- GIN index over additional_data as jsonb, for containment (@>) lookups on any property. BraintreeDao filters on the
+-- same expression, so the planner picks this index. Rows stored in the deflate format aren't JSON and are skipped.
+create index braintree_responses_additional_data on braintree_responses using gin ((case when additional_data like '{%' then cast(additional_data as jsonb) end) jsonb_path_ops);
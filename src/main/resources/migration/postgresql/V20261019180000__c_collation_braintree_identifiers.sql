@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020-2020 Equinix, Inc
+ * Copyright 2014-2026 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+-- Kill Bill ids are ASCII UUIDs: compare index keys byte by byte instead of with the database locale
+alter table braintree_responses
+  alter column kb_account_id type char(36) collate "C"
+, alter column kb_payment_id type char(36) collate "C"
+, alter column kb_payment_transaction_id type char(36) collate "C"
+, alter column kb_tenant_id type char(36) collate "C";
+alter table braintree_responses_archive
+  alter column kb_account_id type char(36) collate "C"
+, alter column kb_payment_id type char(36) collate "C"
+, alter column kb_payment_transaction_id type char(36) collate "C"
+, alter column kb_tenant_id type char(36) collate "C";
+alter table braintree_payment_methods
+  alter column kb_account_id type char(36) collate "C"
+, alter column kb_payment_method_id type char(36) collate "C"
+, alter column kb_tenant_id type char(36) collate "C";
@@ -18,11 +18,17 @@ package org.killbill.billing.plugin.braintree;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
 import org.killbill.billing.platform.test.PlatformDBTestingHelper;
 import org.killbill.billing.plugin.TestUtils;
 import org.killbill.commons.embeddeddb.EmbeddedDB;
 
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
 import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.clock.Clock;
 
 public class EmbeddedDbHelper {
 
@@ -59,6 +65,22 @@ public class EmbeddedDbHelper {
         return new BraintreeDao(embeddedDB.getDataSource());
     }
 
+    public BraintreeDao getBraintreeDao(final Clock clock) throws IOException, SQLException {
+        return new BraintreeDao(embeddedDB.getDataSource(), null, new BraintreeConfigProperties(new Properties(), ""), clock);
+    }
+
+    public BraintreeDao getBraintreeDao(final BraintreeConfigProperties globalConfiguration) throws IOException, SQLException {
+        return new BraintreeDao(embeddedDB.getDataSource(), globalConfiguration);
+    }
+
+    public BraintreeDao getBraintreeDao(final DataSource readReplicaDataSource, final BraintreeConfigProperties globalConfiguration) throws IOException, SQLException {
+        return new BraintreeDao(embeddedDB.getDataSource(), readReplicaDataSource, globalConfiguration);
+    }
+
+    public DataSource getDataSource() throws IOException {
+        return embeddedDB.getDataSource();
+    }
+
     public void resetDB() throws Exception {
         embeddedDB.cleanupAllTables();
     }
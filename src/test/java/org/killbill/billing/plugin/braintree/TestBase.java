@@ -70,9 +70,8 @@ public class TestBase {
     @BeforeMethod(groups = {"slow", "integration"})
     public void setUp() throws Exception {
         EmbeddedDbHelper.instance().resetDB();
-        dao = EmbeddedDbHelper.instance().getBraintreeDao();
-
         clock = new ClockMock();
+        dao = EmbeddedDbHelper.instance().getBraintreeDao(clock);
 
         context = Mockito.mock(CallContext.class);
         UUID randomTenantId = UUID.randomUUID();
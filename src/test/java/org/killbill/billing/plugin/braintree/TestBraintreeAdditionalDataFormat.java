@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import com.google.common.collect.ImmutableMap;
+import org.killbill.billing.plugin.braintree.core.BraintreeAdditionalDataConverter;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
+import org.killbill.billing.plugin.braintree.dao.BraintreeAdditionalDataFormat;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeAdditionalDataFormat extends TestBase {
+
+    private static final Map<String, Object> CARD_DATA = ImmutableMap.<String, Object>builder()
+                                                                     .put("bt_customer_id", "123456789")
+                                                                     .put("card_type", "Visa")
+                                                                     .put("bin", "411111")
+                                                                     .put("last_4", "1111")
+                                                                     .put("expiration_month", "12")
+                                                                     .put("expiration_year", "2030")
+                                                                     .put("issuing_bank", "Unknown")
+                                                                     .put("country_of_issuance", "Unknown")
+                                                                     .put("image_url", "https://assets.braintreegateway.com/payment_method_logo/visa.png?environment=sandbox")
+                                                                     .put("commercial", "Unknown")
+                                                                     .put("debit", "Unknown")
+                                                                     .put("prepaid", "Unknown")
+                                                                     .build();
+
+    @Test(groups = "slow")
+    public void testConvertLegacyRows() throws Exception {
+        final UUID kbPaymentMethodId = UUID.randomUUID();
+        dao.addPaymentMethod(account.getId(), kbPaymentMethodId, true, CARD_DATA, "token", clock.getUTCNow(), context.getTenantId());
+
+        final Properties properties = new Properties();
+        properties.setProperty("org.killbill.billing.plugin.braintree.additionalDataFormat", BraintreeAdditionalDataFormat.DEFLATE);
+        final BraintreeDao deflateDao = EmbeddedDbHelper.instance().getBraintreeDao(new BraintreeConfigProperties(properties, ""));
+
+        // Legacy JSON rows stay readable
+        final BraintreePaymentMethodsRecord legacyRecord = deflateDao.getPaymentMethod(kbPaymentMethodId, context.getTenantId());
+        Assert.assertFalse(BraintreeAdditionalDataFormat.isDeflated(legacyRecord.getAdditionalData()));
+        Assert.assertTrue(deflateDao.hasAdditionalData(legacyRecord, CARD_DATA));
+
+        final BraintreeAdditionalDataConverter converter = new BraintreeAdditionalDataConverter(deflateDao, 1);
+        Assert.assertEquals(converter.convert(), 1);
+        Assert.assertEquals(converter.convert(), 0);
+
+        deflateDao.getPaymentMethodsCache().invalidate(kbPaymentMethodId, context.getTenantId());
+        final BraintreePaymentMethodsRecord convertedRecord = deflateDao.getPaymentMethod(kbPaymentMethodId, context.getTenantId());
+        Assert.assertTrue(BraintreeAdditionalDataFormat.isDeflated(convertedRecord.getAdditionalData()));
+        Assert.assertTrue(convertedRecord.getAdditionalData().length() < legacyRecord.getAdditionalData().length());
+        Assert.assertEquals(BraintreeDao.mapFromAdditionalDataString(convertedRecord.getAdditionalData()), CARD_DATA);
+        Assert.assertTrue(dao.hasAdditionalData(convertedRecord, CARD_DATA));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.braintreegateway.BraintreeGateway;
+import com.braintreegateway.ClientTokenGateway;
+import com.braintreegateway.ClientTokenRequest;
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.core.BraintreeClientTokenService;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
+import org.killbill.billing.plugin.braintree.core.BraintreeGateways;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeClientTokenService extends TestBase {
+
+    @Test(groups = "slow")
+    public void testPoolRefreshedOnConfigurationChange() throws Exception {
+        final BraintreeConfigProperties initialConfig = braintreeConfigPropertiesConfigurationHandler.getConfigurable(context.getTenantId());
+        final BraintreeGateways gateways = Mockito.mock(BraintreeGateways.class);
+        final AtomicInteger initialTokens = stubGateway(gateways, initialConfig, "initial");
+
+        final BraintreeClientTokenService clientTokenService = new BraintreeClientTokenService(braintreeConfigPropertiesConfigurationHandler, gateways, clock,
+                                                                                               3, Period.hours(12), Period.minutes(5));
+        clientTokenService.start();
+        try {
+            // First request: served synchronously, the pool is filled in the background
+            Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId()), "initial-1");
+            waitForPool(clientTokenService, "initial-1");
+            Assert.assertEquals(initialTokens.get(), 4);
+
+            // Served from the pool, round-robin
+            for (int i = 0; i < 6; i++) {
+                Assert.assertTrue(clientTokenService.getClientToken(context.getTenantId()).matches("initial-[234]"));
+            }
+            Assert.assertEquals(initialTokens.get(), 4);
+
+            // A configuration update (e.g. new credentials) discards the pool
+            final BraintreeConfigProperties updatedConfig = new BraintreeConfigProperties(new Properties(), "");
+            final AtomicInteger updatedTokens = stubGateway(gateways, updatedConfig, "updated");
+            braintreeConfigPropertiesConfigurationHandler.setDefaultConfigurable(updatedConfig);
+            Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId()), "updated-1");
+            waitForPool(clientTokenService, "updated-1");
+            Assert.assertEquals(updatedTokens.get(), 4);
+            Assert.assertEquals(initialTokens.get(), 4);
+        } finally {
+            clientTokenService.stop();
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testCustomerTokensCached() throws Exception {
+        final BraintreeConfigProperties config = braintreeConfigPropertiesConfigurationHandler.getConfigurable(context.getTenantId());
+        final BraintreeGateways gateways = Mockito.mock(BraintreeGateways.class);
+        final AtomicInteger customerTokens = stubGateway(gateways, config, "customer");
+
+        final BraintreeClientTokenService clientTokenService = new BraintreeClientTokenService(braintreeConfigPropertiesConfigurationHandler, gateways, clock,
+                                                                                               0, Period.hours(12), Period.minutes(5));
+        Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId(), "customer-1"), "customer-1");
+        Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId(), "customer-1"), "customer-1");
+        Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId(), "customer-2"), "customer-2");
+        Assert.assertEquals(customerTokens.get(), 2);
+
+        // Without a pool, generic tokens are generated on each request
+        Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId()), "customer-3");
+        Assert.assertEquals(clientTokenService.getClientToken(context.getTenantId()), "customer-4");
+    }
+
+    private AtomicInteger stubGateway(final BraintreeGateways gateways, final BraintreeConfigProperties config, final String prefix) {
+        final AtomicInteger generated = new AtomicInteger();
+        final ClientTokenGateway clientTokenGateway = Mockito.mock(ClientTokenGateway.class);
+        Mockito.when(clientTokenGateway.generate()).thenAnswer(invocation -> prefix + "-" + generated.incrementAndGet());
+        Mockito.when(clientTokenGateway.generate(Mockito.any(ClientTokenRequest.class))).thenAnswer(invocation -> prefix + "-" + generated.incrementAndGet());
+        final BraintreeGateway gateway = Mockito.mock(BraintreeGateway.class);
+        Mockito.when(gateway.clientToken()).thenReturn(clientTokenGateway);
+        Mockito.when(gateways.getGateway(config)).thenReturn(gateway);
+        return generated;
+    }
+
+    private void waitForPool(final BraintreeClientTokenService clientTokenService, final String firstToken) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (!firstToken.equals(clientTokenService.getClientToken(context.getTenantId()))) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        Assert.fail("Client token pool wasn't filled");
+    }
+}
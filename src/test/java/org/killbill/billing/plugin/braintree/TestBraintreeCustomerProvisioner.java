@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.braintreegateway.Customer;
+import com.braintreegateway.exceptions.ServerException;
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.core.BraintreeCustomerProvisioner;
+import org.killbill.billing.plugin.braintree.core.BraintreeGateways;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeCustomerProvisioner extends TestBase {
+
+    @Test(groups = "slow")
+    public void testQueueBound() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        final Customer customer = mockCustomer();
+        Mockito.when(stubClient.findOrCreateCustomer(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+               .thenAnswer(invocation -> {
+                   calls.incrementAndGet();
+                   release.await(5, TimeUnit.SECONDS);
+                   return customer;
+               });
+
+        final BraintreeCustomerProvisioner provisioner = buildProvisioner(stubClient, 2, 0);
+        try {
+            Assert.assertTrue(provisioner.provisionAsync(account.getId(), context.getTenantId()));
+            Assert.assertTrue(provisioner.provisionAsync(account.getId(), context.getTenantId()));
+            // Both requests are in flight: the next one is dropped
+            Assert.assertFalse(provisioner.provisionAsync(account.getId(), context.getTenantId()));
+
+            release.countDown();
+            waitForCalls(calls, 2);
+            waitForCustomFields();
+            // The slots are freed once the requests complete
+            Assert.assertTrue(waitForSlot(provisioner));
+        } finally {
+            provisioner.stop();
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testRetries() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        final Customer customer = mockCustomer();
+        Mockito.when(stubClient.findOrCreateCustomer(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+               .thenAnswer(invocation -> {
+                   // Fails twice, then succeeds
+                   if (calls.incrementAndGet() <= 2) {
+                       throw new ServerException();
+                   }
+                   return customer;
+               });
+
+        final BraintreeCustomerProvisioner provisioner = buildProvisioner(stubClient, 1, 3);
+        try {
+            Assert.assertTrue(provisioner.provisionAsync(account.getId(), context.getTenantId()));
+            waitForCustomFields();
+            Assert.assertEquals(calls.get(), 3);
+        } finally {
+            provisioner.stop();
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testRetriesExhausted() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        Mockito.when(stubClient.findOrCreateCustomer(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+               .thenAnswer(invocation -> {
+                   calls.incrementAndGet();
+                   throw new ServerException();
+               });
+
+        final BraintreeCustomerProvisioner provisioner = buildProvisioner(stubClient, 1, 1);
+        try {
+            Assert.assertTrue(provisioner.provisionAsync(account.getId(), context.getTenantId()));
+            waitForCalls(calls, 2);
+            // Given up: the slot is freed and no customer is mapped
+            Assert.assertTrue(waitForSlot(provisioner));
+            waitForCalls(calls, 4);
+            Mockito.verify(customFieldUserApi, Mockito.never()).addCustomFields(Mockito.anyList(), Mockito.any(CallContext.class));
+        } finally {
+            provisioner.stop();
+        }
+    }
+
+    private BraintreeCustomerProvisioner buildProvisioner(final BraintreeClient braintreeClient, final int queueCapacity, final int maxRetries) {
+        return new BraintreeCustomerProvisioner(killbillApi, braintreeConfigPropertiesConfigurationHandler, new BraintreeGateways(), clock,
+                                                queueCapacity, maxRetries, Period.millis(10)) {
+            @Override
+            protected BraintreeClient buildBraintreeClient(final UUID kbTenantId) {
+                return braintreeClient;
+            }
+        };
+    }
+
+    private Customer mockCustomer() {
+        final Customer customer = Mockito.mock(Customer.class);
+        Mockito.when(customer.getId()).thenReturn(account.getId().toString());
+        return customer;
+    }
+
+    private void waitForCalls(final AtomicInteger calls, final int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && calls.get() < expected; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(calls.get(), expected);
+    }
+
+    private boolean waitForSlot(final BraintreeCustomerProvisioner provisioner) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (provisioner.provisionAsync(account.getId(), context.getTenantId())) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private void waitForCustomFields() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            try {
+                Mockito.verify(customFieldUserApi, Mockito.atLeastOnce()).addCustomFields(Mockito.anyList(), Mockito.any(CallContext.class));
+                return;
+            } catch (final AssertionError e) {
+                Thread.sleep(20);
+            }
+        }
+        Assert.fail("Braintree customer wasn't mapped");
+    }
+}
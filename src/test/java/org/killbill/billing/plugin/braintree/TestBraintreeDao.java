@@ -0,0 +1,394 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.plugin.braintree;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import com.braintreegateway.Result;
+import com.braintreegateway.Transaction;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.jooq.types.ULong;
+import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.plugin.braintree.core.BraintreeCacheInvalidationPoller;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
+import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
+import org.killbill.billing.plugin.braintree.core.BraintreeResponseArchiver;
+import org.killbill.billing.plugin.braintree.core.BraintreeVaultImporter;
+import org.killbill.billing.plugin.braintree.dao.BraintreeAdditionalDataFormat;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.BraintreeReadReplicaDataSource.ReplicaReads;
+import org.killbill.billing.plugin.braintree.dao.BraintreeUnitOfWorkDataSource;
+import org.killbill.billing.plugin.braintree.dao.BraintreeUnitOfWorkDataSource.UnitOfWork;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeCacheInvalidationsRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeVaultImportsRecord;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeDao extends TestBase {
+
+    @Test(groups = "slow")
+    public void testGetResponsesByAdditionalData() throws Exception {
+        final UUID achPaymentId = addResponse(Transaction.Status.SETTLEMENT_PENDING, "us_bank_account");
+        final UUID cardPaymentId = addResponse(Transaction.Status.SETTLED, "credit_card");
+
+        final List<BraintreeResponsesRecord> achResponses = dao.getResponsesByAdditionalData(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, "us_bank_account", 10, context.getTenantId());
+        Assert.assertEquals(achResponses.size(), 1);
+        Assert.assertEquals(achResponses.get(0).getKbPaymentId(), achPaymentId.toString());
+
+        final List<BraintreeResponsesRecord> settledResponses = dao.getResponsesByAdditionalData(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, "SETTLED", 10, context.getTenantId());
+        Assert.assertEquals(settledResponses.size(), 1);
+        Assert.assertEquals(settledResponses.get(0).getKbPaymentId(), cardPaymentId.toString());
+
+        Assert.assertTrue(dao.getResponsesByAdditionalData(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, "paypal_account", 10, context.getTenantId()).isEmpty());
+        Assert.assertTrue(dao.getResponsesByAdditionalData(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, "us_bank_account", 10, UUID.randomUUID()).isEmpty());
+    }
+
+    @Test(groups = "slow")
+    public void testGetResponsesByAdditionalDataWithDeflatedRows() throws Exception {
+        final List<UUID> achPaymentIds = new LinkedList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            achPaymentIds.add(addResponse(Transaction.Status.SETTLEMENT_PENDING, "us_bank_account"));
+        }
+        final List<UUID> cardPaymentIds = new LinkedList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            cardPaymentIds.add(addResponse(Transaction.Status.SETTLED, "credit_card"));
+        }
+
+        // Written by a node using the deflate format: these rows can't be filtered in the database
+        final Properties properties = new Properties();
+        properties.setProperty("org.killbill.billing.plugin.braintree.additionalDataFormat", BraintreeAdditionalDataFormat.DEFLATE);
+        final BraintreeDao deflateDao = EmbeddedDbHelper.instance().getBraintreeDao(new BraintreeConfigProperties(properties, ""));
+        final Map<String, Object> message = ImmutableMap.<String, Object>of("message", Strings.repeat("Updated by the deflate node. ", 20));
+        for (final UUID kbPaymentId : Iterables.concat(achPaymentIds, cardPaymentIds)) {
+            final BraintreeResponsesRecord response = deflateDao.updateResponse(UUID.fromString(dao.getResponses(kbPaymentId, context.getTenantId()).get(0).getKbPaymentTransactionId()),
+                                                                                message,
+                                                                                context.getTenantId());
+            Assert.assertTrue(BraintreeAdditionalDataFormat.isDeflated(dao.getResponses(UUID.fromString(response.getKbPaymentId()), context.getTenantId()).get(0).getAdditionalData()));
+        }
+
+        // The most recent candidates don't match: the next pages are read
+        final List<BraintreeResponsesRecord> achResponses = dao.getResponsesByAdditionalData(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, "us_bank_account", 2, context.getTenantId());
+        Assert.assertEquals(achResponses.size(), 2);
+        Assert.assertEquals(achResponses.get(0).getKbPaymentId(), achPaymentIds.get(2).toString());
+        Assert.assertEquals(achResponses.get(1).getKbPaymentId(), achPaymentIds.get(1).toString());
+    }
+
+    @Test(groups = "slow")
+    public void testGetOpenResponses() throws Exception {
+        final UUID pendingPaymentId = addResponse(Transaction.Status.SETTLEMENT_PENDING, "us_bank_account");
+        addResponse(Transaction.Status.SETTLED, "credit_card");
+        final UUID authorizedPaymentId = addResponse(Transaction.Status.AUTHORIZED, "credit_card");
+        addResponse(Transaction.Status.PROCESSOR_DECLINED, "credit_card");
+        final UUID settlingPaymentId = addResponse(Transaction.Status.SUBMITTED_FOR_SETTLEMENT, "credit_card");
+
+        final List<BraintreeResponsesRecord> firstPage = dao.getOpenResponses(null, 2, context.getTenantId());
+        Assert.assertEquals(firstPage.size(), 2);
+        Assert.assertEquals(firstPage.get(0).getKbPaymentId(), pendingPaymentId.toString());
+        Assert.assertEquals(firstPage.get(1).getKbPaymentId(), authorizedPaymentId.toString());
+
+        final List<BraintreeResponsesRecord> secondPage = dao.getOpenResponses(firstPage.get(1).getRecordId(), 10, context.getTenantId());
+        Assert.assertEquals(secondPage.size(), 1);
+        Assert.assertEquals(secondPage.get(0).getKbPaymentId(), settlingPaymentId.toString());
+
+        // Settled in Braintree since
+        dao.updateResponse(UUID.fromString(secondPage.get(0).getKbPaymentTransactionId()),
+                           ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, Transaction.Status.SETTLED.toString()),
+                           context.getTenantId());
+        Assert.assertTrue(dao.getOpenResponses(firstPage.get(1).getRecordId(), 10, context.getTenantId()).isEmpty());
+
+        Assert.assertTrue(dao.getOpenResponses(null, 10, UUID.randomUUID()).isEmpty());
+    }
+
+    @Test(groups = "slow")
+    public void testArchiveResponses() throws Exception {
+        final UUID settledPaymentId = addResponse(Transaction.Status.SETTLED, "credit_card");
+        final UUID pendingPaymentId = addResponse(Transaction.Status.SETTLEMENT_PENDING, "us_bank_account");
+        final String braintreeId = dao.getResponses(settledPaymentId, context.getTenantId()).get(0).getBraintreeId();
+
+        final BraintreeResponseArchiver archiver = new BraintreeResponseArchiver(dao, clock, Period.days(1), 1);
+        Assert.assertEquals(archiver.archive(), 0);
+
+        clock.addDays(2);
+        Assert.assertEquals(archiver.archive(), 1);
+        Assert.assertEquals(archiver.archive(), 0);
+
+        // Pending payments are never archived
+        Assert.assertEquals(dao.getOpenResponses(null, 10, context.getTenantId()).get(0).getKbPaymentId(), pendingPaymentId.toString());
+
+        final List<BraintreeResponsesRecord> archivedResponses = dao.getResponses(settledPaymentId, context.getTenantId());
+        Assert.assertEquals(archivedResponses.size(), 1);
+        Assert.assertEquals(archivedResponses.get(0).getBraintreeId(), braintreeId);
+        Assert.assertEquals(BraintreeDao.mapFromAdditionalDataString(archivedResponses.get(0).getAdditionalData()).get(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE), "credit_card");
+
+        dao.getAuthorizationResponsesCache().invalidateAll();
+        Assert.assertEquals(dao.getSuccessfulAuthorizationResponse(settledPaymentId, context.getTenantId()).getBraintreeId(), braintreeId);
+    }
+
+    @Test(groups = "slow")
+    public void testArchiveResponsesWithRecentResponse() throws Exception {
+        final UUID kbPaymentId = UUID.randomUUID();
+        addResponse(kbPaymentId, TransactionType.AUTHORIZE, Transaction.Status.AUTHORIZED, "credit_card");
+        clock.addDays(2);
+        addResponse(kbPaymentId, TransactionType.CAPTURE, Transaction.Status.SUBMITTED_FOR_SETTLEMENT, "credit_card");
+
+        // The authorization is older than the archive age but the capture isn't
+        final BraintreeResponseArchiver archiver = new BraintreeResponseArchiver(dao, clock, Period.days(1), 10);
+        Assert.assertEquals(archiver.archive(), 0);
+        Assert.assertEquals(dao.archiveResponses(clock.getUTCNow().minusDays(1), dao.getResponses(kbPaymentId, context.getTenantId())), 0);
+
+        final List<BraintreeResponsesRecord> responses = dao.getResponses(kbPaymentId, context.getTenantId());
+        Assert.assertEquals(responses.size(), 2);
+        Assert.assertEquals(responses.get(0).getTransactionType(), TransactionType.AUTHORIZE.toString());
+        Assert.assertEquals(responses.get(1).getTransactionType(), TransactionType.CAPTURE.toString());
+
+        // Both responses are old enough, but the payment isn't settled yet: it stays in the hot table
+        clock.addDays(2);
+        Assert.assertEquals(archiver.archive(), 0);
+        Assert.assertEquals(dao.archiveResponses(clock.getUTCNow().minusDays(1), responses), 0);
+        Assert.assertEquals(dao.getOpenResponses(null, 10, context.getTenantId()).size(), 2);
+
+        for (final BraintreeResponsesRecord response : responses) {
+            dao.updateResponse(UUID.fromString(response.getKbPaymentTransactionId()),
+                               ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, Transaction.Status.SETTLED.toString()),
+                               context.getTenantId());
+        }
+        Assert.assertEquals(archiver.archive(), 2);
+        Assert.assertTrue(dao.getOpenResponses(null, 10, context.getTenantId()).isEmpty());
+    }
+
+    @Test(groups = "slow")
+    public void testVaultImportCheckpoint() throws Exception {
+        Assert.assertNull(dao.getVaultImport(context.getTenantId()));
+
+        final DateTime windowStart = new DateTime(2020, 1, 1, 0, 0, DateTimeZone.UTC);
+        final BraintreeVaultImportsRecord vaultImport = dao.createVaultImport(BraintreeVaultImporter.STATUS_RUNNING, windowStart, clock.getUTCNow(), context.getTenantId());
+        Assert.assertEquals(vaultImport.getStatus(), BraintreeVaultImporter.STATUS_RUNNING);
+        Assert.assertNull(vaultImport.getLastCustomerId());
+        Assert.assertEquals((int) vaultImport.getCustomersImported(), 0);
+
+        vaultImport.setStatus(BraintreeVaultImporter.STATUS_STOPPED);
+        vaultImport.setWindowStart(vaultImport.getWindowStart().plusDays(7));
+        vaultImport.setLastCustomerId("customer-42");
+        vaultImport.setCustomersImported(40);
+        vaultImport.setCustomersSkipped(2);
+        vaultImport.setPaymentMethodsImported(55);
+        dao.updateVaultImport(vaultImport, clock.getUTCNow());
+
+        final BraintreeVaultImportsRecord savedVaultImport = dao.getVaultImport(context.getTenantId());
+        Assert.assertEquals(savedVaultImport.getStatus(), BraintreeVaultImporter.STATUS_STOPPED);
+        Assert.assertEquals(savedVaultImport.getWindowStart(), vaultImport.getWindowStart());
+        Assert.assertEquals(savedVaultImport.getLastCustomerId(), "customer-42");
+        Assert.assertEquals((int) savedVaultImport.getCustomersImported(), 40);
+        Assert.assertEquals((int) savedVaultImport.getCustomersSkipped(), 2);
+        Assert.assertEquals((int) savedVaultImport.getPaymentMethodsImported(), 55);
+        Assert.assertNull(dao.getVaultImport(UUID.randomUUID()));
+
+        // A new import replaces the previous one
+        final BraintreeVaultImportsRecord newVaultImport = dao.createVaultImport(BraintreeVaultImporter.STATUS_RUNNING, windowStart, clock.getUTCNow(), context.getTenantId());
+        Assert.assertNotEquals(newVaultImport.getRecordId(), savedVaultImport.getRecordId());
+        Assert.assertNull(dao.getVaultImport(context.getTenantId()).getLastCustomerId());
+    }
+
+    @Test(groups = "slow")
+    public void testCacheInvalidationsAcrossNodes() throws Exception {
+        final BraintreeDao otherNodeDao = EmbeddedDbHelper.instance().getBraintreeDao(clock);
+        final BraintreeCacheInvalidationPoller otherNodePoller = new BraintreeCacheInvalidationPoller(otherNodeDao, clock, Period.hours(1));
+        // Only polled explicitly below
+        otherNodePoller.start(Period.days(1));
+
+        final UUID kbPaymentMethodId = UUID.randomUUID();
+        final BraintreePaymentMethodsRecord paymentMethod = new BraintreePaymentMethodsRecord();
+        paymentMethod.setKbAccountId(account.getId().toString());
+        paymentMethod.setKbPaymentMethodId(kbPaymentMethodId.toString());
+        paymentMethod.setKbTenantId(context.getTenantId().toString());
+        otherNodeDao.getPaymentMethodsCache().put(paymentMethod);
+
+        dao.invalidatePaymentMethod(kbPaymentMethodId, context.getTenantId());
+
+        // A node ignores its own invalidations
+        Assert.assertTrue(dao.getCacheInvalidations(null, ULong.valueOf(0), 10).isEmpty());
+        Assert.assertEquals(otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10).size(), 1);
+
+        Assert.assertNotNull(otherNodeDao.getPaymentMethodsCache().get(kbPaymentMethodId, context.getTenantId()));
+        Assert.assertEquals(otherNodePoller.poll(), 1);
+        Assert.assertNull(otherNodeDao.getPaymentMethodsCache().get(kbPaymentMethodId, context.getTenantId()));
+        Assert.assertEquals(otherNodePoller.poll(), 0);
+
+        // Pruned once older than the retention
+        Assert.assertEquals(otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10).size(), 1);
+        clock.addDays(1);
+        Assert.assertEquals(otherNodePoller.poll(), 0);
+        Assert.assertTrue(otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10).isEmpty());
+        otherNodePoller.stop();
+    }
+
+    @Test(groups = "slow")
+    public void testCacheInvalidationsCommittedOutOfOrder() throws Exception {
+        final BraintreeDao otherNodeDao = EmbeddedDbHelper.instance().getBraintreeDao(clock);
+        final BraintreeCacheInvalidationPoller otherNodePoller = new BraintreeCacheInvalidationPoller(otherNodeDao, clock, Period.hours(1));
+        otherNodePoller.start(Period.days(1));
+
+        final UUID firstPaymentMethodId = UUID.randomUUID();
+        dao.invalidatePaymentMethod(firstPaymentMethodId, context.getTenantId());
+        dao.invalidatePaymentMethod(UUID.randomUUID(), context.getTenantId());
+        final BraintreeCacheInvalidationsRecord lateInvalidation = otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10).get(0);
+
+        // The first invalidation isn't committed yet when the second one is polled
+        try (final Connection connection = EmbeddedDbHelper.instance().getDataSource().getConnection();
+             final PreparedStatement statement = connection.prepareStatement("delete from braintree_cache_invalidations where record_id = ?")) {
+            statement.setLong(1, lateInvalidation.getRecordId().longValue());
+            statement.executeUpdate();
+        }
+        Assert.assertEquals(otherNodePoller.poll(), 1);
+
+        final BraintreePaymentMethodsRecord paymentMethod = new BraintreePaymentMethodsRecord();
+        paymentMethod.setKbAccountId(account.getId().toString());
+        paymentMethod.setKbPaymentMethodId(firstPaymentMethodId.toString());
+        paymentMethod.setKbTenantId(context.getTenantId().toString());
+        otherNodeDao.getPaymentMethodsCache().put(paymentMethod);
+
+        try (final Connection connection = EmbeddedDbHelper.instance().getDataSource().getConnection();
+             final PreparedStatement statement = connection.prepareStatement("insert into braintree_cache_invalidations (record_id, cache_name, cache_key, node_id, created_date, kb_tenant_id) values (?, ?, ?, ?, ?, ?)")) {
+            statement.setLong(1, lateInvalidation.getRecordId().longValue());
+            statement.setString(2, lateInvalidation.getCacheName());
+            statement.setString(3, lateInvalidation.getCacheKey());
+            statement.setString(4, lateInvalidation.getNodeId());
+            statement.setTimestamp(5, Timestamp.valueOf(lateInvalidation.getCreatedDate()));
+            statement.setString(6, lateInvalidation.getKbTenantId());
+            statement.executeUpdate();
+        }
+        Assert.assertEquals(otherNodePoller.poll(), 1);
+        Assert.assertNull(otherNodeDao.getPaymentMethodsCache().get(firstPaymentMethodId, context.getTenantId()));
+
+        // Each invalidation is applied once, even though the overlap window reads it again
+        Assert.assertEquals(otherNodePoller.poll(), 0);
+        otherNodePoller.stop();
+    }
+
+    @Test(groups = "slow")
+    public void testResponseUpdatesPublishAuthorizationInvalidationsOnly() throws Exception {
+        final BraintreeDao otherNodeDao = EmbeddedDbHelper.instance().getBraintreeDao();
+        final UUID kbPaymentId = UUID.randomUUID();
+        addResponse(kbPaymentId, TransactionType.AUTHORIZE, Transaction.Status.AUTHORIZED, "credit_card");
+        addResponse(kbPaymentId, TransactionType.CAPTURE, Transaction.Status.SUBMITTED_FOR_SETTLEMENT, "credit_card");
+        final List<BraintreeResponsesRecord> responses = dao.getResponses(kbPaymentId, context.getTenantId());
+        final Map<String, Object> settled = ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, Transaction.Status.SETTLED.toString());
+
+        // The capture isn't cached
+        dao.updateResponse(UUID.fromString(responses.get(1).getKbPaymentTransactionId()), settled, context.getTenantId());
+        Assert.assertTrue(otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10).isEmpty());
+
+        dao.updateResponse(UUID.fromString(responses.get(0).getKbPaymentTransactionId()), settled, context.getTenantId());
+        final List<BraintreeCacheInvalidationsRecord> cacheInvalidations = otherNodeDao.getCacheInvalidations(null, ULong.valueOf(0), 10);
+        Assert.assertEquals(cacheInvalidations.size(), 1);
+        Assert.assertEquals(cacheInvalidations.get(0).getCacheName(), BraintreeDao.AUTHORIZATION_RESPONSE_CACHE);
+        Assert.assertEquals(cacheInvalidations.get(0).getCacheKey(), kbPaymentId.toString());
+    }
+
+    @Test(groups = "slow")
+    public void testUnitOfWorkSharesConnection() throws Exception {
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        final DataSource pool = Mockito.mock(DataSource.class);
+        Mockito.when(pool.getConnection()).thenReturn(connection);
+        final BraintreeUnitOfWorkDataSource dataSource = new BraintreeUnitOfWorkDataSource(pool);
+
+        try (final UnitOfWork unitOfWork = dataSource.begin()) {
+            dataSource.getConnection().close();
+            try (final UnitOfWork nestedUnitOfWork = dataSource.begin()) {
+                dataSource.getConnection().close();
+            }
+            dataSource.getConnection().close();
+            Mockito.verify(connection, Mockito.never()).close();
+        }
+        Mockito.verify(pool, Mockito.times(1)).getConnection();
+        Mockito.verify(connection, Mockito.times(1)).close();
+
+        // Outside of a unit of work, connections come from the pool
+        dataSource.getConnection();
+        Mockito.verify(pool, Mockito.times(2)).getConnection();
+    }
+
+    @Test(groups = "slow")
+    public void testReadReplicaRouting() throws Exception {
+        final DataSource readReplicaDataSource = Mockito.mock(DataSource.class);
+        Mockito.when(readReplicaDataSource.getConnection()).thenAnswer(invocation -> EmbeddedDbHelper.instance().getDataSource().getConnection());
+        final BraintreeDao replicaDao = EmbeddedDbHelper.instance().getBraintreeDao(readReplicaDataSource, new BraintreeConfigProperties(new Properties(), ""));
+        final UUID kbPaymentId = UUID.randomUUID();
+
+        try (final ReplicaReads ignored = replicaDao.beginReplicaReads(account.getId(), context.getTenantId())) {
+            Assert.assertTrue(replicaDao.getResponses(kbPaymentId, context.getTenantId()).isEmpty());
+        }
+        Mockito.verify(readReplicaDataSource, Mockito.atLeastOnce()).getConnection();
+        Mockito.clearInvocations(readReplicaDataSource);
+
+        // Outside of a replica reads scope
+        Assert.assertTrue(replicaDao.getResponses(kbPaymentId, context.getTenantId()).isEmpty());
+
+        // Read-your-writes
+        replicaDao.recordAccountWrite(account.getId(), context.getTenantId());
+        try (final ReplicaReads ignored = replicaDao.beginReplicaReads(account.getId(), context.getTenantId())) {
+            Assert.assertTrue(replicaDao.getResponses(kbPaymentId, context.getTenantId()).isEmpty());
+        }
+        Mockito.verify(readReplicaDataSource, Mockito.never()).getConnection();
+    }
+
+    private UUID addResponse(final Transaction.Status status, final String paymentInstrumentType) throws Exception {
+        final UUID kbPaymentId = UUID.randomUUID();
+        addResponse(kbPaymentId, TransactionType.PURCHASE, status, paymentInstrumentType);
+        return kbPaymentId;
+    }
+
+    private void addResponse(final UUID kbPaymentId, final TransactionType transactionType, final Transaction.Status status, final String paymentInstrumentType) throws Exception {
+        final Transaction transaction = Mockito.mock(Transaction.class);
+        Mockito.when(transaction.getId()).thenReturn(UUID.randomUUID().toString());
+        Mockito.when(transaction.getStatus()).thenReturn(status);
+        Mockito.when(transaction.getPaymentInstrumentType()).thenReturn(paymentInstrumentType);
+        final Result<Transaction> result = Mockito.mock(Result.class);
+        Mockito.when(result.isSuccess()).thenReturn(true);
+        Mockito.when(result.getTarget()).thenReturn(transaction);
+
+        dao.addResponse(account.getId(),
+                        kbPaymentId,
+                        UUID.randomUUID(),
+                        transactionType,
+                        BigDecimal.TEN,
+                        DEFAULT_CURRENCY,
+                        result,
+                        clock.getUTCNow(),
+                        context.getTenantId());
+    }
+}
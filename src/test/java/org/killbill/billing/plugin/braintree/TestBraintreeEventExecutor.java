@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import org.killbill.billing.plugin.braintree.core.BraintreeEventExecutor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeEventExecutor extends TestBase {
+
+    @Test(groups = "slow")
+    public void testSharedQueueBound() throws Exception {
+        final BraintreeEventExecutor eventExecutor = new BraintreeEventExecutor(2, 3);
+        try {
+            final UUID firstKey = keyForStripe(0);
+            final UUID secondKey = keyForStripe(1);
+            final CountDownLatch started = new CountDownLatch(2);
+            final CountDownLatch release = new CountDownLatch(1);
+            final Runnable blockingTask = () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+
+            // Both stripes busy
+            Assert.assertTrue(eventExecutor.execute(firstKey, blockingTask));
+            Assert.assertTrue(eventExecutor.execute(secondKey, blockingTask));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(eventExecutor.getQueueDepth(), 0);
+
+            // The capacity is shared: once the first stripe queued 3 tasks, the second one can't queue any
+            final List<Integer> processed = new CopyOnWriteArrayList<Integer>();
+            for (int i = 0; i < 3; i++) {
+                final int event = i;
+                Assert.assertTrue(eventExecutor.execute(firstKey, () -> processed.add(event)));
+            }
+            Assert.assertEquals(eventExecutor.getQueueDepth(), 3);
+            Assert.assertFalse(eventExecutor.execute(secondKey, () -> processed.add(-1)));
+            Assert.assertEquals(eventExecutor.getQueueDepth(), 3);
+
+            // The events of an account are processed in order
+            release.countDown();
+            for (int i = 0; i < 500 && processed.size() < 3; i++) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(processed, ImmutableList.<Integer>of(0, 1, 2));
+            Assert.assertEquals(eventExecutor.getQueueDepth(), 0);
+            Assert.assertTrue(eventExecutor.execute(secondKey, () -> processed.add(3)));
+        } finally {
+            eventExecutor.stop();
+        }
+
+        // Stopped
+        Assert.assertFalse(eventExecutor.execute(UUID.randomUUID(), () -> {}));
+        Assert.assertEquals(eventExecutor.getQueueDepth(), 0);
+    }
+
+    private static UUID keyForStripe(final int stripe) {
+        while (true) {
+            final UUID key = UUID.randomUUID();
+            if (Math.floorMod(key.hashCode(), 2) == stripe) {
+                return key;
+            }
+        }
+    }
+}
@@ -18,11 +18,19 @@ package org.killbill.billing.plugin.braintree;
 
 import java.util.Properties;
 
+import com.braintreegateway.BraintreeGateway;
+import com.braintreegateway.ClientTokenGateway;
+import com.braintreegateway.exceptions.AuthenticationException;
+import org.joda.time.Period;
 import org.killbill.billing.osgi.api.Healthcheck;
+import org.killbill.billing.osgi.api.Healthcheck.HealthStatus;
 import org.killbill.billing.plugin.braintree.core.BraintreeActivator;
 import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
 import org.killbill.billing.plugin.braintree.core.BraintreeConfigPropertiesConfigurationHandler;
+import org.killbill.billing.plugin.braintree.core.BraintreeGateways;
 import org.killbill.billing.plugin.braintree.core.BraintreeHealthcheck;
+import org.killbill.billing.tenant.api.Tenant;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -41,4 +49,57 @@ public class TestBraintreeHealthcheck extends TestBase {
         final Healthcheck healthcheck = new BraintreeHealthcheck(braintreeConfigPropertiesConfigurationHandler);
         Assert.assertTrue(healthcheck.getHealthStatus(null, null).isHealthy());
     }
+
+    @Test(groups = "slow")
+    public void testHealthcheckStaleProbe() {
+        final ClientTokenGateway clientTokenGateway = Mockito.mock(ClientTokenGateway.class);
+        Mockito.when(clientTokenGateway.generate()).thenReturn("token");
+        final BraintreeHealthcheck healthcheck = new BraintreeHealthcheck(braintreeConfigPropertiesConfigurationHandler, stubGateways(clientTokenGateway), clock, Period.seconds(30));
+        final Tenant tenant = Mockito.mock(Tenant.class);
+        Mockito.when(tenant.getId()).thenReturn(context.getTenantId());
+
+        // First healthcheck: probed inline
+        Assert.assertTrue(healthcheck.getHealthStatus(tenant, null).isHealthy());
+        Mockito.verify(clientTokenGateway, Mockito.times(1)).generate();
+
+        // Answered from the last probe
+        clock.addDeltaFromReality(Period.seconds(60).toStandardDuration().getMillis());
+        Assert.assertTrue(healthcheck.getHealthStatus(tenant, null).isHealthy());
+        Mockito.verify(clientTokenGateway, Mockito.times(1)).generate();
+
+        // The background probe missed more than 3 intervals
+        clock.addDeltaFromReality(Period.seconds(31).toStandardDuration().getMillis());
+        final HealthStatus staleStatus = healthcheck.getHealthStatus(tenant, null);
+        Assert.assertFalse(staleStatus.isHealthy());
+        Assert.assertEquals(staleStatus.getDetails().get("message"), "Braintree healthcheck is stale");
+        Mockito.verify(clientTokenGateway, Mockito.times(1)).generate();
+    }
+
+    @Test(groups = "slow")
+    public void testHealthcheckProbeFailure() {
+        final ClientTokenGateway clientTokenGateway = Mockito.mock(ClientTokenGateway.class);
+        Mockito.when(clientTokenGateway.generate()).thenThrow(new AuthenticationException());
+        final BraintreeHealthcheck healthcheck = new BraintreeHealthcheck(braintreeConfigPropertiesConfigurationHandler, stubGateways(clientTokenGateway), clock, Period.ZERO);
+        final Tenant tenant = Mockito.mock(Tenant.class);
+        Mockito.when(tenant.getId()).thenReturn(context.getTenantId());
+
+        // Probing disabled: each healthcheck probes inline
+        final HealthStatus firstStatus = healthcheck.getHealthStatus(tenant, null);
+        Assert.assertFalse(firstStatus.isHealthy());
+        Assert.assertEquals(firstStatus.getDetails().get("errorRate"), 1.0);
+
+        Mockito.reset(clientTokenGateway);
+        Mockito.when(clientTokenGateway.generate()).thenReturn("token");
+        final HealthStatus secondStatus = healthcheck.getHealthStatus(tenant, null);
+        Assert.assertTrue(secondStatus.isHealthy());
+        Assert.assertEquals(secondStatus.getDetails().get("errorRate"), 0.5);
+    }
+
+    private BraintreeGateways stubGateways(final ClientTokenGateway clientTokenGateway) {
+        final BraintreeGateway gateway = Mockito.mock(BraintreeGateway.class);
+        Mockito.when(gateway.clientToken()).thenReturn(clientTokenGateway);
+        final BraintreeGateways gateways = Mockito.mock(BraintreeGateways.class);
+        Mockito.when(gateways.getGateway(Mockito.any(BraintreeConfigProperties.class))).thenReturn(gateway);
+        return gateways;
+    }
 }
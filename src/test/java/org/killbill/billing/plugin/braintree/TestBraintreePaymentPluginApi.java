@@ -20,10 +20,15 @@ package org.killbill.billing.plugin.braintree;
 
 import com.braintreegateway.Customer;
 import com.braintreegateway.CustomerRequest;
+import com.braintreegateway.PaymentMethod;
 import com.braintreegateway.Result;
 import com.braintreegateway.exceptions.BraintreeException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.osgi.libs.killbill.OSGIConfigPropertiesService;
 import org.killbill.billing.payment.api.*;
 import org.killbill.billing.payment.plugin.api.PaymentMethodInfoPlugin;
 import org.killbill.billing.payment.plugin.api.PaymentPluginApiException;
@@ -33,14 +38,21 @@ import org.killbill.billing.plugin.TestUtils;
 import org.killbill.billing.plugin.api.PluginProperties;
 import org.killbill.billing.plugin.api.core.PluginCustomField;
 import org.killbill.billing.plugin.braintree.api.BraintreePaymentMethodPlugin;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentPluginApi;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
 import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
 import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties.PaymentMethodType;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreePaymentMethodsRecord;
+import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Properties;
 import java.util.UUID;
 
 import static org.killbill.billing.plugin.braintree.core.BraintreePluginProperties.PROPERTY_BT_CUSTOMER_ID;
@@ -135,6 +147,75 @@ public class TestBraintreePaymentPluginApi extends TestBase {
         assertEquals(syncPaymentMethods(kbAccountId).size(), 0);
     }
 
+    @Test(groups = "slow")
+    public void testSyncPaymentMethodsWithStubClient() throws Exception {
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        braintreePaymentPluginApi = buildPaymentPluginApi(stubClient);
+        setCustomerIdCustomField(account.getId(), "customer-1");
+
+        // Created
+        Mockito.doReturn(ImmutableList.of(mockPaymentMethod("token-1", "image-1"), mockPaymentMethod("token-2", "image-2")))
+               .when(stubClient).getPaymentMethods("customer-1");
+        assertEquals(syncPaymentMethods(account.getId()).size(), 2);
+        verifyPaymentMethodsAdded(2);
+        final BraintreePaymentMethodsRecord unchangedRecord = getPaymentMethodRecord("token-1");
+        final BraintreePaymentMethodsRecord updatedRecord = getPaymentMethodRecord("token-2");
+
+        // Unchanged and updated
+        clock.addDays(1);
+        Mockito.doReturn(ImmutableList.of(mockPaymentMethod("token-1", "image-1"), mockPaymentMethod("token-2", "image-2-updated")))
+               .when(stubClient).getPaymentMethods("customer-1");
+        assertEquals(syncPaymentMethods(account.getId()).size(), 2);
+        verifyPaymentMethodsAdded(2);
+        assertEquals(getPaymentMethodRecord("token-1").getUpdatedDate(), unchangedRecord.getUpdatedDate());
+        assertEquals(getPaymentMethodRecord("token-1").getAdditionalData(), unchangedRecord.getAdditionalData());
+        assertNotEquals(getPaymentMethodRecord("token-2").getUpdatedDate(), updatedRecord.getUpdatedDate());
+        assertEquals(BraintreeDao.mapFromAdditionalDataString(getPaymentMethodRecord("token-2").getAdditionalData()).get("image_url"), "image-2-updated");
+        assertTrue(dao.hasAdditionalData(getPaymentMethodRecord("token-2"), BraintreePluginProperties.toAdditionalDataMap(mockPaymentMethod("token-2", "image-2-updated"))));
+        assertFalse(dao.hasAdditionalData(getPaymentMethodRecord("token-2"), BraintreePluginProperties.toAdditionalDataMap(mockPaymentMethod("token-2", "image-2"))));
+
+        // Unchanged and created
+        Mockito.doReturn(ImmutableList.of(mockPaymentMethod("token-1", "image-1"), mockPaymentMethod("token-2", "image-2-updated"), mockPaymentMethod("token-3", "image-3")))
+               .when(stubClient).getPaymentMethods("customer-1");
+        assertEquals(syncPaymentMethods(account.getId()).size(), 3);
+        verifyPaymentMethodsAdded(3);
+        assertEquals(getPaymentMethodRecord("token-1").getUpdatedDate(), unchangedRecord.getUpdatedDate());
+        Mockito.verify(stubClient, Mockito.never()).getPaymentMethod(Mockito.anyString());
+    }
+
+    @Test(groups = "slow")
+    public void testPaymentMethodFieldProfile() throws Exception {
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        braintreePaymentPluginApi = buildPaymentPluginApi(stubClient);
+        setCustomerIdCustomField(account.getId(), "customer-1");
+        Mockito.doReturn(ImmutableList.of(mockPaymentMethod("token-1", "image-1")))
+               .when(stubClient).getPaymentMethods("customer-1");
+
+        // All the attributes are stored by default
+        final PaymentMethodInfoPlugin paymentMethodInfo = syncPaymentMethods(account.getId()).get(0);
+        assertEquals(BraintreeDao.mapFromAdditionalDataString(getPaymentMethodRecord("token-1").getAdditionalData()).keySet(),
+                     ImmutableSet.of("token", "is_default", "image_url", PROPERTY_BT_CUSTOMER_ID));
+
+        final Properties properties = new Properties();
+        properties.setProperty("org.killbill.billing.plugin.braintree.paymentMethodFields", "token," + PROPERTY_BT_CUSTOMER_ID);
+        braintreeConfigPropertiesConfigurationHandler.setDefaultConfigurable(new BraintreeConfigProperties(properties, ""));
+
+        // Rows stored with the previous profile are filtered when read
+        final List<PluginProperty> detailProperties = braintreePaymentPluginApi.getPaymentMethodDetail(account.getId(), paymentMethodInfo.getPaymentMethodId(), ImmutableList.of(), context).getProperties();
+        assertEquals(PluginProperties.findPluginPropertyValue("token", detailProperties), "token-1");
+        assertEquals(PluginProperties.findPluginPropertyValue(PROPERTY_BT_CUSTOMER_ID, detailProperties), "customer-1");
+        assertNull(PluginProperties.findPluginPropertyValue("image_url", detailProperties));
+
+        // ...and rewritten by the next sync, as are new rows
+        Mockito.doReturn(ImmutableList.of(mockPaymentMethod("token-1", "image-1"), mockPaymentMethod("token-2", "image-2")))
+               .when(stubClient).getPaymentMethods("customer-1");
+        assertEquals(syncPaymentMethods(account.getId()).size(), 2);
+        for (final String token : ImmutableList.of("token-1", "token-2")) {
+            assertEquals(BraintreeDao.mapFromAdditionalDataString(getPaymentMethodRecord(token).getAdditionalData()),
+                         ImmutableMap.<String, Object>of("token", token, PROPERTY_BT_CUSTOMER_ID, "customer-1"));
+        }
+    }
+
     @Test(groups = "integration", enabled = true)
     public void testSuccessfulPurchase() throws PaymentPluginApiException, PaymentApiException {
         UUID kbAccountId = account.getId();
@@ -369,6 +450,57 @@ public class TestBraintreePaymentPluginApi extends TestBase {
         return braintreePaymentPluginApi.getPaymentMethodDetail(kbAccountId, paymentMethodId, ImmutableList.of(), context);
     }
 
+    private BraintreePaymentPluginApi buildPaymentPluginApi(final BraintreeClient braintreeClient) {
+        return new BraintreePaymentPluginApi(braintreeConfigPropertiesConfigurationHandler,
+                                             killbillApi,
+                                             Mockito.mock(OSGIConfigPropertiesService.class),
+                                             clock,
+                                             dao) {
+            @Override
+            protected BraintreeClient buildBraintreeClient(final TenantContext tenantContext) {
+                return braintreeClient;
+            }
+        };
+    }
+
+    private void setCustomerIdCustomField(final UUID kbAccountId, final String braintreeCustomerId) {
+        final PluginCustomField customField = new PluginCustomField(kbAccountId,
+                                                                    ObjectType.ACCOUNT,
+                                                                    BraintreePluginProperties.MAGIC_FIELD_BT_CUSTOMER_ID,
+                                                                    braintreeCustomerId,
+                                                                    clock.getUTCNow());
+        Mockito.when(customFieldUserApi.getCustomFieldsForAccountType(Mockito.eq(kbAccountId), Mockito.eq(ObjectType.ACCOUNT), Mockito.any(TenantContext.class)))
+               .thenReturn(ImmutableList.of(customField));
+    }
+
+    private PaymentMethod mockPaymentMethod(final String token, final String imageUrl) {
+        final PaymentMethod paymentMethod = Mockito.mock(PaymentMethod.class);
+        Mockito.when(paymentMethod.getToken()).thenReturn(token);
+        Mockito.when(paymentMethod.getImageUrl()).thenReturn(imageUrl);
+        Mockito.when(paymentMethod.getCustomerId()).thenReturn("customer-1");
+        return paymentMethod;
+    }
+
+    private BraintreePaymentMethodsRecord getPaymentMethodRecord(final String token) throws Exception {
+        for (final BraintreePaymentMethodsRecord record : dao.getPaymentMethods(account.getId(), context.getTenantId())) {
+            if (token.equals(record.getBraintreeId())) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private void verifyPaymentMethodsAdded(final int times) throws PaymentApiException {
+        Mockito.verify(killbillApi.getPaymentApi(), Mockito.times(times))
+               .addPaymentMethod(Mockito.any(Account.class),
+                                 Mockito.anyString(),
+                                 Mockito.eq("killbill-braintree"),
+                                 Mockito.anyBoolean(),
+                                 Mockito.any(PaymentMethodPlugin.class),
+                                 Mockito.any(Iterable.class),
+                                 Mockito.any(CallContext.class));
+    }
+
     private List<PaymentMethodInfoPlugin> syncPaymentMethods(UUID kbAccountId) throws PaymentPluginApiException {
         return braintreePaymentPluginApi.getPaymentMethods(kbAccountId,true, ImmutableList.of(), context);
     }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.Map;
+
+import com.braintreegateway.Result;
+import com.braintreegateway.Transaction;
+import com.google.common.collect.ImmutableMap;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.BraintreeTransactionData;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeTransactionData extends TestBase {
+
+    @Test(groups = "slow")
+    public void testCompatibleWithMapFormat() {
+        final Map<String, Object> additionalDataMap = ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, "SETTLEMENT_PENDING",
+                                                                                      BraintreePluginProperties.PROPERTY_BT_TRANSACTION_SUCCESS, true,
+                                                                                      BraintreePluginProperties.PROPERTY_BT_FIRST_PAYMENT_REFERENCE_ID, "abc123",
+                                                                                      BraintreePluginProperties.PROPERTY_OVERRIDDEN_TRANSACTION_STATUS, "CANCELED",
+                                                                                      "message", "Payment Expired - Cancelled by Janitor");
+        final String additionalData = BraintreeDao.stringFromAdditionalDataMap(additionalDataMap);
+
+        final BraintreeTransactionData transactionData = BraintreeDao.transactionDataFromAdditionalDataString(additionalData);
+        Assert.assertEquals(transactionData.getTransactionStatus(), "SETTLEMENT_PENDING");
+        Assert.assertEquals(transactionData.getFirstPaymentReferenceId(), "abc123");
+        Assert.assertEquals(transactionData.getPaymentPluginStatus(), PaymentPluginStatus.CANCELED);
+        Assert.assertEquals(transactionData.getOtherProperties(), ImmutableMap.<String, Object>of("message", "Payment Expired - Cancelled by Janitor"));
+        Assert.assertEquals(transactionData.toPluginProperties().size(), 5);
+
+        // Same document once written back
+        Assert.assertEquals(BraintreeDao.mapFromAdditionalDataString(BraintreeDao.stringFromTransactionData(transactionData)), additionalDataMap);
+        Assert.assertEquals(transactionData.getSchemaVersion(), BraintreeTransactionData.LEGACY_SCHEMA_VERSION);
+    }
+
+    @Test(groups = "slow")
+    public void testSchemaVersion() {
+        final Transaction transaction = Mockito.mock(Transaction.class);
+        Mockito.when(transaction.getId()).thenReturn("abc123");
+        Mockito.when(transaction.getStatus()).thenReturn(Transaction.Status.SETTLED);
+        final Result<Transaction> result = Mockito.mock(Result.class);
+        Mockito.when(result.isSuccess()).thenReturn(true);
+        Mockito.when(result.getTarget()).thenReturn(transaction);
+
+        final String additionalData = BraintreeDao.stringFromTransactionData(BraintreeTransactionData.build(result));
+        Assert.assertEquals(BraintreeDao.mapFromAdditionalDataString(additionalData).get(BraintreePluginProperties.PROPERTY_BT_SCHEMA_VERSION), BraintreeTransactionData.SCHEMA_VERSION);
+        Assert.assertEquals(BraintreeDao.transactionDataFromAdditionalDataString(additionalData).getSchemaVersion(), BraintreeTransactionData.SCHEMA_VERSION);
+        Assert.assertEquals(BraintreeDao.transactionSummaryFromAdditionalDataString(additionalData).getSchemaVersion(), BraintreeTransactionData.SCHEMA_VERSION);
+        Assert.assertTrue(BraintreeDao.transactionDataFromAdditionalDataString(additionalData).getOtherProperties().isEmpty());
+    }
+
+    @Test(groups = "slow")
+    public void testScanTypedAttributes() {
+        final Map<String, Object> additionalDataMap = ImmutableMap.<String, Object>builder()
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, "PROCESSOR_DECLINED")
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_SUCCESS, false)
+                                                                  .put("nested", ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE, "ignored"))
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_GATEWAY_ERROR_CODE, "2000")
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, "credit_card")
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, "2026-10-19T12:00:00.000Z")
+                                                                  .put(BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, "3")
+                                                                  .build();
+        final String additionalData = BraintreeDao.stringFromAdditionalDataMap(additionalDataMap);
+
+        final BraintreeTransactionData summary = BraintreeDao.transactionSummaryFromAdditionalDataString(additionalData);
+        Assert.assertEquals(summary.getTransactionStatus(), "PROCESSOR_DECLINED");
+        Assert.assertEquals(summary.getTransactionSuccess(), Boolean.FALSE);
+        Assert.assertEquals(summary.getGatewayErrorCode(), "2000");
+        Assert.assertEquals(summary.getPaymentInstrumentType(), "credit_card");
+        Assert.assertEquals(summary.getPaymentPluginStatus(), PaymentPluginStatus.ERROR);
+        Assert.assertEquals(summary.getLastRefreshedDate(), "2026-10-19T12:00:00.000Z");
+        Assert.assertEquals(summary.getRefreshCount(), "3");
+        Assert.assertTrue(summary.getOtherProperties().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+
+import com.braintreegateway.Customer;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.killbill.billing.plugin.braintree.client.BraintreeClient;
+import org.killbill.billing.plugin.braintree.core.BraintreeGateways;
+import org.killbill.billing.plugin.braintree.core.BraintreeVaultImporter;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeVaultImportsRecord;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBraintreeVaultImporter extends TestBase {
+
+    @Test(groups = "slow")
+    public void testResumeAfterLastCustomerId() throws Exception {
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        Mockito.when(stubClient.searchCustomerIds(Mockito.any(Calendar.class), Mockito.any(Calendar.class)))
+               .thenReturn(ImmutableList.of("customer-3", "customer-1", "customer-2", "customer-4"));
+        Mockito.when(stubClient.getCustomers(Mockito.anyList())).thenReturn(ImmutableList.<Customer>of());
+
+        // Interrupted import, which had processed the customers up to customer-2
+        final BraintreeVaultImportsRecord vaultImport = dao.createVaultImport(BraintreeVaultImporter.STATUS_RUNNING, clock.getUTCNow().minusDays(1), clock.getUTCNow(), context.getTenantId());
+        vaultImport.setStatus(BraintreeVaultImporter.STATUS_STOPPED);
+        vaultImport.setLastCustomerId("customer-2");
+        dao.updateVaultImport(vaultImport, clock.getUTCNow());
+
+        final BraintreeVaultImporter importer = buildImporter(stubClient, Period.days(7));
+        importer.startImport(context.getTenantId(), null);
+        final BraintreeVaultImportsRecord completedVaultImport = waitForImport();
+
+        Assert.assertEquals(completedVaultImport.getStatus(), BraintreeVaultImporter.STATUS_COMPLETED);
+        Assert.assertNull(completedVaultImport.getLastCustomerId());
+        Mockito.verify(stubClient, Mockito.times(1)).searchCustomerIds(Mockito.any(Calendar.class), Mockito.any(Calendar.class));
+        Mockito.verify(stubClient, Mockito.times(1)).getCustomers(Mockito.anyList());
+        Mockito.verify(stubClient).getCustomers(ImmutableList.of("customer-3", "customer-4"));
+        importer.stop();
+    }
+
+    @Test(groups = "slow")
+    public void testSplitWindowAtSearchLimit() throws Exception {
+        final BraintreeClient stubClient = Mockito.mock(BraintreeClient.class);
+        final List<String> tooManyCustomerIds = new ArrayList<String>();
+        for (int i = 0; i < 50000; i++) {
+            tooManyCustomerIds.add("customer-" + i);
+        }
+        // More than 20 hours: the search is truncated
+        Mockito.when(stubClient.searchCustomerIds(Mockito.any(Calendar.class), Mockito.any(Calendar.class)))
+               .thenAnswer(invocation -> {
+                   final Calendar createdFrom = (Calendar) invocation.getArguments()[0];
+                   final Calendar createdTo = (Calendar) invocation.getArguments()[1];
+                   return createdTo.getTimeInMillis() - createdFrom.getTimeInMillis() >= 20 * 3600 * 1000L ? tooManyCustomerIds : ImmutableList.of("customer-" + createdFrom.getTimeInMillis());
+               });
+        Mockito.when(stubClient.getCustomers(Mockito.anyList())).thenReturn(ImmutableList.<Customer>of());
+
+        final DateTime since = new DateTime(clock.getUTCNow().minusDays(1).getMillis() / 1000 * 1000, DateTimeZone.UTC);
+        dao.createVaultImport(BraintreeVaultImporter.STATUS_STOPPED, since, clock.getUTCNow(), context.getTenantId());
+
+        final BraintreeVaultImporter importer = buildImporter(stubClient, Period.days(1));
+        importer.startImport(context.getTenantId(), null);
+        Assert.assertEquals(waitForImport().getStatus(), BraintreeVaultImporter.STATUS_COMPLETED);
+
+        // Both halves of the window are imported
+        Mockito.verify(stubClient, Mockito.times(3)).searchCustomerIds(Mockito.any(Calendar.class), Mockito.any(Calendar.class));
+        Mockito.verify(stubClient).getCustomers(ImmutableList.of("customer-" + since.getMillis()));
+        Mockito.verify(stubClient).getCustomers(ImmutableList.of("customer-" + since.plusHours(12).getMillis()));
+        Mockito.verify(stubClient, Mockito.times(2)).getCustomers(Mockito.anyList());
+        importer.stop();
+    }
+
+    private BraintreeVaultImporter buildImporter(final BraintreeClient braintreeClient, final Period window) {
+        return new BraintreeVaultImporter(killbillApi, braintreeConfigPropertiesConfigurationHandler, new BraintreeGateways(),
+                                          braintreePaymentPluginApi, dao, clock, window) {
+            @Override
+            protected BraintreeClient buildBraintreeClient(final UUID kbTenantId) {
+                return braintreeClient;
+            }
+        };
+    }
+
+    private BraintreeVaultImportsRecord waitForImport() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            final BraintreeVaultImportsRecord vaultImport = dao.getVaultImport(context.getTenantId());
+            if (BraintreeVaultImporter.STATUS_COMPLETED.equals(vaultImport.getStatus()) || BraintreeVaultImporter.STATUS_FAILED.equals(vaultImport.getStatus())) {
+                return vaultImport;
+            }
+            Thread.sleep(20);
+        }
+        Assert.fail("Vault import didn't complete");
+        return null;
+    }
+}
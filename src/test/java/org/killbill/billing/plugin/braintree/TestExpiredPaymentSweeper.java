@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import com.braintreegateway.Result;
+import com.braintreegateway.Transaction;
+import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentTransactionInfoPlugin;
+import org.killbill.billing.plugin.braintree.core.ExpiredPaymentSweeper;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestExpiredPaymentSweeper extends TestBase {
+
+    @Test(groups = "slow")
+    public void testSweepExpiredPendingPayments() throws Exception {
+        final UUID expiredPaymentId = addPendingResponse(TransactionType.PURCHASE);
+        clock.addDays(1);
+        final UUID recentPaymentId = addPendingResponse(TransactionType.AUTHORIZE);
+
+        final ExpiredPaymentSweeper sweeper = new ExpiredPaymentSweeper(braintreeConfigPropertiesConfigurationHandler, dao, clock, 1);
+        Assert.assertEquals(sweeper.sweep(), 0);
+
+        // Default expiration period is 3 days
+        clock.addDays(3);
+        Assert.assertEquals(sweeper.sweep(), 1);
+        Assert.assertEquals(getStatus(expiredPaymentId), PaymentPluginStatus.CANCELED);
+        Assert.assertEquals(getStatus(recentPaymentId), PaymentPluginStatus.PENDING);
+
+        // Canceled payments are not swept again
+        Assert.assertEquals(sweeper.sweep(), 0);
+
+        clock.addDays(1);
+        Assert.assertEquals(sweeper.sweep(), 1);
+        Assert.assertEquals(getStatus(recentPaymentId), PaymentPluginStatus.CANCELED);
+    }
+
+    private UUID addPendingResponse(final TransactionType transactionType) throws Exception {
+        final Transaction transaction = Mockito.mock(Transaction.class);
+        Mockito.when(transaction.getId()).thenReturn(UUID.randomUUID().toString());
+        Mockito.when(transaction.getStatus()).thenReturn(Transaction.Status.SETTLEMENT_PENDING);
+        Mockito.when(transaction.getPaymentInstrumentType()).thenReturn("us_bank_account");
+        final Result<Transaction> result = Mockito.mock(Result.class);
+        Mockito.when(result.isSuccess()).thenReturn(true);
+        Mockito.when(result.getTarget()).thenReturn(transaction);
+
+        final UUID kbPaymentId = UUID.randomUUID();
+        dao.addResponse(account.getId(),
+                        kbPaymentId,
+                        UUID.randomUUID(),
+                        transactionType,
+                        BigDecimal.TEN,
+                        DEFAULT_CURRENCY,
+                        result,
+                        clock.getUTCNow(),
+                        context.getTenantId());
+        return kbPaymentId;
+    }
+
+    private PaymentPluginStatus getStatus(final UUID kbPaymentId) throws Exception {
+        final List<BraintreeResponsesRecord> responses = dao.getResponses(kbPaymentId, context.getTenantId());
+        Assert.assertEquals(responses.size(), 1);
+        return BraintreePaymentTransactionInfoPlugin.build(responses.get(0)).getStatus();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Wovenware, Inc
+ *
+ * Wovenware licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.plugin.braintree;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import com.braintreegateway.Transaction;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.plugin.braintree.api.BraintreePaymentTransactionInfoPlugin;
+import org.killbill.billing.plugin.braintree.core.BraintreeConfigProperties;
+import org.killbill.billing.plugin.braintree.core.BraintreePluginProperties;
+import org.killbill.billing.plugin.braintree.core.resources.RefreshPaymentPolicy;
+import org.killbill.billing.plugin.braintree.dao.BraintreeDao;
+import org.killbill.billing.plugin.braintree.dao.gen.tables.records.BraintreeResponsesRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestRefreshPaymentPolicy extends TestBase {
+
+    @Test(groups = "slow")
+    public void testMinRefreshInterval() {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.plugin.braintree.minRefreshInterval", "credit_card#PT30S");
+        final RefreshPaymentPolicy policy = new RefreshPaymentPolicy(clock, new BraintreeConfigProperties(properties, ""));
+
+        final DateTime createdDate = clock.getUTCNow();
+        final BraintreePaymentTransactionInfoPlugin creditCard = buildTransaction(createdDate, "credit_card", ImmutableMap.<String, Object>of());
+        final BraintreePaymentTransactionInfoPlugin payPal = buildTransaction(createdDate, "paypal_account", ImmutableMap.<String, Object>of());
+
+        Assert.assertFalse(policy.shouldRefresh(creditCard, null));
+        Assert.assertTrue(policy.shouldRefresh(payPal, null));
+
+        clock.addDeltaFromReality(30 * 1000);
+        Assert.assertTrue(policy.shouldRefresh(creditCard, null));
+        // The caller can only relax the configured interval
+        Assert.assertFalse(policy.shouldRefresh(creditCard, Period.minutes(1)));
+        Assert.assertTrue(policy.shouldRefresh(creditCard, Period.seconds(1)));
+    }
+
+    @Test(groups = "slow")
+    public void testPollingSchedule() {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.plugin.braintree.pendingPaymentPollingSchedule", "us_bank_account#PT1H,PT6H,P1D|paypal_account#PT15M");
+        final RefreshPaymentPolicy policy = new RefreshPaymentPolicy(clock, new BraintreeConfigProperties(properties, ""));
+
+        final DateTime lastRefreshedDate = clock.getUTCNow();
+        final BraintreePaymentTransactionInfoPlugin firstCheck = buildTransaction(lastRefreshedDate.minusDays(3), "us_bank_account",
+                                                                                  ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, lastRefreshedDate.toString()));
+        Assert.assertEquals(policy.getNextRefreshDate(firstCheck, null), lastRefreshedDate.plusHours(1));
+
+        final BraintreePaymentTransactionInfoPlugin secondCheck = buildTransaction(lastRefreshedDate.minusDays(3), "us_bank_account",
+                                                                                   ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, lastRefreshedDate.toString(),
+                                                                                                                   BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, "1"));
+        Assert.assertEquals(policy.getNextRefreshDate(secondCheck, null), lastRefreshedDate.plusHours(6));
+
+        // The last delay is reused once the schedule is exhausted
+        final BraintreePaymentTransactionInfoPlugin laterCheck = buildTransaction(lastRefreshedDate.minusDays(3), "us_bank_account",
+                                                                                  ImmutableMap.<String, Object>of(BraintreePluginProperties.PROPERTY_BT_LAST_REFRESHED_DATE, lastRefreshedDate.toString(),
+                                                                                                                  BraintreePluginProperties.PROPERTY_BT_REFRESH_COUNT, "12"));
+        Assert.assertEquals(policy.getNextRefreshDate(laterCheck, null), lastRefreshedDate.plusDays(1));
+
+        final BraintreePaymentTransactionInfoPlugin creditCard = buildTransaction(lastRefreshedDate, "credit_card", ImmutableMap.<String, Object>of());
+        Assert.assertTrue(policy.shouldRefresh(creditCard, null));
+    }
+
+    private BraintreePaymentTransactionInfoPlugin buildTransaction(final DateTime createdDate,
+                                                                   final String paymentInstrumentType,
+                                                                   final Map<String, Object> additionalData) {
+        final BraintreeResponsesRecord record = new BraintreeResponsesRecord();
+        record.setKbAccountId(UUID.randomUUID().toString());
+        record.setKbPaymentId(UUID.randomUUID().toString());
+        record.setKbPaymentTransactionId(UUID.randomUUID().toString());
+        record.setTransactionType(TransactionType.PURCHASE.toString());
+        record.setAmount(BigDecimal.TEN);
+        record.setCurrency(DEFAULT_CURRENCY.toString());
+        record.setBraintreeId(UUID.randomUUID().toString());
+        record.setAdditionalData(BraintreeDao.stringFromAdditionalDataMap(ImmutableMap.<String, Object>builder()
+                                                                                      .putAll(additionalData)
+                                                                                      .put(BraintreePluginProperties.PROPERTY_BT_TRANSACTION_STATUS, Transaction.Status.SETTLEMENT_PENDING.toString())
+                                                                                      .put(BraintreePluginProperties.PROPERTY_BT_PAYMENT_INSTRUMENT_TYPE, paymentInstrumentType)
+                                                                                      .build()));
+        record.setCreatedDate(Instant.ofEpochMilli(createdDate.getMillis()).atOffset(ZoneOffset.UTC).toLocalDateTime());
+        record.setKbTenantId(context.getTenantId().toString());
+        return BraintreePaymentTransactionInfoPlugin.build(record);
+    }
+}